@@ -98,6 +98,13 @@ public class ApplicantBoundary extends BaseBoundary {
 
         System.out.println("Fetching available projects...");
 
+        if (flatTypeFilter == null && neighFilter == null && sortBy == null) {
+            // Default view: page through by project name instead of loading the whole list
+            this.<Project, String>showPages((after, limit) -> mainController.getApplicantController().getAvailableProjectsPage(currentApplicant(), after, limit),
+                      this::displayProjectsList);
+            return;
+        }
+
         // Call controller with filters and sorting
         List<Project> projects = mainController.getProjectController()
             .getFilteredProjects(currentApplicant(), neighFilter, flatTypeFilter, null, null, // No manager/date filter for applicants
@@ -1,11 +1,15 @@
 package boundary.usersBoundary;
 
 import java.util.Date;
+import java.util.List;
 import java.util.Scanner;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.text.SimpleDateFormat;
 import java.text.ParseException;
 
 import controller.MainController;
+import entities.database.repositories.Page;
 import entities.user.User;
 import entities.project.FlatType;
 import utilities.ui.MenuBuilder;
@@ -21,6 +25,7 @@ public abstract class BaseBoundary {
     // Consistent date format for user input if needed
     protected static final SimpleDateFormat INPUT_DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
     static { INPUT_DATE_FORMAT.setLenient(false); } // Make date parsing strict
+    protected static final int LIST_PAGE_SIZE = 10; // Entries shown per page in paginated listings
 
     public BaseBoundary(Scanner scanner, MainController mainController, User currentUser) {
         this.scanner = scanner;
@@ -137,6 +142,22 @@ public abstract class BaseBoundary {
         }
     }
 
+    /**
+     * Shows a keyset-paginated listing one page at a time, asking before fetching the next page.
+     * Only one page is ever held in memory.
+     * @param fetch Fetches a page given the cursor (null for the first page) and the page size.
+     * @param display Prints one page of entries.
+     */
+    protected <T, ID> void showPages(BiFunction<ID, Integer, Page<T, ID>> fetch, Consumer<List<T>> display) {
+        ID cursor = null;
+        while (true) {
+            Page<T, ID> page = fetch.apply(cursor, LIST_PAGE_SIZE);
+            display.accept(page.getItems());
+            if (!page.hasNext() || !getYesNoInput("Show next page?")) return;
+            cursor = page.getNextCursor();
+        }
+    }
+
     /**
      * Gets a date input from the user in yyyy-MM-dd format.
      * @param prompt The message to display.
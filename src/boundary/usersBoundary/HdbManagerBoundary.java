@@ -1,6 +1,7 @@
 package boundary.usersBoundary;
 
 import java.util.Scanner;
+import controller.BulkResult;
 import controller.MainController;
 import controller.ProjectController;
 import entities.user.*;
@@ -10,8 +11,12 @@ import entities.documents.repliableDocuments.*;
 import entities.database.Database;
 import entities.documents.*;
 import java.util.Date;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -21,6 +26,7 @@ import java.util.stream.*;
  * This boundary class handles interaction flows for HDB Managers.
  */
 public class HdbManagerBoundary extends BaseBoundary {
+    private static final int INBOX_PAGE_SIZE = 20; // Unreplied enquiries shown per reply prompt
     private static final String[] menuOptions = {
         "#Project Management",
         "Create New BTO Project",
@@ -35,11 +41,13 @@ public class HdbManagerBoundary extends BaseBoundary {
         "#Application Management",
         "View Pending BTO Applications",
         "Process BTO Application (Approve/Reject)",
+        "Run Ballot for My Projects",
         "View Pending Withdrawal Requests",
         "Process Withdrawal Request (Approve/Reject)",
         "#Enquiry Management",
         "View All Enquiries",
         "View Enquiries for My Projects",
+        "Search Enquiries",
         "Reply to Enquiry",
         "#Reporting",
         "Generate Booking Report",
@@ -78,16 +86,18 @@ public class HdbManagerBoundary extends BaseBoundary {
             // Application Management
             case 9 -> handleViewPendingBtoApps();
             case 10 -> handleProcessBtoApp();
-            case 11 -> handleViewPendingWithdrawals();
-            case 12 -> handleProcessWithdrawal();
+            case 11 -> handleRunBallot();
+            case 12 -> handleViewPendingWithdrawals();
+            case 13 -> handleProcessWithdrawal();
             // Enquiry Management
-            case 13 -> handleViewAllEnquiries();
-            case 14 -> handleViewManagedEnquiries();
-            case 15 -> handleReplyToEnquiry();
+            case 14 -> handleViewAllEnquiries();
+            case 15 -> handleViewManagedEnquiries();
+            case 16 -> handleSearchEnquiries();
+            case 17 -> handleReplyToEnquiry();
             // Reporting
-            case 16 -> handleGenerateReport();
+            case 18 -> handleGenerateReport();
             // General
-            case 17 -> {
+            case 19 -> {
                 boolean changed = handleChangePassword(); // Use inherited helper method
                 if (changed){
                     System.out.println("Password change process completed. For security, please log in again.");
@@ -379,6 +389,13 @@ public class HdbManagerBoundary extends BaseBoundary {
 
         System.out.println("Fetching all projects (applying filters/sort)...");
 
+        if (flatTypeFilter == null && neighFilter == null && managerNricFilter == null && dateRangeFilter == null && sortBy == null) {
+            // Default view: page through by project name instead of loading the whole list
+            this.<Project, String>showPages((after, limit) -> mainController.getHdbManagerController().viewAllProjectsPage(currentManager(), after, limit),
+                      page -> displayProjectsList(page, true));
+            return;
+        }
+
         // Call controller with all filters and sorting
         List<Project> projects = mainController.getProjectController()
             .getFilteredProjects(currentManager(), neighFilter, flatTypeFilter, managerNricFilter, dateRangeFilter,
@@ -428,22 +445,27 @@ public class HdbManagerBoundary extends BaseBoundary {
          List<ProjectRegistration> regs = mainController.getHdbManagerController().viewPendingOfficerRegistrations(currentManager());
          if(!displayRegistrationsList(regs)) return;
 
-         String regId = getStringInput("Enter Registration ID to process (or 'cancel'): ");
-         if (regId.equalsIgnoreCase("cancel")) return;
+         String input = getStringInput("Enter Registration ID(s) to process, comma-separated or 'all' (or 'cancel'): ");
+         if (input.equalsIgnoreCase("cancel")) return;
 
-         // Verify selected ID is in the pending list
-         if (regs.stream().noneMatch(r -> r.getDocumentID().equals(regId))) {
+         // Verify selected IDs are in the pending list
+         List<String> regIds = selectIds(input, regs.stream().map(ProjectRegistration::getDocumentID).collect(Collectors.toList()));
+         if (regIds == null) {
               System.out.println("Invalid Registration ID selected from the pending list.");
               return;
          }
 
-         boolean approve = getYesNoInput("Approve this registration?");
+         boolean approve = getYesNoInput(regIds.size() == 1 ? "Approve this registration?" : "Approve these " + regIds.size() + " registrations?");
          String reason = "";
          if (!approve) {
              reason = getStringInput("Enter reason for rejection: ");
          }
 
-         boolean success = mainController.getHdbManagerController().processOfficerRegistration(currentManager(), regId, approve, reason);
+         if (regIds.size() > 1) {
+             printBulkResult(mainController.getHdbManagerController().processOfficerRegistrations(currentManager(), regIds, approve, reason));
+             return;
+         }
+         boolean success = mainController.getHdbManagerController().processOfficerRegistration(currentManager(), regIds.get(0), approve, reason);
          if(success) System.out.println("Registration processed."); else System.out.println("Failed to process registration.");
 
     }
@@ -460,26 +482,55 @@ public class HdbManagerBoundary extends BaseBoundary {
           List<ProjectApplication> apps = mainController.getHdbManagerController().viewPendingBtoApplications(currentManager());
           if(!displayApplicationsList(apps)) return;
 
-         String appId = getStringInput("Enter Application ID to process (or 'cancel'): ");
-          if (appId.equalsIgnoreCase("cancel")) return;
+         String input = getStringInput("Enter Application ID(s) to process, comma-separated or 'all' (or 'cancel'): ");
+          if (input.equalsIgnoreCase("cancel")) return;
 
-          // Verify selected ID is in the pending list
-          if (apps.stream().noneMatch(a -> a.getDocumentID().equals(appId))) {
+          // Verify selected IDs are in the pending list
+          List<String> appIds = selectIds(input, apps.stream().map(ProjectApplication::getDocumentID).collect(Collectors.toList()));
+          if (appIds == null) {
               System.out.println("Invalid Application ID selected from the pending list.");
               return;
          }
 
 
-         boolean approve = getYesNoInput("Approve this application (grant successful ballot)?");
+         boolean approve = getYesNoInput(appIds.size() == 1 ? "Approve this application (grant successful ballot)?"
+                                                            : "Approve these " + appIds.size() + " applications (grant successful ballot)?");
          String reason = "";
          if (!approve) {
              reason = getStringInput("Enter reason for rejection: ");
          }
 
-         boolean success = mainController.getHdbManagerController().processBtoApplication(currentManager(), appId, approve, reason);
+         if (appIds.size() > 1) {
+             printBulkResult(mainController.getHdbManagerController().processBtoApplications(currentManager(), appIds, approve, reason));
+             return;
+         }
+         boolean success = mainController.getHdbManagerController().processBtoApplication(currentManager(), appIds.get(0), approve, reason);
           if(success) System.out.println("Application processed."); else System.out.println("Failed to process application.");
     }
 
+    private void handleRunBallot() {
+        System.out.println("--- Run Ballot ---");
+        List<String> projectNames = mainController.getHdbManagerController().viewMyProjects(currentManager()).stream()
+                .map(Project::getName).collect(Collectors.toList());
+        if (projectNames.isEmpty()) {
+            System.out.println("You do not manage any projects.");
+            return;
+        }
+        String input = getStringInput("Enter project name to ballot, 'all' for all your projects (or 'cancel'): ");
+        if (input.equalsIgnoreCase("cancel")) return;
+        List<String> selected = input.equalsIgnoreCase("all") ? projectNames : List.of(input);
+        String seedInput = getStringInput("Enter ballot seed (blank for a random seed): ");
+        long seed;
+        try {
+            seed = seedInput.isBlank() ? System.nanoTime() : Long.parseLong(seedInput.trim());
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid seed. Please enter a whole number.");
+            return;
+        }
+        boolean marriedFirst = getYesNoInput("Draw married applicants before singles?");
+        System.out.println("Ballot seed: " + seed);
+        mainController.getHdbManagerController().runBallot(currentManager(), selected, seed, marriedFirst);
+    }
 
     private void handleViewPendingWithdrawals() {
         System.out.println("Fetching pending withdrawal requests for your projects...");
@@ -493,30 +544,61 @@ public class HdbManagerBoundary extends BaseBoundary {
          List<Withdrawal> withdrawals = mainController.getHdbManagerController().viewPendingWithdrawals(currentManager());
          if(!displayWithdrawalsList(withdrawals)) return;
 
-         String wdId = getStringInput("Enter Withdrawal ID to process (or 'cancel'): ");
-          if (wdId.equalsIgnoreCase("cancel")) return;
+         String input = getStringInput("Enter Withdrawal ID(s) to process, comma-separated or 'all' (or 'cancel'): ");
+          if (input.equalsIgnoreCase("cancel")) return;
 
-         // Verify ID
-         if (withdrawals.stream().noneMatch(w -> w.getDocumentID().equals(wdId))) {
+         // Verify IDs
+         List<String> wdIds = selectIds(input, withdrawals.stream().map(Withdrawal::getDocumentID).collect(Collectors.toList()));
+         if (wdIds == null) {
               System.out.println("Invalid Withdrawal ID selected from the pending list.");
               return;
          }
 
 
-         boolean approve = getYesNoInput("Approve this withdrawal request?");
+         boolean approve = getYesNoInput(wdIds.size() == 1 ? "Approve this withdrawal request?" : "Approve these " + wdIds.size() + " withdrawal requests?");
          String reason = "";
          if (!approve) {
              reason = getStringInput("Enter reason for rejection: ");
          }
 
-         boolean success = mainController.getHdbManagerController().processWithdrawalRequest(currentManager(), wdId, approve, reason);
+         if (wdIds.size() > 1) {
+             printBulkResult(mainController.getHdbManagerController().processWithdrawalRequests(currentManager(), wdIds, approve, reason));
+             return;
+         }
+         boolean success = mainController.getHdbManagerController().processWithdrawalRequest(currentManager(), wdIds.get(0), approve, reason);
           if(success) System.out.println("Withdrawal request processed."); else System.out.println("Failed to process withdrawal request.");
      }
 
+    /**
+     * Parses a comma-separated selection of document IDs, or 'all', against the listed pending IDs.
+     * @param input The user's input.
+     * @param pendingIds The IDs that were listed.
+     * @return The selected IDs, or null if the selection is empty or names an ID that was not listed.
+     */
+    private List<String> selectIds(String input, List<String> pendingIds) {
+        if (input.trim().equalsIgnoreCase("all")) return pendingIds.isEmpty() ? null : pendingIds;
+        Set<String> pending = new HashSet<>(pendingIds);
+        Set<String> selected = new LinkedHashSet<>();
+        for (String part : input.split(",")) {
+            String id = part.trim();
+            if (id.isEmpty()) continue;
+            if (!pending.contains(id)) return null;
+            selected.add(id);
+        }
+        return selected.isEmpty() ? null : new ArrayList<>(selected);
+    }
+
+    private void printBulkResult(BulkResult result) {
+        System.out.println(result.summary());
+        for (BulkResult.Item item : result.getItems()) {
+            if (!item.isProcessed()) System.out.println("  " + item);
+        }
+    }
+
     private void handleViewAllEnquiries() {
         System.out.println("Fetching ALL enquiries...");
-        List<Enquiry> enquiries = mainController.getHdbManagerController().viewAllEnquiries(currentManager());
-        displayEnquiriesList(enquiries, true); // Show details
+        this.<Enquiry, String>showPages((after, limit) -> mainController.getHdbManagerController().viewAllEnquiriesPage(currentManager(), after, limit),
+                  page -> displayEnquiriesList(page, true)); // Show details
     }
 
     private void handleViewManagedEnquiries() {
@@ -525,11 +607,16 @@ public class HdbManagerBoundary extends BaseBoundary {
         displayEnquiriesList(enquiries, true); // Show details
     }
 
+    private void handleSearchEnquiries() {
+        String query = getStringInput("Enter search keywords: ");
+        String projectName = getStringInput("Filter by project name (leave blank for all projects): ");
+        List<Enquiry> enquiries = mainController.getHdbManagerController().searchEnquiries(currentManager(), query, projectName, 20);
+        displayEnquiriesList(enquiries, true); // Most relevant first
+    }
+
      private void handleReplyToEnquiry() {
-        System.out.println("Unreplied enquiries for projects you handle:");
-        List<Enquiry> enquiries = mainController.getHdbManagerController().viewManagedEnquiries(currentManager()).stream()
-                 .filter(e -> e.getStatus() == DocumentStatus.SUBMITTED)
-                 .collect(Collectors.toList());
+        System.out.println("Oldest unreplied enquiries for projects you handle:");
+        List<Enquiry> enquiries = mainController.getHdbManagerController().viewUnrepliedManagedEnquiries(currentManager(), INBOX_PAGE_SIZE);
 
         // Option to view *all* unreplied if needed? For now, just managed ones.
         // List<Enquiry> allUnreplied = mainController.getHdbManagerController().viewAllEnquiries(currentManager()).stream()...
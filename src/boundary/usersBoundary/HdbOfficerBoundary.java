@@ -20,6 +20,7 @@ import java.util.Map;
  * This boundary class handles interaction flows for HDB Officers.
  */
 public class HdbOfficerBoundary extends BaseBoundary {
+    private static final int INBOX_PAGE_SIZE = 20; // Unreplied enquiries shown per reply prompt
     private static final String[] menuOptions = {
         "#Officer Functions",
         "View Projects Assigned/Handled",
@@ -28,6 +29,7 @@ public class HdbOfficerBoundary extends BaseBoundary {
         "Process Flat Booking for Applicant",
         "Generate Booking Receipt",
         "View Enquiries for Handled Projects",
+        "Search Enquiries for Handled Projects",
         "Reply to Enquiry",
         "#Applicant Functions",
         "View Available BTO Projects (Applicant View)",
@@ -66,18 +68,19 @@ public class HdbOfficerBoundary extends BaseBoundary {
             case 4 -> handleProcessFlatBooking();
             case 5 -> handleGenerateReceipt();
             case 6 -> handleViewHandledEnquiries();
-            case 7 -> handleReplyToEnquiry();
+            case 7 -> handleSearchHandledEnquiries();
+            case 8 -> handleReplyToEnquiry();
             // Applicant Functions (Delegate to HdbOfficerController which calls ApplicantController)
-            case 8 -> handleViewAvailableProjectsAsApplicant();
-            case 9 -> handleApplyForProjectAsApplicant();
-            case 10 -> handleViewMyApplicationsAsApplicant();
-            case 11 -> handleRequestWithdrawalAsApplicant();
-            case 12 -> handleCreateEnquiryAsApplicant();
-            case 13 -> handleViewMySubmittedEnquiries();
-            case 14 -> handleEditMyEnquiryAsApplicant();
-            case 15 -> handleDeleteMyEnquiryAsApplicant();
+            case 9 -> handleViewAvailableProjectsAsApplicant();
+            case 10 -> handleApplyForProjectAsApplicant();
+            case 11 -> handleViewMyApplicationsAsApplicant();
+            case 12 -> handleRequestWithdrawalAsApplicant();
+            case 13 -> handleCreateEnquiryAsApplicant();
+            case 14 -> handleViewMySubmittedEnquiries();
+            case 15 -> handleEditMyEnquiryAsApplicant();
+            case 16 -> handleDeleteMyEnquiryAsApplicant();
             // General
-            case 16 -> {              
+            case 17 -> {              
                 boolean changed = handleChangePassword(); // Use inherited helper method
                 if (changed){
                     System.out.println("Password change process completed. For security, please log in again.");
@@ -339,11 +342,15 @@ public class HdbOfficerBoundary extends BaseBoundary {
         displayEnquiriesList(enquiries, true); // Show details
     }
 
+    private void handleSearchHandledEnquiries() {
+        String query = getStringInput("Enter search keywords: ");
+        List<Enquiry> enquiries = mainController.getHdbOfficerController().searchHandledEnquiries(currentOfficer(), query, 20);
+        displayEnquiriesList(enquiries, true); // Most relevant first
+    }
+
     private void handleReplyToEnquiry() {
-        System.out.println("Unreplied enquiries for projects you handle:");
-         List<Enquiry> enquiries = mainController.getHdbOfficerController().getHandledEnquiries(currentOfficer()).stream()
-                 .filter(e -> e.getStatus() == DocumentStatus.SUBMITTED)
-                 .collect(Collectors.toList());
+        System.out.println("Oldest unreplied enquiries for projects you handle:");
+         List<Enquiry> enquiries = mainController.getHdbOfficerController().getUnrepliedHandledEnquiries(currentOfficer(), INBOX_PAGE_SIZE);
 
         if(!displayEnquiriesList(enquiries, true)) {
             System.out.println("No enquiries needing reply found.");
@@ -388,6 +395,13 @@ public class HdbOfficerBoundary extends BaseBoundary {
 
         System.out.println("Fetching available projects...");
 
+        if (flatTypeFilter == null && neighFilter == null && sortBy == null) {
+            // Default view: page through by project name instead of loading the whole list
+            this.<Project, String>showPages((after, limit) -> mainController.getHdbOfficerController().getAvailableProjectsForViewingPage(currentOfficer(), after, limit),
+                      page -> displayProjectsList(page, false));
+            return;
+        }
+
         // Call controller with filters and sorting
         List<Project> projects = mainController.getProjectController()
             .getFilteredProjects(currentOfficer(), neighFilter, flatTypeFilter, null, null, // No manager/date filter for applicants
@@ -0,0 +1,374 @@
+package controller;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+import entities.database.Database;
+import entities.database.query.Query;
+import entities.database.repositories.documentsRepositories.ApplicationRepository;
+import entities.database.repositories.documentsRepositories.BatchUpdate;
+import entities.database.repositories.documentsRepositories.TransitionResult;
+import entities.documents.DocumentStatus;
+import entities.documents.approvableDocuments.ProjectApplication;
+import entities.project.EligibilityRules;
+import entities.project.FlatType;
+import entities.project.Project;
+import entities.user.HdbManager;
+import entities.user.MaritalStatus;
+import entities.user.User;
+
+/**
+ * Ballots the pending applications of one or more projects.
+ * Each project's PENDING_APPROVAL applications are drawn in a random order that depends only on the seed,
+ * the project name and the application IDs (so a ballot can be re-run and audited), optionally grouped
+ * into priority tiers drawn one after another. Walking the draw, each applicant is approved against the
+ * largest offered flat type they are eligible for that still has supply; the rest keep PENDING_APPROVAL
+ * with their ballot number as their queue position, and applicants eligible for no offered type are rejected.
+ * Applicants queued by an earlier ballot keep their number and are served before newly drawn ones.
+ * Supply is the project's remaining units less the applications already approved but not yet booked, each counted
+ * against the flat type it was allocated (stored on the application, and the only type it may later book).
+ * The lanes of every balloted project are held from the draw until the decisions are written, so two ballots of
+ * the same project cannot both allocate its supply. Projects are drawn in parallel; all decisions are then written
+ * in one batch of compare-and-set updates, so an application changed by someone else meanwhile is skipped.
+ */
+public class BallotEngine {
+
+    /** Tier function drawing married applicants before singles. */
+    public static final ToIntFunction<ProjectApplication> MARRIED_FIRST =
+            app -> app.getSubmitter() != null && app.getSubmitter().getMaritalStatus() == MaritalStatus.MARRIED ? 0 : 1;
+
+    private static final int MAX_TIER = 254; // Rank 0 is kept for applicants queued by an earlier ballot
+    private static final int INDEX_BITS = 24; // Low bits of a draw key hold the candidate index
+    private static final int MAX_CANDIDATES = 1 << INDEX_BITS;
+    private static final String INELIGIBLE_REASON = "Not eligible for any flat type offered in this project.";
+    private static final FlatType[] LARGEST_FIRST = largestFirst();
+    private static final EligibilityRules RULES = EligibilityRules.standard();
+
+    private final long seed;
+    private final ToIntFunction<ProjectApplication> tier; // Null draws everyone in one tier
+
+    /**
+     * Creates an engine that draws every applicant in one tier.
+     * @param seed The ballot seed.
+     */
+    public BallotEngine(long seed) {
+        this(seed, null);
+    }
+
+    /**
+     * Creates an engine with priority tiers.
+     * @param seed The ballot seed.
+     * @param tier Gives each application its tier (0 = drawn first, up to 254); null for a single tier.
+     */
+    public BallotEngine(long seed, ToIntFunction<ProjectApplication> tier) {
+        this.seed = seed;
+        this.tier = tier;
+    }
+
+    /** The outcome of one project's ballot. */
+    public static final class Result {
+        private final String projectName;
+        private final String error;
+        private final Map<FlatType, Integer> supply;
+        private final Map<FlatType, Integer> approvedByType = new EnumMap<>(FlatType.class);
+        private final List<String> approved = new ArrayList<>();
+        private final List<String> queued = new ArrayList<>();
+        private final List<String> rejected = new ArrayList<>();
+        private int drawn;
+        private int conflicts;
+
+        private Result(String projectName, String error, Map<FlatType, Integer> supply) {
+            this.projectName = projectName;
+            this.error = error;
+            this.supply = supply;
+        }
+
+        public String getProjectName() { return projectName; }
+
+        /** @return Why the project was not balloted, or null if it was. */
+        public String getError() { return error; }
+
+        public boolean isBalloted() { return error == null; }
+
+        /** @return The number of pending applications drawn. */
+        public int getDrawn() { return drawn; }
+
+        /** @return The units available to this ballot per flat type. */
+        public Map<FlatType, Integer> getSupply() { return Collections.unmodifiableMap(supply); }
+
+        public Map<FlatType, Integer> getApprovedByType() { return Collections.unmodifiableMap(approvedByType); }
+
+        /** @return IDs of the approved applications, in ballot order. */
+        public List<String> getApproved() { return Collections.unmodifiableList(approved); }
+
+        /** @return IDs of the applications left pending, in queue order. */
+        public List<String> getQueued() { return Collections.unmodifiableList(queued); }
+
+        /** @return IDs of the applications rejected as ineligible. */
+        public List<String> getRejected() { return Collections.unmodifiableList(rejected); }
+
+        /** @return The number of applications skipped because another user changed them during the ballot. */
+        public int getConflicts() { return conflicts; }
+
+        @Override
+        public String toString() {
+            if (error != null) return projectName + ": not balloted (" + error + ")";
+            return projectName + ": drew " + drawn + " pending, approved " + approved.size() + " " + approvedByType + " of supply " + supply
+                    + ", queued " + queued.size() + ", rejected " + rejected.size()
+                    + (conflicts > 0 ? ", skipped " + conflicts + " changed meanwhile" : "");
+        }
+    }
+
+    /** The decisions drawn for one project, written later in the shared batch. */
+    private static final class Draw {
+        final Result result;
+        final List<BatchUpdate<ProjectApplication>> updates = new ArrayList<>();
+        final List<Runnable> onApplied = new ArrayList<>(); // Records each decision in the result once written
+
+        Draw(Result result) {
+            this.result = result;
+        }
+    }
+
+    /**
+     * Runs the ballot for several projects, drawing them in parallel and writing all decisions at once.
+     * @param manager The manager running the ballot; must manage every project.
+     * @param projectNames The projects to ballot.
+     * @return The result per project, in the order given.
+     */
+    public Map<String, Result> run(HdbManager manager, Collection<String> projectNames) {
+        List<String> names = projectNames.stream().distinct().collect(Collectors.toList());
+        return ProjectLanes.runAll(names, () -> drawAndWrite(manager, names));
+    }
+
+    /** Runs with every project's lane held by the calling thread; the parallel draws only read. */
+    private Map<String, Result> drawAndWrite(HdbManager manager, List<String> names) {
+        List<Draw> draws = names.parallelStream()
+                .map(name -> draw(manager, name))
+                .collect(Collectors.toList());
+
+        // One batched write for every project; each update re-checks its application's version and status
+        List<BatchUpdate<ProjectApplication>> batch = new ArrayList<>();
+        List<Runnable> onApplied = new ArrayList<>();
+        List<Result> owners = new ArrayList<>();
+        for (Draw draw : draws) {
+            batch.addAll(draw.updates);
+            onApplied.addAll(draw.onApplied);
+            for (int i = 0; i < draw.updates.size(); i++) owners.add(draw.result);
+        }
+        List<TransitionResult<ProjectApplication>> written = Database.getDocumentsRepository().getApplicationRepository().updateAll(batch);
+        for (int i = 0; i < written.size(); i++) {
+            if (written.get(i).isApplied()) onApplied.get(i).run();
+            else owners.get(i).conflicts++;
+        }
+
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (Draw draw : draws) {
+            results.put(draw.result.projectName, draw.result);
+            if (draw.result.isBalloted()) FlatWaitlist.ballotChanged(draw.result.projectName); // Newly queued applicants join the waitlists
+        }
+        return results;
+    }
+
+    private Draw draw(HdbManager manager, String projectName) {
+        Optional<Project> projectOpt = Database.getProjectsRepository().findById(projectName);
+        if (projectOpt.isEmpty()) return failed(projectName, "project not found");
+        Project project = projectOpt.get();
+        if (!manager.equals(project.getManager())) return failed(projectName, "manager " + manager.getNric() + " is not in charge");
+
+        ApplicationRepository applications = Database.getDocumentsRepository().getApplicationRepository();
+        List<ProjectApplication> candidates = new ArrayList<>(applications.query(new Query<ProjectApplication>()
+                .where(ApplicationRepository.PROJECT_NAME, projectName)
+                .whereStatus(ApplicationRepository.STATUS, DocumentStatus.PENDING_APPROVAL)));
+        if (candidates.size() >= MAX_CANDIDATES) return failed(projectName, "too many applications for one ballot");
+        candidates.sort(Comparator.comparing(ProjectApplication::getDocumentID)); // Index order must not depend on storage order
+
+        int[] supply = availableSupply(project);
+        Map<FlatType, Integer> available = toMap(supply);
+
+        // New applicants are numbered after everyone drawn in earlier ballots of the project
+        int lastBallotNumber = 0;
+        for (ProjectApplication app : applications.query(new Query<ProjectApplication>().where(ApplicationRepository.PROJECT_NAME, projectName))) {
+            lastBallotNumber = Math.max(lastBallotNumber, app.getBallotNumber());
+        }
+
+        // Eligibility of every candidate in one pass over status and age columns
+        int count = candidates.size();
+        byte[] statuses = new byte[count];
+        int[] ages = new int[count];
+        for (int i = 0; i < count; i++) {
+            User submitter = candidates.get(i).getSubmitter();
+            statuses[i] = submitter == null ? EligibilityRules.UNKNOWN_STATUS : EligibilityRules.statusCode(submitter.getMaritalStatus());
+            ages[i] = submitter == null ? 0 : submitter.getAge();
+        }
+        byte[] masks = new byte[count];
+        RULES.masks(statuses, ages, count, masks);
+        int offered = EligibilityRules.offeredMask(project);
+
+        long[] keys = drawKeys(projectName, candidates);
+        Draw draw = new Draw(new Result(projectName, null, available));
+        LocalDateTime now = LocalDateTime.now();
+        for (long key : keys) {
+            int index = (int) (key & (MAX_CANDIDATES - 1));
+            ProjectApplication app = candidates.get(index);
+            String id = app.getDocumentID();
+            Result result = draw.result;
+            if ((masks[index] & offered) == 0) {
+                draw.updates.add(new BatchUpdate<>(id, app.getVersion(), DocumentStatus.PENDING_APPROVAL,
+                        a -> decide(a, DocumentStatus.REJECTED, manager, now, INELIGIBLE_REASON)));
+                draw.onApplied.add(() -> result.rejected.add(id));
+                continue;
+            }
+            boolean numbered = app.getBallotNumber() > 0;
+            int ballotNumber = numbered ? app.getBallotNumber() : ++lastBallotNumber;
+            FlatType type = allocate(masks[index], supply);
+            if (type != null) {
+                draw.updates.add(new BatchUpdate<>(id, app.getVersion(), DocumentStatus.PENDING_APPROVAL, a -> {
+                    a.setBallotNumber(ballotNumber);
+                    if (!decide(a, DocumentStatus.APPROVED, manager, now, null)) return false;
+                    a.setAllocatedFlatType(type);
+                    return true;
+                }));
+                draw.onApplied.add(() -> {
+                    result.approved.add(id);
+                    result.approvedByType.merge(type, 1, Integer::sum);
+                });
+            } else if (numbered) {
+                result.queued.add(id); // Keeps its place from an earlier ballot; nothing to write
+            } else {
+                draw.updates.add(new BatchUpdate<>(id, app.getVersion(), DocumentStatus.PENDING_APPROVAL, a -> {
+                    a.setBallotNumber(ballotNumber);
+                    return true;
+                }));
+                draw.onApplied.add(() -> result.queued.add(id));
+            }
+        }
+        draw.result.drawn = count;
+        return draw;
+    }
+
+    // --- Supply Accounting ---
+
+    /**
+     * Gets the units of each flat type that new approvals can still take: the project's remaining units, less the
+     * applications approved but not yet booked, each counted against the flat type it was allocated.
+     * Call with the project's lane held, and allocate from the result with {@link #allocate(User, int[])}.
+     * @param project The project.
+     * @return The available units, indexed by {@link FlatType} ordinal (0 for types not offered).
+     */
+    public static int[] availableSupply(Project project) {
+        int[] supply = new int[FlatType.values().length];
+        for (FlatType type : FlatType.values()) {
+            if (project.offersFlatType(type)) supply[type.ordinal()] = project.getRemainingUnitCount(type);
+        }
+        for (ProjectApplication approved : Database.getDocumentsRepository().getApplicationRepository().query(new Query<ProjectApplication>()
+                .where(ApplicationRepository.PROJECT_NAME, project.getName())
+                .whereStatus(ApplicationRepository.STATUS, DocumentStatus.APPROVED))) {
+            FlatType allocated = approved.getAllocatedFlatType();
+            if (allocated != null) supply[allocated.ordinal()]--;
+            else allocate(RULES.mask(approved.getSubmitter()), supply); // Approved without an allocation: assume the same rule
+        }
+        for (int i = 0; i < supply.length; i++) supply[i] = Math.max(0, supply[i]);
+        return supply;
+    }
+
+    /**
+     * Allocates an applicant one unit of the largest flat type they are eligible for that has supply left,
+     * as the ballot does.
+     * @param applicant The applicant.
+     * @param supply The available units (see {@link #availableSupply}); the allocated unit is taken off.
+     * @return The allocated flat type, or null if no eligible type has supply left.
+     */
+    public static FlatType allocate(User applicant, int[] supply) {
+        return allocate(RULES.mask(applicant), supply);
+    }
+
+    /**
+     * Builds one sortable key per candidate: rank in the top bits, then a seeded hash of the project
+     * and application ID, then the candidate index (which also breaks hash ties deterministically).
+     * Applicants queued by an earlier ballot rank first and keep their order by ballot number.
+     */
+    private long[] drawKeys(String projectName, List<ProjectApplication> candidates) {
+        long projectSeed = mix(seed ^ mix(projectName.hashCode()));
+        long[] keys = new long[candidates.size()];
+        for (int i = 0; i < keys.length; i++) {
+            ProjectApplication app = candidates.get(i);
+            long rank;
+            long order;
+            if (app.getBallotNumber() > 0) {
+                rank = 0;
+                order = app.getBallotNumber();
+            } else {
+                rank = 1 + (tier == null ? 0 : Math.max(0, Math.min(MAX_TIER, tier.applyAsInt(app))));
+                order = mix(projectSeed + app.getDocumentID().hashCode()) >>> 33; // 31 bits
+            }
+            keys[i] = (rank << 55) | (order << INDEX_BITS) | i;
+        }
+        Arrays.parallelSort(keys);
+        return keys;
+    }
+
+    /**
+     * Takes one unit of the largest flat type the applicant is eligible for that has supply left.
+     * @param eligible The applicant's eligibility mask (see {@link EligibilityRules#mask}).
+     */
+    private static FlatType allocate(int eligible, int[] supply) {
+        for (FlatType type : LARGEST_FIRST) {
+            if (supply[type.ordinal()] > 0 && (eligible & EligibilityRules.bit(type)) != 0) {
+                supply[type.ordinal()]--;
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /** Applies a ballot decision in place, without the per-application logging of approve/reject. */
+    private static boolean decide(ProjectApplication app, DocumentStatus status, HdbManager manager, LocalDateTime when, String reason) {
+        if (app.getStatus() != DocumentStatus.PENDING_APPROVAL) return false;
+        app.setStatus(status);
+        app.setLastModifiedDate(when);
+        app.setLastModifiedBy(manager);
+        app.setRejectionReason(reason);
+        return true;
+    }
+
+    private static Draw failed(String projectName, String error) {
+        return new Draw(new Result(projectName, error, Map.of()));
+    }
+
+    private static Map<FlatType, Integer> toMap(int[] counts) {
+        Map<FlatType, Integer> map = new EnumMap<>(FlatType.class);
+        for (FlatType type : FlatType.values()) {
+            if (counts[type.ordinal()] > 0) map.put(type, counts[type.ordinal()]);
+        }
+        return map;
+    }
+
+    private static FlatType[] largestFirst() {
+        FlatType[] types = FlatType.values().clone();
+        for (int i = 0, j = types.length - 1; i < j; i++, j--) {
+            FlatType swap = types[i];
+            types[i] = types[j];
+            types[j] = swap;
+        }
+        return types;
+    }
+
+    /** SplitMix64 finalizer. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,79 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The per-item outcome of a bulk approve or reject call (e.g. {@code HdbManagerController.processBtoApplications}).
+ */
+public class BulkResult {
+
+    /** The outcome for one document. */
+    public static final class Item {
+        private final String documentId;
+        private final boolean processed;
+        private final String message;
+
+        Item(String documentId, boolean processed, String message) {
+            this.documentId = documentId;
+            this.processed = processed;
+            this.message = message;
+        }
+
+        public String getDocumentId() { return documentId; }
+        public boolean isProcessed() { return processed; }
+
+        /** @return What was done, or why the document was skipped. */
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return documentId + ": " + (processed ? "OK" : "FAILED") + " - " + message;
+        }
+    }
+
+    private final String action;
+    private final List<Item> items = new ArrayList<>();
+
+    /**
+     * Creates an empty result.
+     * @param action A short description of the bulk action, for the summary.
+     */
+    public BulkResult(String action) {
+        this.action = action;
+    }
+
+    public void succeeded(String documentId, String message) {
+        items.add(new Item(documentId, true, message));
+    }
+
+    public void failed(String documentId, String message) {
+        items.add(new Item(documentId, false, message));
+    }
+
+    /** Marks every processed item as failed, e.g. when the final write was rolled back. */
+    public void failAll(String message) {
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            if (item.processed) items.set(i, new Item(item.documentId, false, message));
+        }
+    }
+
+    public List<Item> getItems() { return Collections.unmodifiableList(items); }
+
+    public int getProcessedCount() {
+        int count = 0;
+        for (Item item : items) {
+            if (item.processed) count++;
+        }
+        return count;
+    }
+
+    public int getFailedCount() { return items.size() - getProcessedCount(); }
+
+    /** @return One line: the action and how many items were processed and failed. */
+    public String summary() {
+        return action + ": " + getProcessedCount() + " processed, " + getFailedCount() + " failed.";
+    }
+}
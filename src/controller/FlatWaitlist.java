@@ -0,0 +1,305 @@
+package controller;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import entities.database.Database;
+import entities.database.UnitOfWork;
+import entities.database.query.Query;
+import entities.database.repositories.documentsRepositories.ApplicationRepository;
+import entities.documents.DocumentStatus;
+import entities.documents.approvableDocuments.ProjectApplication;
+import entities.project.EligibilityRules;
+import entities.project.FlatType;
+import entities.project.Project;
+import entities.user.User;
+
+/**
+ * Per-project, per-flat-type waitlists, each a priority queue ordered by ballot number, then submission time.
+ * Two kinds of applicant wait for a unit:
+ * approved applicants whose booking failed because the flat type was sold out (added by the booking step), and
+ * applicants left pending by a ballot (loaded from the repository on first use, and rebuilt after each ballot).
+ * When a unit or a unit of ballot supply is freed, {@link #promoteNext} takes the head of the queue in the releasing
+ * unit of work: a booking waiter is booked into a free unit, a ballot waiter is only approved (it then books like any
+ * approved applicant, so it is never booked into a type it did not choose). A promoted application leaves the
+ * queues of its other flat types; those entries are cancelled through a per-application handle and skipped when
+ * they reach the head, so a promotion costs O(log n). Entries that are no longer valid (withdrawn, decided or booked
+ * elsewhere) are dropped when they reach the head.
+ * Both kinds are rebuilt from the repository on first use: ballot waiters from their ballot numbers,
+ * booking waiters from the waitlisted flat type recorded on their application.
+ * Every method runs in the project's lane.
+ */
+public final class FlatWaitlist {
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt((Entry e) -> e.ballotNumber)
+            .thenComparingLong(e -> e.submittedAt)
+            .thenComparing(e -> e.applicationId);
+
+    private static final Map<String, ProjectWaitlists> waitlists = new ConcurrentHashMap<>(); // By project name
+
+    private FlatWaitlist() {}
+
+    /** One waiting application in one flat type's queue. */
+    private static final class Entry {
+        final String applicationId;
+        final FlatType type;
+        final boolean booking; // An approved applicant waiting to book this type; otherwise a pending ballot waiter
+        final int ballotNumber; // Integer.MAX_VALUE if never balloted, so those wait behind balloted ones
+        final long submittedAt;
+        boolean cancelled; // Left the queue through its handle; skipped when it reaches the head
+
+        Entry(ProjectApplication application, FlatType type, boolean booking) {
+            this.applicationId = application.getDocumentID();
+            this.type = type;
+            this.booking = booking;
+            this.ballotNumber = application.getBallotNumber() > 0 ? application.getBallotNumber() : Integer.MAX_VALUE;
+            LocalDateTime submitted = application.getSubmissionDate();
+            this.submittedAt = submitted != null ? submitted.toEpochSecond(ZoneOffset.UTC) : Long.MAX_VALUE;
+        }
+
+        /** A live copy of a cancelled entry, to put it back in its queue. */
+        Entry(Entry cancelled) {
+            this.applicationId = cancelled.applicationId;
+            this.type = cancelled.type;
+            this.booking = cancelled.booking;
+            this.ballotNumber = cancelled.ballotNumber;
+            this.submittedAt = cancelled.submittedAt;
+        }
+
+        String key() {
+            return (booking ? "B:" : "P:") + type + ":" + applicationId;
+        }
+    }
+
+    /** The queues of one project (guarded by its own monitor). */
+    private static final class ProjectWaitlists {
+        final Map<FlatType, PriorityQueue<Entry>> queues = new EnumMap<>(FlatType.class);
+        final Map<String, Entry> live = new HashMap<>(); // By entry key, so an application waits once per type and kind
+        final Map<String, List<Entry>> byApplication = new HashMap<>(); // Handles to each application's live entries
+        final Map<FlatType, Integer> sizes = new EnumMap<>(FlatType.class); // Live entries per type
+        boolean loaded;
+
+        boolean add(Entry entry) {
+            if (live.putIfAbsent(entry.key(), entry) != null) return false;
+            byApplication.computeIfAbsent(entry.applicationId, id -> new ArrayList<>(2)).add(entry);
+            queues.computeIfAbsent(entry.type, t -> new PriorityQueue<>(ORDER)).add(entry);
+            sizes.merge(entry.type, 1, Integer::sum);
+            return true;
+        }
+
+        /** Takes the head of a queue, skipping cancelled entries. */
+        Entry poll(FlatType type) {
+            PriorityQueue<Entry> queue = queues.get(type);
+            if (queue == null) return null;
+            Entry head;
+            while ((head = queue.poll()) != null && head.cancelled) { /* Cancelled through its handle */ }
+            if (head != null) forget(head);
+            return head;
+        }
+
+        /** Cancels an entry in place; it stays in its heap until it reaches the head. */
+        void cancel(Entry entry) {
+            entry.cancelled = true;
+            forget(entry);
+        }
+
+        /** Cancels every live entry of an application; returns them. */
+        List<Entry> cancelAll(String applicationId) {
+            List<Entry> entries = byApplication.remove(applicationId);
+            if (entries == null) return List.of();
+            for (Entry entry : entries) {
+                entry.cancelled = true;
+                live.remove(entry.key());
+                sizes.merge(entry.type, -1, Integer::sum);
+            }
+            return entries;
+        }
+
+        private void forget(Entry entry) {
+            live.remove(entry.key());
+            List<Entry> handles = byApplication.get(entry.applicationId);
+            if (handles != null) {
+                handles.remove(entry);
+                if (handles.isEmpty()) byApplication.remove(entry.applicationId);
+            }
+            sizes.merge(entry.type, -1, Integer::sum);
+        }
+
+        int size(FlatType type) {
+            return sizes.getOrDefault(type, 0);
+        }
+    }
+
+    /** How an attempt to promote a waiting application ended. */
+    private enum Promotion { PROMOTED, STALE, NO_UNIT }
+
+    /**
+     * Puts an approved applicant on the waitlist of a sold-out flat type, e.g. after a failed booking, as part of a
+     * unit of work. The type is recorded on the application, so the applicant keeps waiting across restarts once
+     * the unit of work commits; waiting for another type later replaces it. A rollback takes the entry off again.
+     * @param application The approved application.
+     * @param type The flat type the applicant asked for.
+     * @param work The unit of work saving the application.
+     * @return The number of applications now waiting for the type.
+     */
+    public static int enqueue(ProjectApplication application, FlatType type, UnitOfWork work) {
+        ProjectWaitlists lists = waitlistsOf(application.getProjectName());
+        synchronized (lists) {
+            if (application.getWaitlistedFlatType() != type) {
+                work.track(application);
+                application.setWaitlistedFlatType(type);
+            }
+            Entry entry = new Entry(application, type, true);
+            if (lists.add(entry)) {
+                work.compensate(() -> {
+                    synchronized (lists) {
+                        if (!entry.cancelled && lists.live.get(entry.key()) == entry) lists.cancel(entry);
+                    }
+                });
+            }
+            return lists.size(type);
+        }
+    }
+
+    /**
+     * Drops the waitlists of a project so they are rebuilt from the repository on next use
+     * (after a ballot numbered new applicants or decided queued ones).
+     * @param projectName The project name.
+     */
+    public static void ballotChanged(String projectName) {
+        waitlists.remove(projectName);
+    }
+
+    /**
+     * Drops the waitlists of a deleted project.
+     * @param projectName The project name.
+     */
+    public static void projectDeleted(String projectName) {
+        waitlists.remove(projectName);
+    }
+
+    /**
+     * Gets the number of applications waiting for a flat type, including entries not yet found to be stale.
+     * @param projectName The project name.
+     * @param type The flat type.
+     * @return The queue length.
+     */
+    public static int size(String projectName, FlatType type) {
+        ProjectWaitlists lists = waitlistsOf(projectName);
+        synchronized (lists) {
+            return lists.size(type);
+        }
+    }
+
+    /**
+     * Promotes the next eligible waiting applicant after a unit of a flat type, or a unit of its ballot supply, was
+     * freed, as part of a unit of work. A booking waiter is booked into a free unit; while no unit is free (only supply
+     * was freed, e.g. an approval was withdrawn) booking waiters keep their place. A ballot waiter is approved.
+     * @param project The project.
+     * @param type The flat type freed.
+     * @param actor The user recorded as making the change (e.g. the manager approving the withdrawal).
+     * @param work The unit of work freeing the unit; the promotion commits or rolls back with it.
+     * @return The promoted application, or empty if nobody eligible was waiting.
+     */
+    public static Optional<ProjectApplication> promoteNext(Project project, FlatType type, User actor, UnitOfWork work) {
+        ProjectWaitlists lists = waitlistsOf(project.getName());
+        ApplicationRepository applications = Database.getDocumentsRepository().getApplicationRepository();
+        synchronized (lists) {
+            List<Entry> waiting = new ArrayList<>(); // Booking waiters passed over for want of a free unit
+            try {
+                Entry entry;
+                while ((entry = lists.poll(type)) != null) {
+                    Optional<ProjectApplication> appOpt = applications.findById(entry.applicationId);
+                    if (appOpt.isEmpty() || !EligibilityRules.standard().isEligible(appOpt.get().getSubmitter(), type)) continue; // Stale
+                    ProjectApplication application = appOpt.get();
+                    Promotion promotion = promote(entry, application, project, type, actor, work);
+                    if (promotion == Promotion.NO_UNIT) waiting.add(new Entry(entry));
+                    if (promotion != Promotion.PROMOTED) continue;
+                    Entry promoted = new Entry(entry);
+                    List<Entry> siblings = lists.cancelAll(application.getDocumentID()); // Waiting for other types
+                    work.compensate(() -> { // Back in the queues if the release is rolled back
+                        synchronized (lists) {
+                            lists.add(promoted);
+                            for (Entry sibling : siblings) lists.add(new Entry(sibling));
+                        }
+                    });
+                    System.out.println("Waitlist: Application " + application.getDocumentID() + " promoted to " + application.getStatus()
+                            + " for a freed " + type + " unit in project '" + project.getName() + "'.");
+                    return Optional.of(application);
+                }
+                return Optional.empty();
+            } finally {
+                for (Entry entry : waiting) lists.add(entry);
+            }
+        }
+    }
+
+    private static Promotion promote(Entry entry, ProjectApplication application, Project project, FlatType type, User actor, UnitOfWork work) {
+        if (!entry.booking) {
+            if (application.getStatus() != DocumentStatus.PENDING_APPROVAL) return Promotion.STALE; // Decided meanwhile
+            work.track(application);
+            if (!application.approve(actor)) return Promotion.STALE; // Successful in the ballot; books later like any approved applicant
+            application.setAllocatedFlatType(type); // Counted against the freed unit's type
+            return Promotion.PROMOTED;
+        }
+        // Only the type the applicant chose when the booking failed, as long as they still wait for it
+        if (application.getStatus() != DocumentStatus.APPROVED || application.getWaitlistedFlatType() != type) return Promotion.STALE;
+        Optional<ProjectApplication> booked = Database.getDocumentsRepository().getApplicationRepository()
+                .findBookedApplicationByApplicantNric(application.getSubmitter().getNric());
+        if (booked.isPresent()) return Promotion.STALE; // Booked elsewhere meanwhile
+        if (!work.reserveUnit(project, type)) return Promotion.NO_UNIT;
+        work.track(application);
+        application.setStatus(DocumentStatus.BOOKED);
+        application.setBookedFlatType(type);
+        application.setWaitlistedFlatType(null);
+        application.setLastModifiedDate(LocalDateTime.now());
+        application.setLastModifiedBy(actor);
+        return Promotion.PROMOTED;
+    }
+
+    private static ProjectWaitlists waitlistsOf(String projectName) {
+        ProjectWaitlists lists = waitlists.computeIfAbsent(projectName, name -> new ProjectWaitlists());
+        synchronized (lists) {
+            if (!lists.loaded) {
+                if (!loadWaiters(projectName, lists)) waitlists.remove(projectName, lists); // No such project; nothing to keep
+                lists.loaded = true;
+            }
+        }
+        return lists;
+    }
+
+    /**
+     * Queues every pending applicant with a ballot number for each offered flat type they are eligible for,
+     * and every approved applicant under the flat type they wait to book.
+     * @return false if the project does not exist.
+     */
+    private static boolean loadWaiters(String projectName, ProjectWaitlists lists) {
+        Optional<Project> projectOpt = Database.getProjectsRepository().findById(projectName);
+        if (projectOpt.isEmpty()) return false;
+        Project project = projectOpt.get();
+        for (ProjectApplication application : Database.getDocumentsRepository().getApplicationRepository().query(new Query<ProjectApplication>()
+                .where(ApplicationRepository.PROJECT_NAME, projectName)
+                .whereStatus(ApplicationRepository.STATUS, DocumentStatus.PENDING_APPROVAL, DocumentStatus.APPROVED))) {
+            if (application.getStatus() == DocumentStatus.APPROVED) {
+                if (application.getWaitlistedFlatType() != null) lists.add(new Entry(application, application.getWaitlistedFlatType(), true));
+                continue;
+            }
+            if (application.getBallotNumber() <= 0) continue;
+            for (FlatType type : FlatType.values()) {
+                if (project.offersFlatType(type) && EligibilityRules.standard().isEligible(application.getSubmitter(), type)) {
+                    lists.add(new Entry(application, type, false));
+                }
+            }
+        }
+        return true;
+    }
+}
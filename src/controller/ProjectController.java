@@ -9,7 +9,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.*;
-import java.util.Comparator;
+import entities.database.repositories.Page;
+import entities.database.repositories.ProjectsRepository;
 
 /**
  * Controller handling business logic related to BTO Projects.
@@ -21,6 +22,9 @@ public class ProjectController {
     public static final String SORT_BY_MANAGER = "MANAGER";
     public static final String SORT_BY_OPEN_DATE = "OPENDATE";
 
+    // Applicant listings by eligibility profile and filters, valid while the projects repository version holds
+    private final ProjectViewCache applicantViews = new ProjectViewCache(() -> Database.getProjectsRepository().version());
+
 
     /**
      * Creates a new BTO project listing.
@@ -37,6 +41,14 @@ public class ProjectController {
     public Project createProject(String name, String neighbourhood,
                                 Map<FlatType, Integer> initialFlatUnitCounts, Map<FlatType, Double> flatUnitPrices,
                                 Date applicationOpenDate, Date applicationCloseDate, HdbManager creatingManager) {
+        // In the new name's lane, so two managers creating the same name cannot both pass the existence check
+        return ProjectLanes.run(name, () -> createProjectInLane(name, neighbourhood, initialFlatUnitCounts, flatUnitPrices,
+                applicationOpenDate, applicationCloseDate, creatingManager));
+    }
+
+    private Project createProjectInLane(String name, String neighbourhood,
+                                Map<FlatType, Integer> initialFlatUnitCounts, Map<FlatType, Double> flatUnitPrices,
+                                Date applicationOpenDate, Date applicationCloseDate, HdbManager creatingManager) {
 
         // 1. Validation
         if (name == null || name.trim().isEmpty() || neighbourhood == null || neighbourhood.trim().isEmpty() ||
@@ -56,7 +68,7 @@ public class ProjectController {
         }
 
         // 2. Check Manager Availability [cite: 25] - Can only handle one project within an application period
-        boolean managerBusy = isManagerBusyDuringPeriod(creatingManager.getNric(), applicationOpenDate, applicationCloseDate);
+        boolean managerBusy = isManagerBusyDuringPeriod(creatingManager.getNric(), applicationOpenDate, applicationCloseDate, null);
          if (managerBusy) {
              System.err.println("Project Creation Error: Manager " + creatingManager.getNric() + " is already managing another project during this application period.");
              return null;
@@ -93,6 +105,14 @@ public class ProjectController {
      public boolean editProject(HdbManager editor, String projectName, String newNeighbourhood,
                                Map<FlatType, Integer> newUnitCounts, Map<FlatType, Double> newUnitPrices,
                                Date newOpenDate, Date newCloseDate) {
+        // Unit counts are reset on edit, so edits must not interleave with bookings
+        return ProjectLanes.run(projectName, () -> editProjectInLane(editor, projectName, newNeighbourhood,
+                newUnitCounts, newUnitPrices, newOpenDate, newCloseDate));
+     }
+
+     private boolean editProjectInLane(HdbManager editor, String projectName, String newNeighbourhood,
+                               Map<FlatType, Integer> newUnitCounts, Map<FlatType, Double> newUnitPrices,
+                               Date newOpenDate, Date newCloseDate) {
 
         Optional<Project> projectOpt = Database.getProjectsRepository().findById(projectName);
         if (projectOpt.isEmpty()) {
@@ -109,7 +129,16 @@ public class ProjectController {
         }
 
         // 2. Business Rule Checks (e.g., cannot edit after applications open?)
-        // TODO: Define specific rules. For now, allow edits.
+        // Moving the application period must not clash with the manager's other projects
+        if (newOpenDate != null || newCloseDate != null) {
+            Date effectiveOpen = newOpenDate != null ? newOpenDate : project.getApplicationOpenDate();
+            Date effectiveClose = newCloseDate != null ? newCloseDate : project.getApplicationCloseDate();
+            if (effectiveOpen != null && effectiveClose != null && !effectiveOpen.after(effectiveClose) &&
+                isManagerBusyDuringPeriod(editor.getNric(), effectiveOpen, effectiveClose, projectName)) {
+                System.err.println("Project Edit Error: Manager " + editor.getNric() + " is already managing another project during the new application period.");
+                return false;
+            }
+        }
         boolean changed = false;
         try {
             if (newNeighbourhood != null && !newNeighbourhood.trim().isEmpty()) {
@@ -169,6 +198,10 @@ public class ProjectController {
      * @return true if deletion successful, false otherwise.
      */
      public boolean deleteProject(HdbManager deleter, String projectName) {
+         return ProjectLanes.run(projectName, () -> deleteProjectInLane(deleter, projectName));
+     }
+
+     private boolean deleteProjectInLane(HdbManager deleter, String projectName) {
          Optional<Project> projectOpt = Database.getProjectsRepository().findById(projectName);
         if (projectOpt.isEmpty()) {
             System.err.println("Project Delete Error: Project '" + projectName + "' not found.");
@@ -194,6 +227,7 @@ public class ProjectController {
         // 3. Perform Deletion
         boolean deleted = Database.getProjectsRepository().deleteById(projectName);
         if (deleted) {
+             FlatWaitlist.projectDeleted(projectName);
              System.out.println("Project '" + projectName + "' deleted successfully by Manager " + deleter.getNric());
              return true;
         } else {
@@ -210,6 +244,11 @@ public class ProjectController {
      * @return true if successful, false otherwise.
      */
     public boolean toggleProjectVisibility(HdbManager manager, String projectName, boolean isVisible) {
+        // Serialized with the project's bookings and withdrawals, like every other project mutation
+        return ProjectLanes.run(projectName, () -> toggleProjectVisibilityInLane(manager, projectName, isVisible));
+    }
+
+    private boolean toggleProjectVisibilityInLane(HdbManager manager, String projectName, boolean isVisible) {
         Optional<Project> projectOpt = Database.getProjectsRepository().findById(projectName);
         if (projectOpt.isEmpty()) {
             System.err.println("Visibility Toggle Error: Project '" + projectName + "' not found.");
@@ -294,84 +333,115 @@ public class ProjectController {
                                              String managerNric, Date[] dateRange,
                                              String sortByField, boolean sortAscending) {
 
-        // 1. Initial Filter based on USER-SPECIFIED criteria (excluding role-based visibility for now)
+        // 0. Applicants (and unauthenticated users) see the same listing as everyone with their eligibility profile
+        Role userRole = (requestingUser != null) ? requestingUser.getRole() : null;
+        if (userRole != Role.HDB_MANAGER && userRole != Role.HDB_OFFICER) {
+            ProjectViewCache.Key key = new ProjectViewCache.Key(viewProfile(requestingUser), neighborhood, flatType,
+                    managerNric, dateRange, sortByField, sortAscending);
+            return applicantViews.get(key, () -> filterProjects(requestingUser, neighborhood, flatType, managerNric,
+                    dateRange, sortByField, sortAscending));
+        }
+        return filterProjects(requestingUser, neighborhood, flatType, managerNric, dateRange, sortByField, sortAscending);
+    }
+
+    private List<Project> filterProjects(User requestingUser, String neighborhood, FlatType flatType,
+                                         String managerNric, Date[] dateRange,
+                                         String sortByField, boolean sortAscending) {
+        // 1. Initial Filter based on USER-SPECIFIED criteria, answered by the repository's bitmap indexes.
+        //    Applicants (and unauthenticated users) only ever see visible projects, so that is pushed down too.
+        Role userRole = (requestingUser != null) ? requestingUser.getRole() : null;
+        Boolean visibilityFilter = (userRole == Role.HDB_MANAGER || userRole == Role.HDB_OFFICER) ? null : Boolean.TRUE;
+        //    Results come back already sorted, from an ordered walk of the repository's sorted view.
         List<Project> potentiallyRelevantProjects = Database.getProjectsRepository()
-                .findByCriteria(neighborhood, flatType, managerNric, null, dateRange); // Visibility = null initially
+                .findByCriteriaSorted(neighborhood, flatType, managerNric, visibilityFilter, dateRange,
+                        toSortOrder(sortByField), sortAscending);
 
-        // 2. Apply Role-Based Access/Visibility Rules AND Applicant Flat Type Eligibility
-        Stream<Project> viewableProjectsStream;
+        // 2. Apply Role-Based Access/Visibility Rules AND Applicant Flat Type Eligibility (keeps the sorted order)
+        return potentiallyRelevantProjects.stream()
+                .filter(p -> canView(requestingUser, p))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Reads one page of the projects a user may view, in project name order.
+     * Only the projects on the page (plus any skipped as not viewable) are touched.
+     * @param requestingUser The user making the request (can be null for general public view).
+     * @param afterProjectName The last project name of the previous page, or null for the first page.
+     * @param limit Maximum number of projects in the page.
+     * @return The page of viewable projects.
+     */
+    public Page<Project, String> getFilteredProjectsPage(User requestingUser, String afterProjectName, int limit) {
+        return Database.getProjectsRepository().findPage(afterProjectName, limit, p -> canView(requestingUser, p));
+    }
+
+    /**
+     * Applies the role-based visibility rules and applicant flat type eligibility to one project.
+     * @param requestingUser The user making the request (can be null).
+     * @param p The project.
+     * @return true if the user may view the project.
+     */
+    private boolean canView(User requestingUser, Project p) {
         Role userRole = (requestingUser != null) ? requestingUser.getRole() : null;
 
         if (userRole == Role.HDB_MANAGER) {
             // Managers see all projects matching the filters, regardless of visibility or flat types.
-            viewableProjectsStream = potentiallyRelevantProjects.stream();
+            return true;
 
         } else if (userRole == Role.HDB_OFFICER) {
             // Officers see projects they handle OR projects that are visible.
             // The flat type eligibility rule doesn't strictly apply to their *viewing* capability for handled projects.
             // For non-handled projects, they view like applicants, so eligibility rules apply there.
-            final String officerNric = requestingUser.getNric();
-            viewableProjectsStream = potentiallyRelevantProjects.stream()
-                    .filter(p -> {
-                        boolean isHandled = isOfficerAssigned(p, officerNric);
-                        if (isHandled) return true; // See handled projects regardless of visibility/type eligibility
-                        if (!p.isVisible()) return false; // If not handled, must be visible
-
-                        // If visible & not handled, check applicant flat type eligibility
-                        if (requestingUser instanceof Applicant) { // Check if officer object can be cast
-                             return isApplicantEligibleToViewProject( (Applicant) requestingUser, p);
-                        } else {
-                             // Should not happen if model is correct, but default to visible if cast fails
-                             return true;
-                        }
-                    });
+            boolean isHandled = isOfficerAssigned(p, requestingUser.getNric());
+            if (isHandled) return true; // See handled projects regardless of visibility/type eligibility
+            if (!p.isVisible()) return false; // If not handled, must be visible
+
+            // If visible & not handled, check applicant flat type eligibility
+            if (requestingUser instanceof Applicant) { // Check if officer object can be cast
+                 return isApplicantEligibleToViewProject( (Applicant) requestingUser, p);
+            } else {
+                 // Should not happen if model is correct, but default to visible if cast fails
+                 return true;
+            }
 
         } else { // Applicant role or null (unauthenticated) user
             // Applicants only see visible projects AND projects offering flats they are eligible for.
-            viewableProjectsStream = potentiallyRelevantProjects.stream()
-                    .filter(Project::isVisible) // Must be visible
-                    .filter(p -> { // Must meet eligibility
-                        if (requestingUser instanceof Applicant) {
-                           return isApplicantEligibleToViewProject((Applicant) requestingUser, p);
-                        } else {
-                           // Unauthenticated users? Assume they can see all visible projects
-                           // Or apply some default eligibility? Let's allow all visible for now.
-                           return true;
-                        }
-                     });
+            if (!p.isVisible()) return false; // Must be visible
+            if (requestingUser instanceof Applicant) { // Must meet eligibility
+               return isApplicantEligibleToViewProject((Applicant) requestingUser, p);
+            } else {
+               // Unauthenticated users? Assume they can see all visible projects
+               // Or apply some default eligibility? Let's allow all visible for now.
+               return true;
+            }
         }
+    }
 
-        // 3. Collect the viewable projects into a list
-        List<Project> finalViewableProjects = viewableProjectsStream.collect(Collectors.toList());
-
-        // 4. Perform Sorting on the final list
-        sortProjects(finalViewableProjects, sortByField, sortAscending);
-
-        return finalViewableProjects;
+    /**
+     * Reduces an applicant (or unauthenticated user) to what their listing depends on: the flat types they are
+     * eligible for, which is the same for everyone of a marital status within one age band.
+     * @param requestingUser The user, or null.
+     * @return The eligibility mask of an applicant, or -1 for a user not checked for eligibility.
+     */
+    private static int viewProfile(User requestingUser) {
+        return requestingUser instanceof Applicant ? EligibilityRules.standard().mask(requestingUser) : -1;
     }
 
     private boolean isApplicantEligibleToViewProject(Applicant applicant, Project project) {
         if (applicant == null || project == null) return false; // Or maybe true for project==null? Default false.
 
-        int age = applicant.getAge();
-        MaritalStatus status = applicant.getMaritalStatus();
-
-        if (status == MaritalStatus.MARRIED && age >= 21) {
-            // Married >= 21 can view any project (that offers any flats)
-            return project.getInitialUnitCount(FlatType.TWO_ROOM) > 0 || project.getInitialUnitCount(FlatType.THREE_ROOM) > 0;
-        } else if (status == MaritalStatus.SINGLE && age >= 35) {
-            // Single >= 35 can ONLY view projects that offer 2-Room flats.
-            return project.getInitialUnitCount(FlatType.TWO_ROOM) > 0;
-        } else {
-            // Includes Single < 35, or Married < 21.
-            // PDF rule [cite: 12] is about *applying*. PDF rule [cite: 10] says view based on user group & visibility.
-            // Let's interpret this as: If you don't meet the specific application criteria (Married>=21 or Single>=35),
-            // you can still VIEW any *visible* project (as per [cite: 10]), but you won't be able to apply later.
-            // Therefore, return true here for viewing purposes. The apply logic will block later.
-             return project.getInitialUnitCount(FlatType.TWO_ROOM) > 0 || project.getInitialUnitCount(FlatType.THREE_ROOM) > 0;
-            // --- OR --- Stricter Interpretation (cannot view if cannot apply):
-                // return false; // If Single < 35 or Married < 21 cannot even view? Less likely based on wording.
+        int stocked = 0; // Flat types the project has units of
+        for (FlatType type : FlatType.values()) {
+            if (project.getInitialUnitCount(type) > 0) stocked |= EligibilityRules.bit(type);
+        }
+        int eligible = EligibilityRules.standard().mask(applicant);
+        if (eligible != 0) {
+            // Married >= 21 can view any project with flats; Single >= 35 only projects that offer 2-Room flats.
+            return (stocked & eligible) != 0;
         }
+        // Includes Single < 35, or Married < 21.
+        // PDF rule [cite: 12] is about *applying*. PDF rule [cite: 10] says view based on user group & visibility.
+        // So you can still VIEW any *visible* project with flats, but you won't be able to apply later.
+        return stocked != 0;
     }
 
     public List<Project> getProjectsByManager(HdbManager manager, String neighborhood, FlatType flatType, Date[] dateRange,
@@ -379,74 +449,38 @@ public class ProjectController {
             if (manager == null) return List.of();
             // Use the repository method with the manager NRIC filter applied
             // Manager sees all their projects regardless of visibility (visibilityFilter = null)
-            List<Project> filteredProjects = Database.getProjectsRepository()
-            .findByCriteria(neighborhood, flatType, manager.getNric(), null, dateRange);
-
-            // Perform Sorting
-            sortProjects(filteredProjects, sortByField, sortAscending);
-
-            return filteredProjects;
+            // Sorted by an ordered walk of the repository's sorted view
+            return Database.getProjectsRepository()
+            .findByCriteriaSorted(neighborhood, flatType, manager.getNric(), null, dateRange,
+                    toSortOrder(sortByField), sortAscending);
     }
 
-    private void sortProjects(List<Project> projects, String sortByField, boolean sortAscending) {
-        Comparator<Project> comparator = null;
-        // Determine the primary comparator based on sortByField
-        if (sortByField != null) {
-            switch (sortByField.toUpperCase()) {
-                case SORT_BY_NEIGHBOURHOOD:
-                    comparator = Comparator.comparing(Project::getNeighbourhood, String.CASE_INSENSITIVE_ORDER);
-                    break;
-                case SORT_BY_MANAGER:
-                    comparator = Comparator.comparing(
-                        p -> (p.getManager() != null ? p.getManager().getNric() : ""),
-                        Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)
-                    );
-                    break;
-                case SORT_BY_OPEN_DATE:
-                     comparator = Comparator.comparing(
-                         Project::getApplicationOpenDate,
-                         Comparator.nullsLast(Comparator.naturalOrder())
-                     );
-                    break;
-                case SORT_BY_NAME: // Fallthrough default
-                default:
-                     comparator = Comparator.comparing(Project::getName, String.CASE_INSENSITIVE_ORDER);
-                     break;
-             }
-        } else {
-             comparator = Comparator.comparing(Project::getName, String.CASE_INSENSITIVE_ORDER); // Default
-        }
-        // Apply descending order if requested
-        if (!sortAscending && comparator != null) {
-            comparator = comparator.reversed();
-        }
-        // Sort the list
-        if (comparator != null) {
-           projects.sort(comparator);
+    /**
+     * Maps a sort field constant to the repository's sorted view.
+     * @param sortByField One of the SORT_BY_* constants (null or unknown means by name).
+     * @return The matching sort order.
+     */
+    public static ProjectsRepository.SortOrder toSortOrder(String sortByField) {
+        if (sortByField == null) return ProjectsRepository.SortOrder.NAME;
+        switch (sortByField.toUpperCase()) {
+            case SORT_BY_NEIGHBOURHOOD: return ProjectsRepository.SortOrder.NEIGHBOURHOOD;
+            case SORT_BY_MANAGER: return ProjectsRepository.SortOrder.MANAGER;
+            case SORT_BY_OPEN_DATE: return ProjectsRepository.SortOrder.OPEN_DATE;
+            case SORT_BY_NAME: // Fallthrough default
+            default: return ProjectsRepository.SortOrder.NAME;
         }
     }
 
     private boolean isOfficerAssigned(Project project, String officerNric) {
         if (project == null || officerNric == null) return false;
-        // Assumes Project.getAssignedOfficers() returns the list of HdbOfficer objects
-        return project.getAssignedOfficers().stream()
-                      .anyMatch(officer -> officer.getNric().equalsIgnoreCase(officerNric));
+        return project.isOfficerAssigned(officerNric);
     }
 
-    // --- Helper method for checking manager availability (unchanged) ---
-     private boolean isManagerBusyDuringPeriod(String managerNric, Date startDate, Date endDate) {
-         // ... unchanged logic using findProjectsInApplicationPeriod ...
-           Optional<User> userOpt = Database.getUsersRepository().findUserByNric(managerNric);
-           if(userOpt.isEmpty() || !(userOpt.get() instanceof HdbManager)) return false;
-           HdbManager manager = (HdbManager) userOpt.get();
-           List<Project> managedProjects = Database.getProjectsRepository().findByManagerNric(manager.getNric()); // Use NRIC version
-
-           for (Project existingProject : managedProjects) {
-               boolean overlap = !existingProject.getApplicationOpenDate().after(endDate) &&
-                                 !existingProject.getApplicationCloseDate().before(startDate);
-               if (overlap) return true;
-           }
-           return false;
+    // --- Helper method for checking manager availability ---
+     private boolean isManagerBusyDuringPeriod(String managerNric, Date startDate, Date endDate, String excludedProjectName) {
+           // Schedule index lookup instead of scanning every project the manager has
+           return Database.getUsersRepository().getHdbManagerRepository()
+                   .isManagingProjectDuringPeriod(managerNric, startDate, endDate, excludedProjectName);
      }
     
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package controller;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Per-project execution lanes for state-changing operations.
+ * Every mutation of a project (officer slots, unit inventory, application and withdrawal decisions)
+ * runs in that project's lane, so its check-then-act steps are serialized, while operations on
+ * different projects hold different locks and proceed in parallel.
+ * Lanes are reentrant, so an operation may call another operation on the same project.
+ */
+public final class ProjectLanes {
+
+    private static final Map<String, ReentrantLock> lanes = new ConcurrentHashMap<>(); // One lock per project name
+
+    private ProjectLanes() {}
+
+    /**
+     * Runs an operation in a project's lane, waiting for any operation already running there.
+     * @param projectName The name of the project the operation mutates; null runs the operation unserialized
+     *                    (it will fail its own project lookup).
+     * @param operation The operation.
+     * @return The operation's result.
+     */
+    public static <R> R run(String projectName, Supplier<R> operation) {
+        if (projectName == null) return operation.get();
+        ReentrantLock lane = lanes.computeIfAbsent(projectName, name -> new ReentrantLock());
+        lane.lock();
+        try {
+            return operation.get();
+        } finally {
+            lane.unlock();
+        }
+    }
+
+    /**
+     * Runs an operation holding the lanes of several projects at once.
+     * Lanes are always taken in project name order, so two multi-project operations cannot deadlock.
+     * @param projectNames The names of the projects the operation mutates; nulls are ignored.
+     * @param operation The operation.
+     * @return The operation's result.
+     */
+    public static <R> R runAll(Collection<String> projectNames, Supplier<R> operation) {
+        TreeSet<String> ordered = new TreeSet<>();
+        for (String name : projectNames) {
+            if (name != null) ordered.add(name);
+        }
+        return runInOrder(ordered.iterator(), operation);
+    }
+
+    private static <R> R runInOrder(Iterator<String> names, Supplier<R> operation) {
+        if (!names.hasNext()) return operation.get();
+        String name = names.next();
+        return run(name, () -> runInOrder(names, operation));
+    }
+}
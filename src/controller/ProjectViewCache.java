@@ -0,0 +1,114 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import entities.project.FlatType;
+import entities.project.Project;
+
+/**
+ * Caches filtered project listings by (viewer profile, filters, sort key), so every applicant with the same
+ * eligibility profile shares one result instead of re-filtering the projects on each menu render.
+ * An entry records the repository version it was computed at and is only served while that version is current;
+ * any save, delete, visibility toggle or unit count change bumps the version, so stale entries are never returned.
+ */
+final class ProjectViewCache {
+
+    private static final int MAX_ENTRIES = 1024;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final LongSupplier version;
+
+    /**
+     * Creates an empty cache.
+     * @param version The repository version counter (e.g. {@code ProjectsRepository::version}).
+     */
+    ProjectViewCache(LongSupplier version) {
+        this.version = version;
+    }
+
+    /** The cache key: what a listing depends on once the viewer is reduced to a profile. */
+    static final class Key {
+        private final int profile;
+        private final String neighborhood;
+        private final FlatType flatType;
+        private final String managerNric;
+        private final Long rangeStart;
+        private final Long rangeEnd;
+        private final String sortByField;
+        private final boolean sortAscending;
+
+        /**
+         * @param profile The viewer profile (e.g. an eligibility mask); viewers with equal profiles see equal listings.
+         */
+        Key(int profile, String neighborhood, FlatType flatType, String managerNric, Date[] dateRange,
+            String sortByField, boolean sortAscending) {
+            this.profile = profile;
+            this.neighborhood = neighborhood;
+            this.flatType = flatType;
+            this.managerNric = managerNric;
+            boolean ranged = dateRange != null && dateRange.length == 2;
+            this.rangeStart = ranged && dateRange[0] != null ? dateRange[0].getTime() : null;
+            this.rangeEnd = ranged && dateRange[1] != null ? dateRange[1].getTime() : null;
+            this.sortByField = sortByField;
+            this.sortAscending = sortAscending;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return profile == key.profile && sortAscending == key.sortAscending && flatType == key.flatType
+                    && Objects.equals(neighborhood, key.neighborhood) && Objects.equals(managerNric, key.managerNric)
+                    && Objects.equals(rangeStart, key.rangeStart) && Objects.equals(rangeEnd, key.rangeEnd)
+                    && Objects.equals(sortByField, key.sortByField);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(profile, neighborhood, flatType, managerNric, rangeStart, rangeEnd, sortByField, sortAscending);
+        }
+    }
+
+    private static final class Entry {
+        final long version;
+        final List<Project> projects;
+
+        Entry(long version, List<Project> projects) {
+            this.version = version;
+            this.projects = projects;
+        }
+    }
+
+    /**
+     * Gets a listing, computing it only if there is no entry for the current version.
+     * @param key The cache key.
+     * @param compute Computes the listing.
+     * @return A new list of the projects, which the caller may modify.
+     */
+    List<Project> get(Key key, Supplier<List<Project>> compute) {
+        long current = version.getAsLong();
+        Entry entry = entries.get(key);
+        if (entry == null || entry.version != current) {
+            // Computed at the version read before computing: a concurrent change leaves the entry already stale
+            entry = new Entry(current, Collections.unmodifiableList(new ArrayList<>(compute.get())));
+            if (entries.size() >= MAX_ENTRIES) evict(current);
+            entries.put(key, entry);
+        }
+        return new ArrayList<>(entry.projects);
+    }
+
+    /** Drops entries of older versions, or everything if all entries are current. */
+    private void evict(long current) {
+        entries.values().removeIf(e -> e.version != current);
+        if (entries.size() >= MAX_ENTRIES) entries.clear();
+    }
+}
@@ -6,17 +6,20 @@ import entities.documents.approvableDocuments.*; // Needed for checking related
 import entities.documents.repliableDocuments.*;
 import entities.documents.*;
 import entities.user.*;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 import controller.ProjectController;
+import entities.database.repositories.Page;
 
 /**
  * This controller class handles and manages BTO Applicant-specific workflows.
  */
 public class ApplicantController extends BaseController {
 
+    private static final EligibilityRules RULES = EligibilityRules.standard();
+
     public ApplicantController(ProjectController projectController) {
         super(projectController);
     }
@@ -31,6 +34,17 @@ public class ApplicantController extends BaseController {
         return projectController.getFilteredProjects(applicant, null, null, null, null, null, true);
     }
 
+    /**
+     * Gets one page of the projects viewable by an applicant, in project name order.
+     * @param applicant The applicant user.
+     * @param afterProjectName The last project name of the previous page, or null for the first page.
+     * @param limit Maximum number of projects in the page.
+     * @return The page of viewable projects.
+     */
+    public Page<Project, String> getAvailableProjectsPage(Applicant applicant, String afterProjectName, int limit) {
+        return projectController.getFilteredProjectsPage(applicant, afterProjectName, limit);
+    }
+
     /**
      * Allows an applicant to apply for a specific project.
      * Performs eligibility checks.
@@ -113,12 +127,12 @@ public class ApplicantController extends BaseController {
                                 ") is not eligible to apply for project '" + projectName +
                                 "' based on offered flat types (" + project.getInitialFlatUnitCounts().keySet() + ").");
              // Provide more specific reason based on rules if desired
-             if(applicant.getMaritalStatus() == MaritalStatus.SINGLE && applicant.getAge() >= 35) {
-                  System.err.println("Reason: Singles aged 35+ can only apply for projects offering 2-Room flats.");
-             } else if (applicant.getMaritalStatus() == MaritalStatus.MARRIED && applicant.getAge() < 21) {
-                  System.err.println("Reason: Married applicants must be 21 or older.");
-             } else if (applicant.getMaritalStatus() == MaritalStatus.SINGLE && applicant.getAge() < 35) {
-                  System.err.println("Reason: Single applicants must be 35 or older.");
+             int minimumAge = applicant.getMaritalStatus() != null ? RULES.minimumAge(applicant.getMaritalStatus()) : -1;
+             if (RULES.mask(applicant) != 0) {
+                  System.err.println("Reason: " + applicant.getMaritalStatus() + " applicants aged " + applicant.getAge()
+                          + " can only apply for projects offering " + eligibleTypes(applicant) + " flats.");
+             } else if (minimumAge >= 0 && applicant.getAge() < minimumAge) {
+                  System.err.println("Reason: " + applicant.getMaritalStatus() + " applicants must be " + minimumAge + " or older.");
              }
              return null; // Application rejected due to eligibility
         }
@@ -286,20 +300,16 @@ public class ApplicantController extends BaseController {
     private boolean isEligibleToApply(Applicant applicant, Project project) {
         if (applicant == null || project == null) return false;
 
-        int age = applicant.getAge();
-        MaritalStatus maritalStatus = applicant.getMaritalStatus();
-        Set<FlatType> offeredTypes = project.getInitialFlatUnitCounts().keySet(); // Get offered types
+        // Married >= 21 can apply if project offers ANY flats; Single >= 35 ONLY if it offers TWO_ROOM flats [cite: 12]
+        return RULES.isEligibleForAny(applicant, project);
+    }
 
-        if (maritalStatus == MaritalStatus.MARRIED && age >= 21) {
-            // Married >= 21 can apply if project offers ANY flats
-            return !offeredTypes.isEmpty();
-        } else if (maritalStatus == MaritalStatus.SINGLE && age >= 35) {
-            // Single >= 35 can ONLY apply if project offers TWO_ROOM flats
-            return offeredTypes.contains(FlatType.TWO_ROOM);
-        } else {
-            // All other cases (Single < 35, Married < 21) are ineligible to apply
-            return false;
+    private static List<FlatType> eligibleTypes(Applicant applicant) {
+        List<FlatType> types = new ArrayList<>();
+        for (FlatType type : FlatType.values()) {
+            if (RULES.isEligible(applicant, type)) types.add(type);
         }
+        return types;
     }
      public boolean deleteEnquiry(Applicant applicant, String enquiryId) {
          Optional<Enquiry> enquiryOpt = Database.getDocumentsRepository().getEnquiryRepository().findById(enquiryId);
@@ -341,11 +351,7 @@ public class ApplicantController extends BaseController {
     // --- Helper Methods ---
 
     public boolean checkEligibility(Applicant applicant, FlatType flatType) {
-        int age = applicant.getAge();
-        MaritalStatus status = applicant.getMaritalStatus();
-        if (status == MaritalStatus.MARRIED) return age >= 21;
-        else if (status == MaritalStatus.SINGLE) return age >= 35 && flatType == FlatType.TWO_ROOM;
-        else return false;
+        return RULES.isEligible(applicant, flatType);
     }
 
 }
\ No newline at end of file
@@ -1,26 +1,47 @@
 package controller.usersController;
 
 import entities.database.Database;
+import entities.database.ReadSnapshot;
+import entities.database.UnitOfWork;
 import entities.project.*; // Project, FlatType, User, HdbManager, HdbOfficer etc.
 import entities.documents.approvableDocuments.*; // Needed for checking related docs on delete
 import entities.documents.repliableDocuments.*;
 import entities.documents.*;
 import entities.user.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.time.LocalDateTime;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.*;
 
+import controller.BallotEngine;
+import controller.BulkResult;
+import controller.FlatWaitlist;
 import controller.ProjectController;
+import controller.ProjectLanes;
+import entities.database.indexes.SortedKeyIndex;
+import entities.database.query.Query;
+import entities.database.repositories.Page;
+import entities.database.repositories.ProjectsRepository;
+import entities.database.repositories.documentsRepositories.*;
 
 /**
  * This controller class handles and manages HDB Manager-specific workflows.
  */
 public class HdbManagerController extends BaseController{
 
+    private static final String REPORT_HEADER = String.format("%-15s | %-12s | %-20s | %-8s | %-12s | %-10s%n",
+            "Project", "Applicant NRIC", "Applicant Name", "Age", "Marital", "Booked Flat");
+
     public HdbManagerController(ProjectController projectController) {
         super(projectController);
     }
@@ -55,17 +76,29 @@ public class HdbManagerController extends BaseController{
     // --- View Projects --- [cite: 27, 28]
 
     public List<Project> viewAllProjects(HdbManager manager) {
-        // Managers see all projects, use unfiltered list from repository
-         return Database.getProjectsRepository().findAll().stream()
-                 .sorted(Comparator.comparing(Project::getName, String.CASE_INSENSITIVE_ORDER))
-                 .collect(Collectors.toList());
+        // Managers see all projects, read from one snapshot so the listing is consistent (read-only copies)
+        try (ReadSnapshot snapshot = Database.openSnapshot()) {
+            List<Project> projects = new ArrayList<>(snapshot.projects());
+            projects.sort(Comparator.comparing((Project p) -> SortedKeyIndex.collationKey(p.getName()))
+                                    .thenComparing(Project::getName));
+            return projects;
+        }
+    }
+
+    /**
+     * Gets one page of all projects, in project name order.
+     * @param manager The HDB Manager.
+     * @param afterProjectName The last project name of the previous page, or null for the first page.
+     * @param limit Maximum number of projects in the page.
+     * @return The page of projects.
+     */
+    public Page<Project, String> viewAllProjectsPage(HdbManager manager, String afterProjectName, int limit) {
+        return projectController.getFilteredProjectsPage(manager, afterProjectName, limit);
     }
 
     public List<Project> viewMyProjects(HdbManager manager) {
          // Delegate to ProjectController or Repository
-        return projectController.getProjectsByManager(manager).stream()
-                 .sorted(Comparator.comparing(Project::getName, String.CASE_INSENSITIVE_ORDER))
-                 .collect(Collectors.toList());
+        return projectController.getProjectsByManager(manager, null, null, null, ProjectController.SORT_BY_NAME, true);
         // Or: return Database.getProjectsRepository().findByManager(manager);
     }
 
@@ -83,10 +116,9 @@ public class HdbManagerController extends BaseController{
 
         if (myProjectNames.isEmpty()) return List.of();
 
-        return Database.getDocumentsRepository().getRegistrationRepository().findAll().stream()
-                .filter(reg -> reg.getStatus() == DocumentStatus.PENDING_APPROVAL)
-                .filter(reg -> reg.getProjectName() != null && myProjectNames.contains(reg.getProjectName()))
-                .collect(Collectors.toList());
+        return Database.getDocumentsRepository().getRegistrationRepository().query(new Query<ProjectRegistration>()
+                .whereStatus(RegistrationRepository.STATUS, DocumentStatus.PENDING_APPROVAL)
+                .whereIn(RegistrationRepository.PROJECT_NAME, myProjectNames));
     }
 
      /**
@@ -98,75 +130,115 @@ public class HdbManagerController extends BaseController{
       * @return true if action was successful, false otherwise.
       */
      public boolean processOfficerRegistration(HdbManager manager, String registrationId, boolean approve, String reason) {
-         Optional<ProjectRegistration> regOpt = Database.getDocumentsRepository().getRegistrationRepository().findById(registrationId);
-         if (regOpt.isEmpty()) {
-             System.err.println("Officer Registration Processing Error: Registration ID '" + registrationId + "' not found.");
+         // Serialized with every other mutation of the project (officer slots are check-then-act)
+         String projectName = Database.getDocumentsRepository().getRegistrationRepository().findById(registrationId)
+                 .map(ProjectRegistration::getProjectName).orElse(null);
+         return ProjectLanes.run(projectName, () -> processOfficerRegistrationInLane(manager, registrationId, approve, reason));
+     }
+
+     private boolean processOfficerRegistrationInLane(HdbManager manager, String registrationId, boolean approve, String reason) {
+         UnitOfWork work = new UnitOfWork(); // Registration status and officer slot commit or roll back together
+         String error = decideOfficerRegistration(manager, registrationId, approve, reason, work);
+         if (error != null) {
+             work.rollback();
+             System.err.println("Officer Registration Processing Error: " + error);
              return false;
          }
+         if (!work.commit()) { // Saves the project (updated officers) and the registration together
+              System.err.println("Officer Registration Processing Error: Failed to update registration " + registrationId);
+              return false;
+         }
+         System.out.println("Officer registration " + registrationId + " processed successfully (Approved: " + approve + ") by Manager " + manager.getNric());
+         return true;
+     }
+
+     /**
+      * Approves or rejects several officer registrations in one pass: every registration is validated and
+      * decided with its project's lane held, and all changes are written in one unit of work.
+      * A registration that fails validation is skipped without affecting the others.
+      * @param manager The HDB Manager performing the action.
+      * @param registrationIds The IDs of the ProjectRegistration documents.
+      * @param approve True to approve, false to reject.
+      * @param reason Required if rejecting.
+      * @return The outcome per registration.
+      */
+     public BulkResult processOfficerRegistrations(HdbManager manager, Collection<String> registrationIds, boolean approve, String reason) {
+         RegistrationRepository registrations = Database.getDocumentsRepository().getRegistrationRepository();
+         BulkResult result = new BulkResult((approve ? "Approve" : "Reject") + " officer registrations");
+         List<String> ids = groupByProject(registrationIds, id -> registrations.findById(id).map(ProjectRegistration::getProjectName).orElse(null));
+         ProjectLanes.runAll(projectNamesOf(ids, id -> registrations.findById(id).map(ProjectRegistration::getProjectName).orElse(null)), () -> {
+             UnitOfWork work = new UnitOfWork();
+             for (String id : ids) {
+                 UnitOfWork.Savepoint savepoint = work.savepoint();
+                 String error = decideOfficerRegistration(manager, id, approve, reason, work);
+                 if (error != null) {
+                     work.rollbackTo(savepoint);
+                     result.failed(id, error);
+                 } else {
+                     result.succeeded(id, "Now " + registrations.findById(id).map(ProjectRegistration::getStatus).orElse(null) + ".");
+                 }
+             }
+             if (result.getProcessedCount() > 0 && !work.commit()) result.failAll("Rolled back: failed to save changes.");
+             return null;
+         });
+         System.out.println(result.summary());
+         return result;
+     }
+
+     /**
+      * Approves or rejects the officer registrations matching a criteria query (see {@link #processOfficerRegistrations(HdbManager, Collection, boolean, String)}).
+      * @param manager The HDB Manager performing the action.
+      * @param criteria The query selecting the registrations.
+      * @param approve True to approve, false to reject.
+      * @param reason Required if rejecting.
+      * @return The outcome per registration.
+      */
+     public BulkResult processOfficerRegistrations(HdbManager manager, Query<ProjectRegistration> criteria, boolean approve, String reason) {
+         return processOfficerRegistrations(manager, Database.getDocumentsRepository().getRegistrationRepository().query(criteria).stream()
+                 .map(ProjectRegistration::getDocumentID).collect(Collectors.toList()), approve, reason);
+     }
+
+     /**
+      * Validates and applies a decision on an officer registration, recording it in a unit of work.
+      * Runs in the project's lane; the caller commits, or rolls back if an error is returned.
+      * @return null if the decision was applied, otherwise why not.
+      */
+     private String decideOfficerRegistration(HdbManager manager, String registrationId, boolean approve, String reason, UnitOfWork work) {
+         Optional<ProjectRegistration> regOpt = Database.getDocumentsRepository().getRegistrationRepository().findById(registrationId);
+         if (regOpt.isEmpty()) return "Registration ID '" + registrationId + "' not found.";
          ProjectRegistration registration = regOpt.get();
 
          if (registration.getStatus() != DocumentStatus.PENDING_APPROVAL) {
-              System.err.println("Officer Registration Processing Error: Registration " + registrationId + " is not pending approval (Status: " + registration.getStatus() + ").");
-             return false;
+             return "Registration " + registrationId + " is not pending approval (Status: " + registration.getStatus() + ").";
          }
 
          // Find the associated project
          Optional<Project> projectOpt = Database.getProjectsRepository().findById(registration.getProjectName());
-          if (projectOpt.isEmpty()) {
-              System.err.println("Officer Registration Processing Error: Project '" + registration.getProjectName() + "' not found for registration " + registrationId);
-             return false;
-         }
+         if (projectOpt.isEmpty()) return "Project '" + registration.getProjectName() + "' not found for registration " + registrationId;
          Project project = projectOpt.get();
 
          // Authorisation Check: Is this manager in charge of this project?
          if (!manager.equals(project.getManager())) {
-             System.err.println("Officer Registration Processing Error: Manager " + manager.getNric() + " is not authorized for project '" + project.getName() + "'.");
-             return false;
+             return "Manager " + manager.getNric() + " is not authorized for project '" + project.getName() + "'.";
          }
+         if (!approve && (reason == null || reason.isBlank())) return "Reason must be provided for rejection.";
 
-         boolean success;
+         work.track(registration);
          if (approve) {
              // Check available officer slots [cite: 30 implies check needed]
              if (project.getAvailableOfficerSlots() <= 0) {
-                 System.err.println("Officer Registration Approval Error: No available officer slots in project '" + project.getName() + "'. Cannot approve registration " + registrationId);
-                 // Consider auto-rejecting? Or just return false?
-                 // Let's reject it explicitly for clarity.
-                 return processOfficerRegistration(manager, registrationId, false, "No available officer slots.");
-                 // return false;
+                 // Reject it explicitly for clarity
+                 System.err.println("Officer Registration Approval Error: No available officer slots in project '" + project.getName() + "'. Rejecting registration " + registrationId);
+                 return registration.reject(manager, "No available officer slots.") ? null : "Failed to reject registration " + registrationId;
              }
-             // Approve the registration document
-             success = registration.approve(manager); // Assumes this method updates status etc.
-             if (success) {
-                 // Add officer to the project
-                 boolean added = project.addOfficer((HdbOfficer) registration.getSubmitter()); // Assumes submitter is HdbOfficer
-                 if (!added) {
-                      System.err.println("CRITICAL ERROR: Registration " + registrationId + " approved but failed to add officer " + registration.getSubmitter().getNric() + " to project " + project.getName() + ". Manual correction needed!");
-                      // Rollback approval? Complex transaction... For now, log error.
-                      // registration.setStatus(DocumentStatus.PENDING_APPROVAL); // Attempt rollback
-                      // Database.getDocumentsRepository().saveDocument(registration);
-                      success = false; // Mark as overall failure
-                 } else {
-                     // Save both project (updated officers) and registration (updated status)
-                     Database.getProjectsRepository().save(project);
-                 }
+             if (!registration.approve(manager)) return "Failed to approve registration " + registrationId;
+             // Add officer to the project
+             if (!work.addOfficer(project, (HdbOfficer) registration.getSubmitter())) { // Assumes submitter is HdbOfficer
+                 return "Failed to add officer " + registration.getSubmitter().getNric() + " to project " + project.getName() + ". Approval of " + registrationId + " rolled back.";
              }
-         } else { // Reject
-             if (reason == null || reason.isBlank()) {
-                 System.err.println("Officer Registration Rejection Error: Reason must be provided for rejection.");
-                 return false;
-             }
-             success = registration.reject(manager, reason); // Assumes this method updates status etc.
-         }
-
-         if (success) {
-             // Save the updated registration document status
-             Database.getDocumentsRepository().saveDocument(registration);
-             System.out.println("Officer registration " + registrationId + " processed successfully (Approved: " + approve + ") by Manager " + manager.getNric());
-             return true;
-         } else {
-              System.err.println("Officer Registration Processing Error: Failed to update registration " + registrationId);
-              return false;
+             return null;
          }
+         return registration.reject(manager, reason) ? null : "Failed to reject registration " + registrationId;
      }
 
 
@@ -183,14 +255,29 @@ public class HdbManagerController extends BaseController{
 
         if (myProjectNames.isEmpty()) return List.of();
 
-        return Database.getDocumentsRepository().getApplicationRepository().findAll().stream()
-                .filter(app -> app.getStatus() == DocumentStatus.PENDING_APPROVAL) // Or SUBMITTED if that's the pending state
-                .filter(app -> app.getProjectName() != null && myProjectNames.contains(app.getProjectName()))
-                .collect(Collectors.toList());
+        return Database.getDocumentsRepository().getApplicationRepository().query(new Query<ProjectApplication>()
+                .whereStatus(ApplicationRepository.STATUS, DocumentStatus.PENDING_APPROVAL) // Or SUBMITTED if that's the pending state
+                .whereIn(ApplicationRepository.PROJECT_NAME, myProjectNames));
+     }
+
+    /**
+     * Gets one page of pending BTO applications for projects managed by this manager, in document ID order.
+     * @param manager The HDB Manager.
+     * @param afterApplicationId The last application ID of the previous page, or null for the first page.
+     * @param limit Maximum number of applications in the page.
+     * @return The page of pending applications.
+     */
+     public Page<ProjectApplication, String> viewPendingBtoApplicationsPage(HdbManager manager, String afterApplicationId, int limit) {
+        Set<String> myProjectNames = projectController.getProjectsByManager(manager).stream()
+                .map(Project::getName).collect(Collectors.toSet());
+        return Database.getDocumentsRepository().getApplicationRepository().findPage(afterApplicationId, limit,
+                app -> app.getStatus() == DocumentStatus.PENDING_APPROVAL && myProjectNames.contains(app.getProjectName()));
      }
 
     /**
-     * Approves or rejects an applicant's BTO application. Approval limited by flat supply. [cite: 31]
+     * Approves or rejects an applicant's BTO application. Approval limited by flat supply [cite: 31]: the applicant is
+     * allocated the largest eligible flat type with units left after earlier approvals, as in a ballot (see
+     * {@link BallotEngine#availableSupply}), and can only book that type.
      * @param manager The HDB Manager.
      * @param applicationId The ID of the ProjectApplication.
      * @param approve True to approve, false to reject.
@@ -198,60 +285,168 @@ public class HdbManagerController extends BaseController{
      * @return true if action successful, false otherwise.
      */
     public boolean processBtoApplication(HdbManager manager, String applicationId, boolean approve, String reason) {
-        Optional<ProjectApplication> appOpt = Database.getDocumentsRepository().getApplicationRepository().findById(applicationId);
-        if (appOpt.isEmpty()) {
-            System.err.println("BTO Application Processing Error: Application ID '" + applicationId + "' not found.");
+        String projectName = Database.getDocumentsRepository().getApplicationRepository().findById(applicationId)
+                .map(ProjectApplication::getProjectName).orElse(null);
+        return ProjectLanes.run(projectName, () -> processBtoApplicationInLane(manager, applicationId, approve, reason));
+    }
+
+    private boolean processBtoApplicationInLane(HdbManager manager, String applicationId, boolean approve, String reason) {
+        String error = checkBtoApplication(manager, applicationId, approve, reason);
+        if (error != null) {
+            System.err.println("BTO Application Processing Error: " + error);
             return false;
         }
-        ProjectApplication application = appOpt.get();
-
-         if (application.getStatus() != DocumentStatus.PENDING_APPROVAL) { // Or SUBMITTED
-              System.err.println("BTO Application Processing Error: Application " + applicationId + " is not pending approval (Status: " + application.getStatus() + ").");
-             return false;
-         }
-
-         // Find the associated project
-         Optional<Project> projectOpt = Database.getProjectsRepository().findById(application.getProjectName());
-          if (projectOpt.isEmpty()) {
-              System.err.println("BTO Application Processing Error: Project '" + application.getProjectName() + "' not found for application " + applicationId);
-             return false;
-         }
-         Project project = projectOpt.get();
-
-         // Authorisation Check
-         if (!manager.equals(project.getManager())) {
-             System.err.println("BTO Application Processing Error: Manager " + manager.getNric() + " is not authorized for project '" + project.getName() + "'.");
-             return false;
-         }
-
-         boolean success;
-         if (approve) {
-              // Check flat supply - This is complex. PDF says "approval is limited to the supply".
-              // Does this mean *total* supply, or remaining supply? Let's assume TOTAL for initial ballot success.
-              // Booking stage later confirms remaining units. This needs clarification.
-              // For now, let's just approve without checking supply, assuming ballot happens.
-              // A real system would need a more defined balloting/allocation process.
-              // Let's assume approval here means "successful in ballot, can proceed to booking"
-              success = application.approve(manager); // Assumes method updates status to APPROVED
-         } else { // Reject
-            if (reason == null || reason.isBlank()) {
-                 System.err.println("BTO Application Rejection Error: Reason must be provided for rejection.");
-                 return false;
-             }
-            success = application.reject(manager, reason); // Assumes method updates status to REJECTED
-         }
+        ProjectApplication application = Database.getDocumentsRepository().getApplicationRepository().findById(applicationId).get();
+        long readVersion = application.getVersion(); // The decision below applies only if nobody changes the application first
+
+        // Approval means "successful in ballot, can proceed to booking", so it takes a unit of supply like a ballot
+        // approval; the lane keeps other approvals and bookings of the project out until the decision is written
+        FlatType allocated = null;
+        if (approve) {
+            Project project = Database.getProjectsRepository().findById(application.getProjectName()).get();
+            allocated = BallotEngine.allocate(application.getSubmitter(), BallotEngine.availableSupply(project));
+            if (allocated == null) {
+                System.err.println("BTO Application Processing Error: No flat supply left for application " + applicationId
+                        + " (every eligible flat type is taken by bookings and earlier approvals).");
+                return false;
+            }
+        }
+        TransitionResult<ProjectApplication> result = Database.getDocumentsRepository().getApplicationRepository().update(applicationId, readVersion,
+                DocumentStatus.PENDING_APPROVAL, decision(manager, approve, reason, allocated)); // Sets status to APPROVED or REJECTED
 
-          if (success) {
-             // Save the updated application document status
-             Database.getDocumentsRepository().saveDocument(application);
+          if (result.isApplied()) {
              System.out.println("BTO Application " + applicationId + " processed successfully (Approved: " + approve + ") by Manager " + manager.getNric());
              return true;
+         } else if (result.isConflict()) {
+              System.err.println("BTO Application Processing Error: Application " + applicationId + " was changed by another user (now " + result.getDocument().getStatus() + "). Please review it again.");
+              return false;
          } else {
               System.err.println("BTO Application Processing Error: Failed to update application " + applicationId);
               return false;
          }
     }
 
+    /**
+     * Approves or rejects several BTO applications in one pass: every application is validated with its
+     * project's lane held, and all decisions are written in one batch of compare-and-set updates.
+     * Approvals take supply in the order given, as {@link #processBtoApplication} does; once a project runs out,
+     * its remaining applications fail.
+     * An application that fails validation, or was changed meanwhile, is skipped without affecting the others.
+     * @param manager The HDB Manager.
+     * @param applicationIds The IDs of the ProjectApplications.
+     * @param approve True to approve, false to reject.
+     * @param reason Required if rejecting.
+     * @return The outcome per application.
+     */
+    public BulkResult processBtoApplications(HdbManager manager, Collection<String> applicationIds, boolean approve, String reason) {
+        ApplicationRepository applications = Database.getDocumentsRepository().getApplicationRepository();
+        BulkResult result = new BulkResult((approve ? "Approve" : "Reject") + " BTO applications");
+        List<String> ids = groupByProject(applicationIds, id -> applications.findById(id).map(ProjectApplication::getProjectName).orElse(null));
+        ProjectLanes.runAll(projectNamesOf(ids, id -> applications.findById(id).map(ProjectApplication::getProjectName).orElse(null)), () -> {
+            List<BatchUpdate<ProjectApplication>> batch = new ArrayList<>();
+            List<String> batchIds = new ArrayList<>();
+            Map<String, int[]> supplies = new HashMap<>(); // Per project, taken down as approvals are allocated
+            for (String id : ids) {
+                String error = checkBtoApplication(manager, id, approve, reason);
+                if (error != null) {
+                    result.failed(id, error);
+                    continue;
+                }
+                ProjectApplication application = applications.findById(id).get();
+                FlatType allocated = null;
+                if (approve) {
+                    int[] supply = supplies.computeIfAbsent(application.getProjectName(), name ->
+                            BallotEngine.availableSupply(Database.getProjectsRepository().findById(name).get()));
+                    allocated = BallotEngine.allocate(application.getSubmitter(), supply);
+                    if (allocated == null) {
+                        result.failed(id, "No flat supply left for an eligible flat type.");
+                        continue;
+                    }
+                }
+                batch.add(new BatchUpdate<>(id, application.getVersion(), DocumentStatus.PENDING_APPROVAL,
+                        decision(manager, approve, reason, allocated)));
+                batchIds.add(id);
+            }
+            List<TransitionResult<ProjectApplication>> written = applications.updateAll(batch);
+            for (int i = 0; i < written.size(); i++) {
+                TransitionResult<ProjectApplication> outcome = written.get(i);
+                if (outcome.isApplied()) result.succeeded(batchIds.get(i), "Now " + outcome.getDocument().getStatus() + ".");
+                else if (outcome.isConflict()) result.failed(batchIds.get(i), "Changed by another user (now " + outcome.getDocument().getStatus() + ").");
+                else result.failed(batchIds.get(i), "Failed to update application " + batchIds.get(i));
+            }
+            return null;
+        });
+        System.out.println(result.summary());
+        return result;
+    }
+
+    /**
+     * Approves or rejects the BTO applications matching a criteria query (see {@link #processBtoApplications(HdbManager, Collection, boolean, String)}).
+     * @param manager The HDB Manager.
+     * @param criteria The query selecting the applications.
+     * @param approve True to approve, false to reject.
+     * @param reason Required if rejecting.
+     * @return The outcome per application.
+     */
+    public BulkResult processBtoApplications(HdbManager manager, Query<ProjectApplication> criteria, boolean approve, String reason) {
+        return processBtoApplications(manager, Database.getDocumentsRepository().getApplicationRepository().query(criteria).stream()
+                .map(ProjectApplication::getDocumentID).collect(Collectors.toList()), approve, reason);
+    }
+
+    /**
+     * Checks that a BTO application can be decided by this manager.
+     * @return null if it can, otherwise why not.
+     */
+    private String checkBtoApplication(HdbManager manager, String applicationId, boolean approve, String reason) {
+        Optional<ProjectApplication> appOpt = Database.getDocumentsRepository().getApplicationRepository().findById(applicationId);
+        if (appOpt.isEmpty()) return "Application ID '" + applicationId + "' not found.";
+        ProjectApplication application = appOpt.get();
+
+        if (application.getStatus() != DocumentStatus.PENDING_APPROVAL) { // Or SUBMITTED
+            return "Application " + applicationId + " is not pending approval (Status: " + application.getStatus() + ").";
+        }
+
+        // Find the associated project
+        Optional<Project> projectOpt = Database.getProjectsRepository().findById(application.getProjectName());
+        if (projectOpt.isEmpty()) return "Project '" + application.getProjectName() + "' not found for application " + applicationId;
+        Project project = projectOpt.get();
+
+        // Authorisation Check
+        if (!manager.equals(project.getManager())) {
+            return "Manager " + manager.getNric() + " is not authorized for project '" + project.getName() + "'.";
+        }
+        if (!approve && (reason == null || reason.isBlank())) return "Reason must be provided for rejection.";
+        return null;
+    }
+
+    private static Predicate<ProjectApplication> decision(HdbManager manager, boolean approve, String reason, FlatType allocated) {
+        if (!approve) return app -> app.reject(manager, reason);
+        return app -> {
+            if (!app.approve(manager)) return false;
+            app.setAllocatedFlatType(allocated); // The only type the applicant may book
+            return true;
+        };
+    }
+
+    /**
+     * Ballots the pending applications of the given projects: approves up to each flat type's supply in a
+     * seeded random order and leaves the rest pending with a queue number (see {@link BallotEngine}).
+     * @param manager The HDB Manager; must manage every project.
+     * @param projectNames The projects to ballot.
+     * @param seed The ballot seed; the same seed and applications give the same draw.
+     * @param marriedFirst True to draw married applicants before singles.
+     * @return The result per project.
+     */
+    public Map<String, BallotEngine.Result> runBallot(HdbManager manager, List<String> projectNames, long seed, boolean marriedFirst) {
+        Map<String, BallotEngine.Result> results = new BallotEngine(seed, marriedFirst ? BallotEngine.MARRIED_FIRST : null)
+                .run(manager, projectNames);
+        for (BallotEngine.Result result : results.values()) { // Printed here, once the parallel draws are done
+            if (result.isBalloted()) System.out.println("Ballot " + result);
+            else System.err.println("Ballot Error: " + result);
+        }
+        return results;
+    }
+
 
     // --- Withdrawal Request Management --- [cite: 32]
 
@@ -267,14 +462,9 @@ public class HdbManagerController extends BaseController{
           if (myProjectNames.isEmpty()) return List.of();
 
           // Find pending withdrawals where the original application's project is managed by this manager
-          return Database.getDocumentsRepository().getWithdrawalRepository().findAll().stream()
-                  .filter(wd -> wd.getStatus() == DocumentStatus.PENDING_APPROVAL)
-                  .filter(wd -> {
-                      ProjectApplication originalApp = wd.getApplicationToWithdraw(); // Assumes getter
-                      return originalApp != null && originalApp.getProjectName() != null &&
-                             myProjectNames.contains(originalApp.getProjectName());
-                  })
-                  .collect(Collectors.toList());
+          return Database.getDocumentsRepository().getWithdrawalRepository().query(new Query<Withdrawal>()
+                  .whereStatus(WithdrawalRepository.STATUS, DocumentStatus.PENDING_APPROVAL)
+                  .whereIn(WithdrawalRepository.PROJECT_NAME, myProjectNames)); // Same project as the original application
      }
 
     /**
@@ -286,97 +476,147 @@ public class HdbManagerController extends BaseController{
      * @return true if action successful, false otherwise.
      */
     public boolean processWithdrawalRequest(HdbManager manager, String withdrawalId, boolean approve, String reason) {
-         Optional<Withdrawal> wdOpt = Database.getDocumentsRepository().getWithdrawalRepository().findById(withdrawalId);
-         if (wdOpt.isEmpty()) {
-             System.err.println("Withdrawal Processing Error: Withdrawal request ID '" + withdrawalId + "' not found.");
+        String projectName = Database.getDocumentsRepository().getWithdrawalRepository().findById(withdrawalId)
+                .map(Withdrawal::getProjectName).orElse(null);
+        return ProjectLanes.run(projectName, () -> processWithdrawalRequestInLane(manager, withdrawalId, approve, reason));
+    }
+
+    private boolean processWithdrawalRequestInLane(HdbManager manager, String withdrawalId, boolean approve, String reason) {
+         UnitOfWork work = new UnitOfWork(); // Withdrawal, original application and unit count commit or roll back together
+         String error = decideWithdrawal(manager, withdrawalId, approve, reason, work);
+         if (error != null) {
+              work.rollback(); // Undo a partial approval
+              System.err.println("Withdrawal Processing Error: " + error);
+              return false;
+         }
+         if (!work.commit()) { // Restores the withdrawal, the application and the unit count on failure
+             System.err.println("Withdrawal Processing Error: Failed to save changes for withdrawal request " + withdrawalId);
              return false;
          }
+         System.out.println("Withdrawal Request " + withdrawalId + " processed successfully (Approved: " + approve + ") by Manager " + manager.getNric());
+         return true;
+    }
+
+    /**
+     * Approves or rejects several withdrawal requests in one pass: every request is validated and decided
+     * with its project's lane held, and all changes (including released units) are written in one unit of work.
+     * A request that fails validation is skipped without affecting the others.
+     * @param manager The HDB Manager.
+     * @param withdrawalIds The IDs of the Withdrawal documents.
+     * @param approve True to approve, false to reject.
+     * @param reason Required if rejecting.
+     * @return The outcome per withdrawal request.
+     */
+    public BulkResult processWithdrawalRequests(HdbManager manager, Collection<String> withdrawalIds, boolean approve, String reason) {
+        WithdrawalRepository withdrawals = Database.getDocumentsRepository().getWithdrawalRepository();
+        BulkResult result = new BulkResult((approve ? "Approve" : "Reject") + " withdrawal requests");
+        List<String> ids = groupByProject(withdrawalIds, id -> withdrawals.findById(id).map(Withdrawal::getProjectName).orElse(null));
+        ProjectLanes.runAll(projectNamesOf(ids, id -> withdrawals.findById(id).map(Withdrawal::getProjectName).orElse(null)), () -> {
+            UnitOfWork work = new UnitOfWork();
+            for (String id : ids) {
+                UnitOfWork.Savepoint savepoint = work.savepoint();
+                String error = decideWithdrawal(manager, id, approve, reason, work);
+                if (error != null) {
+                    work.rollbackTo(savepoint);
+                    result.failed(id, error);
+                } else {
+                    result.succeeded(id, "Now " + withdrawals.findById(id).map(Withdrawal::getStatus).orElse(null) + ".");
+                }
+            }
+            if (result.getProcessedCount() > 0 && !work.commit()) result.failAll("Rolled back: failed to save changes.");
+            return null;
+        });
+        System.out.println(result.summary());
+        return result;
+    }
+
+    /**
+     * Approves or rejects the withdrawal requests matching a criteria query (see {@link #processWithdrawalRequests(HdbManager, Collection, boolean, String)}).
+     * @param manager The HDB Manager.
+     * @param criteria The query selecting the withdrawal requests.
+     * @param approve True to approve, false to reject.
+     * @param reason Required if rejecting.
+     * @return The outcome per withdrawal request.
+     */
+    public BulkResult processWithdrawalRequests(HdbManager manager, Query<Withdrawal> criteria, boolean approve, String reason) {
+        return processWithdrawalRequests(manager, Database.getDocumentsRepository().getWithdrawalRepository().query(criteria).stream()
+                .map(Withdrawal::getDocumentID).collect(Collectors.toList()), approve, reason);
+    }
+
+    /**
+     * Validates and applies a decision on a withdrawal request, recording it in a unit of work.
+     * Runs in the project's lane; the caller commits, or rolls back if an error is returned.
+     * @return null if the decision was applied, otherwise why not.
+     */
+    private String decideWithdrawal(HdbManager manager, String withdrawalId, boolean approve, String reason, UnitOfWork work) {
+         Optional<Withdrawal> wdOpt = Database.getDocumentsRepository().getWithdrawalRepository().findById(withdrawalId);
+         if (wdOpt.isEmpty()) return "Withdrawal request ID '" + withdrawalId + "' not found.";
          Withdrawal withdrawal = wdOpt.get();
 
          if (withdrawal.getStatus() != DocumentStatus.PENDING_APPROVAL) {
-             System.err.println("Withdrawal Processing Error: Request " + withdrawalId + " is not pending approval (Status: " + withdrawal.getStatus() + ").");
-             return false;
+             return "Request " + withdrawalId + " is not pending approval (Status: " + withdrawal.getStatus() + ").";
          }
 
          ProjectApplication originalApp = withdrawal.getApplicationToWithdraw();
-         if (originalApp == null) {
-              System.err.println("Withdrawal Processing Error: Original application missing for withdrawal " + withdrawalId);
-              return false; // Data integrity issue
-         }
+         if (originalApp == null) return "Original application missing for withdrawal " + withdrawalId; // Data integrity issue
 
           // Find the associated project
          Optional<Project> projectOpt = Database.getProjectsRepository().findById(originalApp.getProjectName());
-          if (projectOpt.isEmpty()) {
-              System.err.println("Withdrawal Processing Error: Project '" + originalApp.getProjectName() + "' not found for withdrawal " + withdrawalId);
-             return false;
-         }
+         if (projectOpt.isEmpty()) return "Project '" + originalApp.getProjectName() + "' not found for withdrawal " + withdrawalId;
          Project project = projectOpt.get();
 
          // Authorisation Check
          if (!manager.equals(project.getManager())) {
-             System.err.println("Withdrawal Processing Error: Manager " + manager.getNric() + " is not authorized for project '" + project.getName() + "'.");
-             return false;
+             return "Manager " + manager.getNric() + " is not authorized for project '" + project.getName() + "'.";
          }
+         if (!approve && (reason == null || reason.isBlank())) return "Reason must be provided for rejection.";
 
-         boolean success;
-         boolean changesToOriginalApp = false;
-         DocumentStatus originalAppPreviousStatus = originalApp.getStatus(); // Store for potential rollback
-
-         if (approve) {
-             success = withdrawal.approve(manager); // Update withdrawal doc status
-             if (success) {
-                 // Update original application status to WITHDRAWN
-                 originalApp.setStatus(DocumentStatus.WITHDRAWN); // Requires setter
-                 originalApp.setLastModifiedDate(LocalDateTime.now()); // Requires setter
-                 originalApp.setLastModifiedBy(manager); // Requires setter
-                 changesToOriginalApp = true;
-
-                 // If original app was BOOKED, need to increment remaining units
-                 if (originalAppPreviousStatus == DocumentStatus.BOOKED) {
-                     // TODO: Need booked flat type from originalApp
-                     // FlatType bookedType = originalApp.getBookedFlatType(); // Requires getter
-                     // if (bookedType != null) {
-                     //     boolean incremented = project.incrementRemainingUnit(bookedType);
-                     //     if (!incremented) {
-                     //         System.err.println("CRITICAL WARNING: Withdrawal approved for booked app "+originalApp.getDocumentID()+" but failed to increment unit count for "+bookedType+" in project "+project.getName());
-                     //     }
-                     // } else {
-                     //      System.err.println("CRITICAL WARNING: Withdrawal approved for booked app "+originalApp.getDocumentID()+" but booked flat type not found.");
-                     // }
-                     System.out.println("Info: Withdrawal approved for booked application - unit count adjustment needed (implement when booked type is stored).");
-                 }
-             }
-         } else { // Reject
-             if (reason == null || reason.isBlank()) {
-                  System.err.println("Withdrawal Rejection Error: Reason must be provided.");
-                  return false;
-              }
-             success = withdrawal.reject(manager, reason); // Update withdrawal doc status
+         work.track(withdrawal);
+         if (!approve) {
+             return withdrawal.reject(manager, reason) ? null : "Failed to update withdrawal request " + withdrawalId; // Update withdrawal doc status
          }
-
-         if (success) {
-             try {
-                 // Save withdrawal request status
-                 Database.getDocumentsRepository().saveDocument(withdrawal);
-                 if (changesToOriginalApp) {
-                     // Save original application status change
-                     Database.getDocumentsRepository().saveDocument(originalApp);
-                     // Save project if unit counts were changed (only if booked type logic is implemented)
-                     if (originalAppPreviousStatus == DocumentStatus.BOOKED) {
-                        // Database.getProjectsRepository().save(project);
-                     }
-                 }
-                 System.out.println("Withdrawal Request " + withdrawalId + " processed successfully (Approved: " + approve + ") by Manager " + manager.getNric());
-                 return true;
-             } catch (Exception e) {
-                 System.err.println("Withdrawal Processing Error: Failed to save changes. " + e.getMessage());
-                  // Attempt rollback? Very complex. Log error.
-                 return false;
+         DocumentStatus originalAppPreviousStatus = originalApp.getStatus();
+         if (!withdrawal.approve(manager)) return "Failed to update withdrawal request " + withdrawalId; // Update withdrawal doc status
+
+         // Update original application status to WITHDRAWN
+         work.track(originalApp);
+         originalApp.setStatus(DocumentStatus.WITHDRAWN); // Requires setter
+         originalApp.setLastModifiedDate(LocalDateTime.now()); // Requires setter
+         originalApp.setLastModifiedBy(manager); // Requires setter
+
+         // If original app was BOOKED, need to increment remaining units
+         if (originalAppPreviousStatus == DocumentStatus.BOOKED) {
+             FlatType bookedType = originalApp.getBookedFlatType();
+             if (bookedType == null) {
+                 System.err.println("CRITICAL WARNING: Withdrawal approved for booked app " + originalApp.getDocumentID() + " but booked flat type not found.");
+             } else if (!work.releaseUnit(project, bookedType)) { // Lock-free release, never above the initial count
+                 System.err.println("CRITICAL WARNING: Withdrawal approved for booked app " + originalApp.getDocumentID() + " but failed to increment unit count for " + bookedType + " in project " + project.getName());
+             } else {
+                 FlatWaitlist.promoteNext(project, bookedType, manager, work); // The released unit goes to the next waiting applicant
              }
-         } else {
-              System.err.println("Withdrawal Processing Error: Failed to update withdrawal request " + withdrawalId);
-              return false;
+         } else if (originalAppPreviousStatus == DocumentStatus.APPROVED && originalApp.getAllocatedFlatType() != null) {
+             // No unit was held, but the approval took a unit of ballot supply; it goes to the next ballot waiter
+             FlatWaitlist.promoteNext(project, originalApp.getAllocatedFlatType(), manager, work);
          }
+         return null;
+    }
+
+    /** Orders document IDs by project, then ID, so each project's items are decided together. Unknown IDs come last. */
+    private static List<String> groupByProject(Collection<String> documentIds, Function<String, String> projectOf) {
+        Map<String, String> projects = new HashMap<>();
+        for (String id : documentIds) {
+            if (id != null) projects.putIfAbsent(id, projectOf.apply(id));
+        }
+        List<String> ids = new ArrayList<>(projects.keySet());
+        ids.sort(Comparator.comparing((String id) -> projects.get(id), Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(Comparator.naturalOrder()));
+        return ids;
+    }
+
+    private static Set<String> projectNamesOf(List<String> documentIds, Function<String, String> projectOf) {
+        Set<String> names = new HashSet<>();
+        for (String id : documentIds) names.add(projectOf.apply(id));
+        return names;
     }
 
 
@@ -388,9 +628,20 @@ public class HdbManagerController extends BaseController{
      * @return List of all enquiries.
      */
     public List<Enquiry> viewAllEnquiries(HdbManager manager) {
-         return Database.getDocumentsRepository().getEnquiryRepository().findAll().stream()
-                 .sorted(Comparator.comparing(Enquiry::getSubmissionDate, Comparator.nullsLast(Comparator.naturalOrder())))
-                 .collect(Collectors.toList());
+         List<Enquiry> enquiries = new ArrayList<>();
+         Database.getDocumentsRepository().getEnquiryRepository().iterateAllBySubmission().forEachRemaining(enquiries::add);
+         return enquiries;
+    }
+
+    /**
+     * Gets one page of ALL enquiries, in document ID order.
+     * @param manager The manager requesting (for logging/context, not filtering).
+     * @param afterEnquiryId The last enquiry ID of the previous page, or null for the first page.
+     * @param limit Maximum number of enquiries in the page.
+     * @return The page of enquiries.
+     */
+    public Page<Enquiry, String> viewAllEnquiriesPage(HdbManager manager, String afterEnquiryId, int limit) {
+         return Database.getDocumentsRepository().getEnquiryRepository().findPage(afterEnquiryId, limit, null);
     }
 
     /**
@@ -404,13 +655,42 @@ public class HdbManagerController extends BaseController{
 
         if (myProjectNames.isEmpty()) return List.of();
 
-        // Find all enquiries and filter by handled project names
-        return Database.getDocumentsRepository().getEnquiryRepository().findAll().stream()
-                .filter(e -> e.getProjectName() != null && myProjectNames.contains(e.getProjectName()))
-                .sorted(Comparator.comparing(Enquiry::getSubmissionDate, Comparator.nullsLast(Comparator.naturalOrder())))
-                .collect(Collectors.toList());
+        // Merge the per-project queues, already ordered by submission date
+        List<Enquiry> enquiries = new ArrayList<>();
+        Database.getDocumentsRepository().getEnquiryRepository().iterateByProjects(myProjectNames).forEachRemaining(enquiries::add);
+        return enquiries;
      }
 
+    /**
+     * Gets the oldest unreplied enquiries for projects managed by this manager.
+     * @param manager The HDB Manager.
+     * @param limit Maximum number of enquiries to return.
+     * @return Up to limit unreplied enquiries, oldest submission first.
+     */
+     public List<Enquiry> viewUnrepliedManagedEnquiries(HdbManager manager, int limit) {
+        List<String> myProjectNames = projectController.getProjectsByManager(manager).stream()
+                .map(Project::getName).collect(Collectors.toList());
+        if (myProjectNames.isEmpty()) return List.of();
+        return Database.getDocumentsRepository().getEnquiryRepository().findUnrepliedByProjects(myProjectNames, limit);
+     }
+
+
+    /**
+     * Searches enquiry and reply content across all projects, most relevant first.
+     * @param manager The manager searching (for context, not filtering).
+     * @param query The free-text query.
+     * @param projectName Optional project name to restrict the search to, may be null or blank.
+     * @param limit Maximum number of results.
+     * @return List of matching enquiries.
+     */
+    public List<Enquiry> searchEnquiries(HdbManager manager, String query, String projectName, int limit) {
+        if (query == null || query.isBlank()) {
+            System.err.println("Enquiry Search Error: Search query cannot be empty.");
+            return List.of();
+        }
+        List<String> projectFilter = (projectName == null || projectName.isBlank()) ? null : List.of(projectName.trim());
+        return Database.getDocumentsRepository().getEnquiryRepository().searchByContent(query, projectFilter, limit);
+    }
 
     /**
      * Allows a manager to reply to an enquiry for a project they handle.
@@ -426,6 +706,7 @@ public class HdbManagerController extends BaseController{
                 return false;
             }
             Enquiry enquiry = enquiryOpt.get();
+            long readVersion = enquiry.getVersion();
 
             if (replyContent == null || replyContent.isBlank()) {
                  System.err.println("Enquiry Reply Error: Reply content cannot be empty.");
@@ -447,13 +728,16 @@ public class HdbManagerController extends BaseController{
                  return false;
             }
 
-            // Use the reply method on the enquiry object
-            boolean replied = enquiry.reply(manager, replyContent);
+            // Reply only if nobody else has replied since the enquiry was read (compare-and-set on its version)
+            TransitionResult<Enquiry> result = Database.getDocumentsRepository().getEnquiryRepository()
+                    .update(enquiryId, readVersion, DocumentStatus.SUBMITTED, e -> e.reply(manager, replyContent));
 
-            if (replied) {
-                Database.getDocumentsRepository().saveDocument(enquiry); // Persist changes
+            if (result.isApplied()) {
                 System.out.println("Enquiry " + enquiryId + " replied to successfully by Manager " + manager.getNric());
                 return true;
+            } else if (result.isConflict()) {
+                 System.err.println("Enquiry Reply Error: Enquiry " + enquiryId + " was changed by another user (now " + result.getDocument().getStatus() + ").");
+                 return false;
             } else {
                  System.err.println("Enquiry Reply Error: Failed to update enquiry " + enquiryId + ". Status was: " + enquiry.getStatus());
                  return false;
@@ -477,27 +761,10 @@ public class HdbManagerController extends BaseController{
                            ", Marital Filter: " + filterMaritalStatus +
                            ", Flat Filter: " + filterFlatType + ")");
 
-        List<ProjectApplication> allBookedApps = Database.getDocumentsRepository().getApplicationRepository().findAll().stream()
-                .filter(app -> app.getStatus() == DocumentStatus.BOOKED)
-                .collect(Collectors.toList());
-
-        Stream<ProjectApplication> filteredStream = allBookedApps.stream();
-
-        // Apply filters
-        if (filterProjectName != null && !filterProjectName.isBlank()) {
-            filteredStream = filteredStream.filter(app -> filterProjectName.equals(app.getProjectName()));
-        }
-        if (filterMaritalStatus != null) {
-            filteredStream = filteredStream.filter(app -> app.getSubmitter() != null && filterMaritalStatus.equals(app.getSubmitter().getMaritalStatus()));
-        }
-        if (filterFlatType != null) {
-            filteredStream = filteredStream.filter(app -> filterFlatType.equals(app.getBookedFlatType()));
-        }
-
-        List<ProjectApplication> reportApps = filteredStream
-                .sorted(Comparator.comparing(ProjectApplication::getProjectName)
-                                  .thenComparing(app -> app.getSubmitter().getName()))
-                .collect(Collectors.toList());
+        // Ordered range read over the booking view: already sorted by project, then applicant name, and pre-formatted
+        String projectFilter = filterProjectName != null && !filterProjectName.isBlank() ? filterProjectName : null;
+        List<BookingView.Row> rows = Database.getDocumentsRepository().getApplicationRepository()
+                .findBookings(projectFilter, filterMaritalStatus, filterFlatType);
 
         // Format Report
         StringBuilder report = new StringBuilder();
@@ -508,23 +775,12 @@ public class HdbManagerController extends BaseController{
         report.append(" | Booked Flat: ").append(filterFlatType != null ? filterFlatType.name() : "ALL");
         report.append("\n------------------------------------------\n");
 
-        if (reportApps.isEmpty()) {
+        if (rows.isEmpty()) {
             report.append("No matching booked applications found.\n");
         } else {
-            report.append(String.format("%-15s | %-12s | %-20s | %-8s | %-12s | %-10s%n",
-                                       "Project", "Applicant NRIC", "Applicant Name", "Age", "Marital", "Booked Flat"));
+            report.append(REPORT_HEADER);
             report.append("--------------------------------------------------------------------------------\n");
-            for (ProjectApplication app : reportApps) {
-                 User applicant = app.getSubmitter();
-                 String bookedTypeStr = app.getBookedFlatType() != null ? app.getBookedFlatType().name() : "N/A";
-                 report.append(String.format("%-15s | %-12s | %-20s | %-8d | %-12s | %-10s%n",
-                                            app.getProjectName(),
-                                            applicant.getNric(),
-                                            applicant.getName(),
-                                            applicant.getAge(),
-                                            applicant.getMaritalStatus(),
-                                            bookedTypeStr));
-            }
+            for (BookingView.Row row : rows) report.append(row.getReportLine());
         }
         report.append("--- End of Report ---\n");
         return report.toString();
@@ -1,20 +1,28 @@
 package controller.usersController;
 
 import entities.database.Database;
+import entities.database.UnitOfWork;
 import entities.project.*; // Project, FlatType, User, HdbManager, HdbOfficer etc.
 import entities.documents.approvableDocuments.*; // Needed for checking related docs on delete
 import entities.documents.repliableDocuments.*;
 import entities.documents.*;
 import entities.user.*;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.Objects;
 import java.time.LocalDateTime;
-import java.util.Comparator;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.stream.*;
 
+import controller.FlatWaitlist;
 import controller.ProjectController;
+import controller.ProjectLanes;
+import entities.database.query.Query;
+import entities.database.repositories.Page;
+import entities.database.repositories.ProjectsRepository;
+import entities.database.repositories.documentsRepositories.RegistrationRepository;
+import entities.database.repositories.documentsRepositories.TransitionResult;
 
 /**
  * This controller class handles and manages HDB Officer-specific workflows.
@@ -53,11 +61,7 @@ public class HdbOfficerController extends BaseController {
         }
 
          // 3. Check if officer already registered for this project
-         List<ProjectRegistration> existingRegs = Database.getDocumentsRepository().getRegistrationRepository().findByOfficerNric(officer.getNric());
-         boolean alreadyRegistered = existingRegs.stream()
-                                         .filter(reg -> reg.getProjectName() != null && reg.getProjectName().equals(projectName))
-                                         .anyMatch(reg -> reg.getStatus() != DocumentStatus.REJECTED && reg.getStatus() != DocumentStatus.CLOSED); // Check active/pending registration
-         if (alreadyRegistered) {
+         if (hasActiveRegistration(officer, projectName)) { // Check active/pending registration
               System.err.println("Registration Error: Officer " + officer.getNric() + " has already registered for project '" + projectName + "'.");
               return null;
          }
@@ -82,6 +86,20 @@ public class HdbOfficerController extends BaseController {
     }
 
 
+    /**
+     * Checks whether the officer has a registration for the project that is not rejected or closed.
+     * @param officer The HDB Officer.
+     * @param projectName The project name.
+     * @return true if an active or pending registration exists.
+     */
+    private boolean hasActiveRegistration(HdbOfficer officer, String projectName) {
+        return !Database.getDocumentsRepository().getRegistrationRepository().query(new Query<ProjectRegistration>()
+                .where(RegistrationRepository.OFFICER_NRIC, officer.getNric())
+                .where(RegistrationRepository.PROJECT_NAME, projectName)
+                .whereIn(RegistrationRepository.STATUS, EnumSet.complementOf(EnumSet.of(DocumentStatus.REJECTED, DocumentStatus.CLOSED)))
+                .limit(1)).isEmpty();
+    }
+
     /**
      * Gets details of projects the officer is *handling* (approved registration).
      * Ignores visibility settings for these projects. [cite: 21]
@@ -89,21 +107,8 @@ public class HdbOfficerController extends BaseController {
      * @return List of projects the officer is handling.
      */
     public List<Project> viewHandledProjects(HdbOfficer officer) {
-        // 1. Find all APPROVED registrations for this officer
-        List<ProjectRegistration> approvedRegistrations = Database.getDocumentsRepository().getRegistrationRepository()
-                .findByOfficerNric(officer.getNric()).stream()
-                .filter(reg -> reg.getStatus() == DocumentStatus.APPROVED)
-                .collect(Collectors.toList());
-
-        // 2. Get the corresponding projects from the registrations
-        return approvedRegistrations.stream()
-                .map(ProjectRegistration::getProjectName) // Assumes getter exists
-                .filter(Objects::nonNull)
-                .distinct()
-                .map(projectName -> Database.getProjectsRepository().findById(projectName))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toList());
+        // Approved registrations add the officer to the project, so the assignment index is authoritative
+        return Database.getProjectsRepository().findByOfficerNric(officer.getNric());
     }
 
      /**
@@ -115,6 +120,12 @@ public class HdbOfficerController extends BaseController {
       * @return true if booking successful, false otherwise.
       */
      public boolean processFlatBooking(HdbOfficer officer, ProjectApplication application, FlatType chosenFlatType) {
+         // Serialized with the project's other mutations; the unit reservation itself is lock-free
+         return ProjectLanes.run(application != null ? application.getProjectName() : null,
+                 () -> processFlatBookingInLane(officer, application, chosenFlatType));
+     }
+
+     private boolean processFlatBookingInLane(HdbOfficer officer, ProjectApplication application, FlatType chosenFlatType) {
          if (application == null || chosenFlatType == null || officer == null) {
              System.err.println("Booking Error: Invalid input.");
              return false;
@@ -152,8 +163,7 @@ public class HdbOfficerController extends BaseController {
          Project project = projectOpt.get();
 
          // 3. Check Officer Authorization (Is this officer assigned to this project?)
-         boolean assigned = project.getAssignedOfficers().stream().anyMatch(o -> o.equals(officer));
-         if (!assigned) {
+         if (!project.isOfficerAssigned(officer.getNric())) {
               System.err.println("Booking Error: Officer " + officer.getNric() + " is not assigned to handle project '" + project.getName() + "'.");
               return false;
          }
@@ -164,41 +174,42 @@ public class HdbOfficerController extends BaseController {
               return false;
           }
 
-         // 5. Check Unit Availability and Decrement [cite: 23]
-         if (!project.decrementRemainingUnit(chosenFlatType)) {
+          // 4b. A ballot approval counted the applicant against one flat type; only that type can be booked
+          if (application.getAllocatedFlatType() != null && application.getAllocatedFlatType() != chosenFlatType) {
+              System.err.println("Booking Error: Application " + application.getDocumentID() + " was allocated a "
+                      + application.getAllocatedFlatType() + " flat in the ballot, not " + chosenFlatType + ".");
+              return false;
+          }
+
+         // 5. Reserve a unit atomically (CAS on the project inventory, so concurrent bookings cannot oversell) [cite: 23]
+         UnitOfWork work = new UnitOfWork();
+         if (!work.reserveUnit(project, chosenFlatType)) {
              System.err.println("Booking Error: No remaining units of type " + chosenFlatType + " available in project '" + project.getName() + "'.");
+             int waiting = FlatWaitlist.enqueue(application, chosenFlatType, work); // Booked automatically when a unit is released
+             if (work.commit()) { // Saves the waitlisted type, so the applicant keeps waiting after a restart
+                 System.out.println("Application " + application.getDocumentID() + " added to the " + chosenFlatType + " waitlist (" + waiting + " waiting).");
+             } else {
+                 System.err.println("Booking Error: Failed to save application " + application.getDocumentID() + " on the " + chosenFlatType + " waitlist.");
+             }
              return false;
          }
 
         // 6. Update Application Status to Booked AND SET BOOKED TYPE
+        work.track(application);
         application.setStatus(DocumentStatus.BOOKED);
         application.setBookedFlatType(chosenFlatType); // <-- ADDED THIS LINE
+        application.setWaitlistedFlatType(null); // No longer waiting, if the type had sold out before
         application.setLastModifiedDate(LocalDateTime.now());
         application.setLastModifiedByNric(officer.getNric());
         application.setLastModifiedBy(officer); // Update transient field too if used
 
-        // 7. Save Changes
-        try {
-            Database.getProjectsRepository().save(project);
-            Database.getDocumentsRepository().saveDocument(application);
-            System.out.println("Booking successful for Application " + application.getDocumentID() + ". Flat Type: " + chosenFlatType + ". Processed by Officer " + officer.getNric());
-            return true;
-        } catch (Exception e) {
-            // ... (Rollback attempt) ...
-            System.err.println("Booking Error: Failed to save changes after booking. " + e.getMessage());
-            // Attempt simple rollback
-            project.incrementRemainingUnit(chosenFlatType);
-            application.setStatus(DocumentStatus.APPROVED);
-            application.setBookedFlatType(null); // Rollback booked type
-            // Try saving reverted state
-            try {
-                Database.getProjectsRepository().save(project);
-                Database.getDocumentsRepository().saveDocument(application);
-            } catch (Exception ex) {
-                System.err.println("CRITICAL Error during booking rollback save: " + ex.getMessage());
-            }
+        // 7. Save Changes (the unit and the application roll back together on failure)
+        if (!work.commit()) {
+            System.err.println("Booking Error: Failed to save changes after booking.");
             return false;
         }
+        System.out.println("Booking successful for Application " + application.getDocumentID() + ". Flat Type: " + chosenFlatType + ". Processed by Officer " + officer.getNric());
+        return true;
      }
 
      /**
@@ -220,7 +231,7 @@ public class HdbOfficerController extends BaseController {
                return null;
           }
           Project project = projectOpt.get();
-          if (project.getAssignedOfficers().stream().noneMatch(o -> o.equals(officer))) {
+          if (!project.isOfficerAssigned(officer.getNric())) {
               System.err.println("Receipt Error: Officer " + officer.getNric() + " is not assigned to project '" + project.getName() + "'.");
               return null;
           }
@@ -258,18 +269,49 @@ public class HdbOfficerController extends BaseController {
       * @return List of relevant enquiries.
       */
      public List<Enquiry> getHandledEnquiries(HdbOfficer officer) {
-          List<Project> handledProjects = viewHandledProjects(officer); // Get projects they handle
-          List<String> handledProjectNames = handledProjects.stream().map(Project::getName).collect(Collectors.toList());
-
+          List<String> handledProjectNames = Database.getProjectsRepository().findByOfficerNric(officer.getNric()).stream()
+                  .map(Project::getName).collect(Collectors.toList());
           if (handledProjectNames.isEmpty()) {
                return List.of(); // Return empty list if no projects handled
           }
+          // Merge the per-project queues, already ordered by submission date
+          List<Enquiry> enquiries = new ArrayList<>();
+          Database.getDocumentsRepository().getEnquiryRepository().iterateByProjects(handledProjectNames).forEachRemaining(enquiries::add);
+          return enquiries;
+     }
 
-          // Find all enquiries and filter by handled project names
-          return Database.getDocumentsRepository().getEnquiryRepository().findAll().stream()
-                  .filter(e -> e.getProjectName() != null && handledProjectNames.contains(e.getProjectName()))
-                  .sorted(Comparator.comparing(Enquiry::getSubmissionDate, Comparator.nullsLast(Comparator.naturalOrder()))) // Sort by submission date
-                  .collect(Collectors.toList());
+     /**
+      * Gets the oldest unreplied enquiries for projects handled by the officer.
+      * @param officer The HDB officer.
+      * @param limit Maximum number of enquiries to return.
+      * @return Up to limit unreplied enquiries, oldest submission first.
+      */
+     public List<Enquiry> getUnrepliedHandledEnquiries(HdbOfficer officer, int limit) {
+          List<String> handledProjectNames = Database.getProjectsRepository().findByOfficerNric(officer.getNric()).stream()
+                  .map(Project::getName).collect(Collectors.toList());
+          if (handledProjectNames.isEmpty()) {
+               return List.of();
+          }
+          return Database.getDocumentsRepository().getEnquiryRepository().findUnrepliedByProjects(handledProjectNames, limit);
+     }
+
+     /**
+      * Searches enquiry and reply content for projects handled by the officer, most relevant first.
+      * @param officer The HDB officer.
+      * @param query The free-text query.
+      * @param limit Maximum number of results.
+      * @return List of matching enquiries.
+      */
+     public List<Enquiry> searchHandledEnquiries(HdbOfficer officer, String query, int limit) {
+          if (query == null || query.isBlank()) {
+               System.err.println("Enquiry Search Error: Search query cannot be empty.");
+               return List.of();
+          }
+          List<String> handledProjectNames = viewHandledProjects(officer).stream().map(Project::getName).collect(Collectors.toList());
+          if (handledProjectNames.isEmpty()) {
+               return List.of();
+          }
+          return Database.getDocumentsRepository().getEnquiryRepository().searchByContent(query, handledProjectNames, limit);
      }
 
       /**
@@ -286,6 +328,7 @@ public class HdbOfficerController extends BaseController {
                 return false;
             }
             Enquiry enquiry = enquiryOpt.get();
+            long readVersion = enquiry.getVersion();
 
             if (replyContent == null || replyContent.isBlank()) {
                  System.err.println("Enquiry Reply Error: Reply content cannot be empty.");
@@ -300,20 +343,21 @@ public class HdbOfficerController extends BaseController {
             }
 
             // Check if officer handles this project
-            List<Project> handledProjects = viewHandledProjects(officer);
-            boolean handlesProject = handledProjects.stream().anyMatch(p -> p.getName().equals(enquiry.getProjectName()));
-            if (!handlesProject) {
+            if (!Database.getProjectsRepository().isOfficerAssigned(enquiry.getProjectName(), officer.getNric())) {
                 System.err.println("Enquiry Reply Error: Officer " + officer.getNric() + " does not handle project '" + enquiry.getProjectName() + "'.");
                 return false;
             }
 
-            // Use the reply method on the enquiry object
-            boolean replied = enquiry.reply(officer, replyContent); // Assumes Enquiry.reply updates status, replier, content, dates
+            // Reply only if nobody else has replied since the enquiry was read (compare-and-set on its version)
+            TransitionResult<Enquiry> result = Database.getDocumentsRepository().getEnquiryRepository()
+                    .update(enquiryId, readVersion, DocumentStatus.SUBMITTED, e -> e.reply(officer, replyContent));
 
-            if (replied) {
-                Database.getDocumentsRepository().saveDocument(enquiry); // Persist changes
+            if (result.isApplied()) {
                 System.out.println("Enquiry " + enquiryId + " replied to successfully by Officer " + officer.getNric());
                 return true;
+            } else if (result.isConflict()) {
+                 System.err.println("Enquiry Reply Error: Enquiry " + enquiryId + " was changed by another user (now " + result.getDocument().getStatus() + ").");
+                 return false;
             } else {
                  System.err.println("Enquiry Reply Error: Failed to update enquiry " + enquiryId + ". Status was: " + enquiry.getStatus());
                  return false;
@@ -330,27 +374,32 @@ public class HdbOfficerController extends BaseController {
          // viewHandledProjects already gets projects regardless of visibility
          // Combine and distinct
          List<Project> handled = viewHandledProjects(officer);
-         return Stream.concat(visibleProjects.stream(), handled.stream())
-                      .distinct() // Ensure no duplicates if handled project is also visible
-                      .sorted(Comparator.comparing(Project::getName, String.CASE_INSENSITIVE_ORDER))
-                      .collect(Collectors.toList());
+         // Ordered walk of the name view over the union (also drops duplicates)
+         return Database.getProjectsRepository().inSortedOrder(
+                      Stream.concat(visibleProjects.stream(), handled.stream()).collect(Collectors.toList()),
+                      ProjectsRepository.SortOrder.NAME, true);
+    }
+
+    /**
+     * Gets one page of the projects an officer may view (visible ones and handled ones), in project name order.
+     * @param officer The HDB Officer.
+     * @param afterProjectName The last project name of the previous page, or null for the first page.
+     * @param limit Maximum number of projects in the page.
+     * @return The page of viewable projects.
+     */
+    public Page<Project, String> getAvailableProjectsForViewingPage(HdbOfficer officer, String afterProjectName, int limit) {
+        return projectController.getFilteredProjectsPage(officer, afterProjectName, limit);
     }
 
     // Reuse applicant apply logic - BUT officer cannot apply for project they handle [cite: 18, 20]
     public ProjectApplication applyForProjectAsApplicant(HdbOfficer officer, String projectName) {
         // Check if officer handles this project
-         List<Project> handledProjects = viewHandledProjects(officer);
-         boolean handlesThisProject = handledProjects.stream().anyMatch(p -> p.getName().equals(projectName));
-         if(handlesThisProject){
+         if(Database.getProjectsRepository().isOfficerAssigned(projectName, officer.getNric())){
               System.err.println("Application Error: Officer " + officer.getNric() + " cannot apply for project '" + projectName + "' as they are handling it.");
               return null;
          }
          // Check if officer registered for this project (even if not approved yet?) PDF implies intention matters [cite: 18]
-         boolean registeredForThisProject = Database.getDocumentsRepository().getRegistrationRepository()
-                                             .findByOfficerNric(officer.getNric()).stream()
-                                             .filter(reg -> reg.getProjectName() != null && reg.getProjectName().equals(projectName))
-                                             .anyMatch(reg -> reg.getStatus() != DocumentStatus.REJECTED && reg.getStatus() != DocumentStatus.CLOSED);
-         if(registeredForThisProject){
+         if(hasActiveRegistration(officer, projectName)){
                System.err.println("Application Error: Officer " + officer.getNric() + " cannot apply for project '" + projectName + "' as they have registered for it.");
               return null;
          }
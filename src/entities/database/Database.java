@@ -1,7 +1,9 @@
 package entities.database;
 
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import entities.database.repositories.*;
 import entities.database.repositories.documentsRepositories.ApplicationRepository;
@@ -122,39 +124,49 @@ public final class Database { // final keyword prevents subclassing
     // Optional: Add getters for specific repos if frequently needed directly
     // public static ApplicationRepository getApplicationRepo() { return applicationRepository; }
 
+    /**
+     * Opens a consistent read-only view of the applications and projects as of the latest commit.
+     * Writers are not blocked while it is open; close it (try-with-resources) to let old versions go.
+     * @return The snapshot.
+     */
+    public static ReadSnapshot openSnapshot() { return new ReadSnapshot(); }
+
     private static void reconcileRemainingUnits() {
         System.out.println("Reconciling remaining flat units based on booked applications...");
         int adjustedCount = 0;
-        // Get all applications directly from its repository
-        List<ProjectApplication> allApplications = applicationRepository.findAll(); // Use direct reference
-
-        for (ProjectApplication app : allApplications) {
-            if (app.getStatus() == DocumentStatus.BOOKED) {
-                FlatType bookedType = app.getBookedFlatType(); // Assumes getter exists
-                String projectName = app.getProjectName(); // Assumes getter exists
-
-                if (bookedType != null && projectName != null) {
-                    Optional<Project> projectOpt = projectsRepository.findById(projectName); // Use direct reference
-                    if (projectOpt.isPresent()) {
-                        Project project = projectOpt.get();
-                        // Decrement the unit for the loaded booked application
-                        // Note: decrementRemainingUnit returns false if already 0, which might
-                        // indicate inconsistency, but we proceed anyway for loading state.
-                        boolean decremented = project.decrementRemainingUnit(bookedType);
-                        if (decremented) {
-                             adjustedCount++;
-                            // Optional log: System.out.println("Reconciled booking: App " + app.getDocumentID() + " decremented " + bookedType + " for project " + projectName);
+        Set<Project> adjustedProjects = new LinkedHashSet<>();
+        // Read the bookings from a pinned snapshot, so the walk sees one consistent set of applications
+        try (ReadSnapshot snapshot = openSnapshot()) {
+            for (ProjectApplication app : snapshot.applications()) {
+                if (app.getStatus() == DocumentStatus.BOOKED) {
+                    FlatType bookedType = app.getBookedFlatType(); // Assumes getter exists
+                    String projectName = app.getProjectName(); // Assumes getter exists
+
+                    if (bookedType != null && projectName != null) {
+                        Optional<Project> projectOpt = projectsRepository.findById(projectName); // Use direct reference
+                        if (projectOpt.isPresent()) {
+                            Project project = projectOpt.get();
+                            // Decrement the unit for the loaded booked application
+                            // Note: decrementRemainingUnit returns false if already 0, which might
+                            // indicate inconsistency, but we proceed anyway for loading state.
+                            boolean decremented = project.decrementRemainingUnit(bookedType);
+                            if (decremented) {
+                                 adjustedCount++;
+                                 adjustedProjects.add(project);
+                                // Optional log: System.out.println("Reconciled booking: App " + app.getDocumentID() + " decremented " + bookedType + " for project " + projectName);
+                            } else {
+                                 System.err.println("Reconciliation Warning: Could not decrement unit " + bookedType + " for project " + projectName + " based on booked app " + app.getDocumentID() + ". Remaining count might already be zero.");
+                            }
                         } else {
-                             System.err.println("Reconciliation Warning: Could not decrement unit " + bookedType + " for project " + projectName + " based on booked app " + app.getDocumentID() + ". Remaining count might already be zero.");
+                             System.err.println("Reconciliation Warning: Project '" + projectName + "' not found for booked application " + app.getDocumentID());
                         }
                     } else {
-                         System.err.println("Reconciliation Warning: Project '" + projectName + "' not found for booked application " + app.getDocumentID());
+                         System.err.println("Reconciliation Warning: Booked application " + app.getDocumentID() + " is missing booked flat type or project name.");
                     }
-                } else {
-                     System.err.println("Reconciliation Warning: Booked application " + app.getDocumentID() + " is missing booked flat type or project name.");
                 }
             }
         }
+        adjustedProjects.forEach(projectsRepository::save); // Publish the reconciled counts to snapshot readers
         System.out.println("Finished reconciling units. Decremented units for " + adjustedCount + " booked applications.");
     }
 
@@ -0,0 +1,74 @@
+package entities.database;
+
+import java.util.List;
+import java.util.Optional;
+
+import entities.database.indexes.SnapshotClock;
+import entities.database.query.Query;
+import entities.database.query.QueryPlanner;
+import entities.documents.approvableDocuments.ProjectApplication;
+import entities.project.Project;
+
+/**
+ * A consistent, read-only view of the applications and projects as of one committed sequence.
+ * Reports and listings read through a snapshot so they see every entity at the same point, while
+ * bookings and approvals carry on against the live repositories. The returned objects are detached
+ * copies and must not be modified or saved. Close the snapshot when done (try-with-resources).
+ */
+public final class ReadSnapshot implements AutoCloseable {
+
+    private final SnapshotClock clock = SnapshotClock.global();
+    private final long sequence;
+    private boolean closed;
+    private List<ProjectApplication> applications; // Loaded on first use
+    private List<Project> projects;
+
+    ReadSnapshot() {
+        this.sequence = clock.pin();
+    }
+
+    public long getSequence() { return sequence; }
+
+    /** @return Every application as of the snapshot. */
+    public List<ProjectApplication> applications() {
+        if (applications == null) {
+            applications = List.copyOf(Database.getDocumentsRepository().getApplicationRepository().snapshotValues(sequence));
+        }
+        return applications;
+    }
+
+    /**
+     * Runs a query over the applications as of the snapshot (a full scan; the live indexes do not apply).
+     * @param query The query.
+     * @return The matching applications.
+     */
+    public List<ProjectApplication> queryApplications(Query<ProjectApplication> query) {
+        List<ProjectApplication> all = applications();
+        return new QueryPlanner<>("applications@" + sequence, () -> all, all::size, List.of()).execute(query);
+    }
+
+    /** @return Every project as of the snapshot. */
+    public List<Project> projects() {
+        if (projects == null) {
+            projects = List.copyOf(Database.getProjectsRepository().snapshotValues(sequence));
+        }
+        return projects;
+    }
+
+    /**
+     * Looks up one project as of the snapshot.
+     * @param projectName The project name.
+     * @return The project, or empty if it did not exist then.
+     */
+    public Optional<Project> project(String projectName) {
+        return Database.getProjectsRepository().snapshotFind(projectName, sequence);
+    }
+
+    /** Releases the snapshot; safe to call more than once. */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        clock.unpin(sequence);
+    }
+}
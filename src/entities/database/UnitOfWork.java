@@ -0,0 +1,216 @@
+package entities.database;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import entities.database.indexes.SnapshotClock;
+import entities.documents.approvableDocuments.DocumentState;
+import entities.documents.approvableDocuments.IApprovableDocument;
+import entities.project.FlatType;
+import entities.project.Project;
+import entities.user.HdbOfficer;
+
+/**
+ * A unit of work for one business action spanning documents and project state.
+ * Documents are tracked before they are mutated (their state is captured for rollback), project
+ * changes (unit reservations, officer assignments) go through this class so they can be compensated,
+ * and {@link #commit()} writes every touched project and document to the repositories in one batch,
+ * published to snapshot readers under a single sequence.
+ * If any write fails, or the action calls {@link #rollback()}, every change is undone in reverse order
+ * and the repository indexes are brought back in step with the restored documents.
+ * A {@link #savepoint()} lets a batch undo one failed item ({@link #rollbackTo}) and still commit the rest.
+ * A unit of work is single-use and not thread-safe; run it inside the project's lane.
+ */
+public class UnitOfWork {
+
+    private final Map<String, TrackedDocument> documents = new LinkedHashMap<>(); // By document ID, in tracking order
+    private final Set<Project> projects = new LinkedHashSet<>();
+    private final Deque<Runnable> compensations = new ArrayDeque<>(); // Undo actions for project changes, newest first
+    private boolean finished;
+
+    /** A point in a unit of work that later changes can be rolled back to. */
+    public static final class Savepoint {
+        private final int documentCount;
+        private final int compensationCount;
+        private final Map<String, DocumentState> states; // State of each document tracked before this point, by ID
+
+        private Savepoint(int documentCount, int compensationCount, Map<String, DocumentState> states) {
+            this.documentCount = documentCount;
+            this.compensationCount = compensationCount;
+            this.states = states;
+        }
+    }
+
+    private static final class TrackedDocument {
+        final IApprovableDocument document;
+        final DocumentState before;
+
+        TrackedDocument(IApprovableDocument document) {
+            this.document = document;
+            this.before = document.captureState();
+        }
+    }
+
+    /**
+     * Tracks a document before it is mutated; it is saved on commit and restored on rollback.
+     * Tracking the same document again keeps the first captured state.
+     * @param document The document about to change.
+     * @return The document, for chaining.
+     */
+    public <D extends IApprovableDocument> D track(D document) {
+        ensureOpen();
+        documents.putIfAbsent(document.getDocumentID(), new TrackedDocument(document));
+        return document;
+    }
+
+    /**
+     * Reserves one unit of a flat type in a project (lock-free), released again on rollback.
+     * @param project The project.
+     * @param type The flat type.
+     * @return true if a unit was reserved, false if none remain.
+     */
+    public boolean reserveUnit(Project project, FlatType type) {
+        ensureOpen();
+        if (!project.decrementRemainingUnit(type)) return false;
+        projects.add(project);
+        compensations.push(() -> project.incrementRemainingUnit(type));
+        return true;
+    }
+
+    /**
+     * Releases one unit of a flat type in a project, reserved again on rollback.
+     * @param project The project.
+     * @param type The flat type.
+     * @return true if a unit was released, false if the type is already fully available.
+     */
+    public boolean releaseUnit(Project project, FlatType type) {
+        ensureOpen();
+        if (!project.incrementRemainingUnit(type)) return false;
+        projects.add(project);
+        compensations.push(() -> project.decrementRemainingUnit(type));
+        return true;
+    }
+
+    /**
+     * Assigns an officer to a project, removed again on rollback.
+     * @param project The project.
+     * @param officer The officer.
+     * @return true if the officer was added, false if no slot is free or they are already assigned.
+     */
+    public boolean addOfficer(Project project, HdbOfficer officer) {
+        ensureOpen();
+        if (!project.addOfficer(officer)) return false;
+        projects.add(project);
+        compensations.push(() -> project.removeOfficer(officer));
+        return true;
+    }
+
+    /**
+     * Registers an undo action for a change made outside this class (e.g. an entry taken off a waitlist).
+     * @param undo Run if the unit of work is rolled back past this point.
+     */
+    public void compensate(Runnable undo) {
+        ensureOpen();
+        compensations.push(undo);
+    }
+
+    /**
+     * Marks the current point, e.g. before the changes for one item of a batch.
+     * @return The savepoint.
+     */
+    public Savepoint savepoint() {
+        ensureOpen();
+        Map<String, DocumentState> states = new LinkedHashMap<>();
+        for (Map.Entry<String, TrackedDocument> entry : documents.entrySet()) {
+            states.put(entry.getKey(), entry.getValue().document.captureState());
+        }
+        return new Savepoint(documents.size(), compensations.size(), states);
+    }
+
+    /**
+     * Undoes the project changes made since a savepoint and puts every document back as it was at the savepoint:
+     * documents first tracked since then are restored and untracked, documents tracked before keep their
+     * earlier changes only. The unit of work stays open.
+     * @param savepoint A savepoint of this unit of work.
+     */
+    public void rollbackTo(Savepoint savepoint) {
+        ensureOpen();
+        while (compensations.size() > savepoint.compensationCount) {
+            compensations.pop().run();
+        }
+        List<TrackedDocument> tracked = new ArrayList<>(documents.values());
+        for (int i = tracked.size() - 1; i >= savepoint.documentCount; i--) {
+            TrackedDocument entry = tracked.get(i);
+            entry.document.restoreState(entry.before);
+            documents.remove(entry.document.getDocumentID());
+            Database.getDocumentsRepository().reindexDocument(entry.document);
+        }
+        for (int i = savepoint.documentCount - 1; i >= 0; i--) {
+            TrackedDocument entry = tracked.get(i);
+            entry.document.restoreState(savepoint.states.get(entry.document.getDocumentID()));
+            Database.getDocumentsRepository().reindexDocument(entry.document);
+        }
+    }
+
+    /**
+     * Writes every touched project and tracked document to the repositories in one batch.
+     * Rolls everything back if any write fails.
+     * @return true if committed, false if the unit of work was rolled back.
+     */
+    public boolean commit() {
+        ensureOpen();
+        try {
+            // One snapshot sequence for the whole batch, so no reader sees half of the action
+            SnapshotClock.global().atomically(() -> {
+                for (Project project : projects) Database.getProjectsRepository().save(project);
+                for (TrackedDocument tracked : documents.values()) Database.getDocumentsRepository().saveDocument(tracked.document);
+                return null;
+            });
+            finished = true;
+            return true;
+        } catch (RuntimeException e) {
+            System.err.println("Transaction Error: Failed to commit changes, rolling back. " + e.getMessage());
+            rollback();
+            return false;
+        }
+    }
+
+    /**
+     * Undoes every change made through this unit of work: project changes in reverse order,
+     * then tracked documents are restored and re-indexed in place.
+     */
+    public void rollback() {
+        if (finished) return;
+        finished = true;
+        while (!compensations.isEmpty()) {
+            try {
+                compensations.pop().run();
+            } catch (RuntimeException e) {
+                System.err.println("CRITICAL Error during rollback of project changes: " + e.getMessage());
+            }
+        }
+        List<TrackedDocument> tracked = new ArrayList<>(documents.values());
+        for (int i = tracked.size() - 1; i >= 0; i--) {
+            TrackedDocument entry = tracked.get(i);
+            entry.document.restoreState(entry.before);
+            Database.getDocumentsRepository().reindexDocument(entry.document); // Indexes follow the restored state
+        }
+        for (Project project : projects) {
+            try {
+                Database.getProjectsRepository().save(project); // Re-index restored officer assignments
+            } catch (RuntimeException e) {
+                System.err.println("CRITICAL Error during rollback save of project " + project.getName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void ensureOpen() {
+        if (finished) throw new IllegalStateException("Unit of work already committed or rolled back.");
+    }
+}
@@ -0,0 +1,103 @@
+package entities.database.indexes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A bidirectional many-to-many index between staff NRICs and project names.
+ * Both directions are hash sets, so membership tests are O(1) and neither
+ * "projects of a staff member" nor "staff of a project" needs a scan.
+ */
+public class AssignmentIndex {
+
+    private final Map<String, Set<String>> projectsByStaff = new HashMap<>();
+    private final Map<String, Set<String>> staffByProject = new HashMap<>();
+
+    /**
+     * Records that a staff member is assigned to a project.
+     * @param projectName The project name.
+     * @param staffNric The staff NRIC.
+     */
+    public synchronized void assign(String projectName, String staffNric) {
+        if (projectName == null || staffNric == null) return;
+        String nric = staffNric.toUpperCase();
+        staffByProject.computeIfAbsent(projectName, k -> new HashSet<>()).add(nric);
+        projectsByStaff.computeIfAbsent(nric, k -> new HashSet<>()).add(projectName);
+    }
+
+    /**
+     * Removes the assignment of a staff member to a project.
+     * @param projectName The project name.
+     * @param staffNric The staff NRIC.
+     */
+    public synchronized void unassign(String projectName, String staffNric) {
+        if (projectName == null || staffNric == null) return;
+        String nric = staffNric.toUpperCase();
+        removeFrom(staffByProject, projectName, nric);
+        removeFrom(projectsByStaff, nric, projectName);
+    }
+
+    /**
+     * Replaces every assignment recorded for a project.
+     * @param projectName The project name.
+     * @param staffNrics The NRICs of the staff now assigned to the project.
+     */
+    public synchronized void replaceProject(String projectName, Collection<String> staffNrics) {
+        removeProject(projectName);
+        for (String nric : staffNrics) assign(projectName, nric);
+    }
+
+    /**
+     * Removes every assignment recorded for a project.
+     * @param projectName The project name.
+     */
+    public synchronized void removeProject(String projectName) {
+        Set<String> staff = staffByProject.remove(projectName);
+        if (staff == null) return;
+        for (String nric : staff) removeFrom(projectsByStaff, nric, projectName);
+    }
+
+    /**
+     * Checks whether a staff member is assigned to a project.
+     * @param projectName The project name.
+     * @param staffNric The staff NRIC.
+     * @return true if the assignment exists.
+     */
+    public synchronized boolean isAssigned(String projectName, String staffNric) {
+        if (projectName == null || staffNric == null) return false;
+        Set<String> projects = projectsByStaff.get(staffNric.toUpperCase());
+        return projects != null && projects.contains(projectName);
+    }
+
+    /**
+     * Gets the names of the projects a staff member is assigned to.
+     * @param staffNric The staff NRIC.
+     * @return A copy of the project names (empty if none).
+     */
+    public synchronized List<String> findProjects(String staffNric) {
+        if (staffNric == null) return new ArrayList<>();
+        return new ArrayList<>(projectsByStaff.getOrDefault(staffNric.toUpperCase(), Set.of()));
+    }
+
+    /**
+     * Gets the NRICs of the staff assigned to a project.
+     * @param projectName The project name.
+     * @return A copy of the staff NRICs (empty if none).
+     */
+    public synchronized List<String> findStaff(String projectName) {
+        if (projectName == null) return new ArrayList<>();
+        return new ArrayList<>(staffByProject.getOrDefault(projectName, Set.of()));
+    }
+
+    private static void removeFrom(Map<String, Set<String>> map, String key, String value) {
+        Set<String> values = map.get(key);
+        if (values == null) return;
+        values.remove(value);
+        if (values.isEmpty()) map.remove(key);
+    }
+}
@@ -0,0 +1,60 @@
+package entities.database.indexes;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A bitmap index from attribute values to the ordinals (see {@link OrdinalMap}) of the
+ * entries holding that value. Multi-criteria filters become bitwise intersections.
+ * Not thread-safe; callers synchronize around it together with the ordinal map.
+ * @param <V> The type of the indexed attribute value.
+ */
+public class BitmapIndex<V> {
+
+    private static final BitSet EMPTY = new BitSet();
+
+    private final Map<V, BitSet> bitmaps = new HashMap<>();
+
+    /**
+     * Marks the entry at an ordinal as holding a value.
+     * @param value The attribute value (null values are not indexed).
+     * @param ordinal The entry ordinal.
+     */
+    public void add(V value, int ordinal) {
+        if (value == null) return;
+        bitmaps.computeIfAbsent(value, v -> new BitSet()).set(ordinal);
+    }
+
+    /**
+     * Clears the mark of the entry at an ordinal for a value.
+     * @param value The attribute value.
+     * @param ordinal The entry ordinal.
+     */
+    public void remove(V value, int ordinal) {
+        if (value == null) return;
+        BitSet bits = bitmaps.get(value);
+        if (bits == null) return;
+        bits.clear(ordinal);
+        if (bits.isEmpty()) bitmaps.remove(value);
+    }
+
+    /**
+     * Intersects the given candidate set with the entries holding a value, in place.
+     * @param value The attribute value to keep.
+     * @param candidates The candidate ordinals, narrowed by this call.
+     */
+    public void retain(V value, BitSet candidates) {
+        candidates.and(bitmaps.getOrDefault(value, EMPTY));
+    }
+
+    /**
+     * Counts the entries holding a value without materializing them.
+     * @param value The attribute value.
+     * @return The number of entries holding the value.
+     */
+    public int cardinality(V value) {
+        BitSet bits = bitmaps.get(value);
+        return bits == null ? 0 : bits.cardinality();
+    }
+}
@@ -0,0 +1,59 @@
+package entities.database.indexes;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import entities.database.query.Attribute;
+
+/**
+ * A hash index from an attribute value to the entries holding it, optionally enforcing uniqueness.
+ * Declared through {@link IndexedStore#hashIndex} or {@link IndexedStore#uniqueIndex}.
+ * @param <K> The type of the primary key.
+ * @param <T> The type of the entity.
+ * @param <V> The type of the indexed attribute value.
+ */
+public class HashIndex<K, T, V> extends SecondaryIndex<K, T, V> {
+
+    private final boolean unique;
+    private final Map<V, Set<K>> postings = new HashMap<>();
+
+    HashIndex(IndexedStore<K, T> store, Attribute<T, V> attribute, boolean unique) {
+        super(store, attribute, unique ? "unique hash" : "hash");
+        this.unique = unique;
+    }
+
+    public boolean isUnique() { return unique; }
+
+    @Override
+    void check(K key, T entity) {
+        if (!unique) return;
+        V value = attribute.get(entity);
+        if (value == null) return;
+        Set<K> holders = postings.get(value);
+        if (holders != null && !holders.isEmpty() && !holders.contains(key)) {
+            throw new IllegalArgumentException("Duplicate value '" + value + "' for unique attribute " + attribute.getName() + ".");
+        }
+    }
+
+    @Override
+    void addPosting(V value, K key) {
+        postings.computeIfAbsent(value, v -> new LinkedHashSet<>()).add(key);
+    }
+
+    @Override
+    void removePosting(V value, K key) {
+        Set<K> keys = postings.get(value);
+        if (keys == null) return;
+        keys.remove(key);
+        if (keys.isEmpty()) postings.remove(value);
+    }
+
+    @Override
+    Collection<K> keysFor(V value) {
+        Set<K> keys = postings.get(value);
+        return keys == null ? Set.of() : keys;
+    }
+}
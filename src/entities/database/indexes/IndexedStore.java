@@ -0,0 +1,195 @@
+package entities.database.indexes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import entities.database.query.Attribute;
+import entities.database.query.QueryIndex;
+import entities.database.query.QueryPlanner;
+
+/**
+ * A primary map plus declaratively registered secondary indexes, kept consistent on every write.
+ * Repositories declare each access path once (e.g. {@code store.hashIndex(STATUS)}) and the store
+ * maintains it atomically with the primary map on put, remove and explicit {@link #reindex} calls
+ * (needed after in-place mutations such as {@code setStatus} that are not followed by a save).
+ * Primary-key reads are lock-free; writes and index reads synchronize on the store.
+ * Keys must be {@link Comparable}; the primary map is kept in key order.
+ * @param <K> The type of the primary key.
+ * @param <T> The type of the entity.
+ */
+public class IndexedStore<K, T> {
+
+    private final String name;
+    private final Function<T, K> keyExtractor;
+    private final NavigableMap<K, T> primary = new ConcurrentSkipListMap<>(); // Key-ordered, for keyset pagination
+    private final List<SecondaryIndex<K, T, ?>> indexes = new ArrayList<>();
+    private BiConsumer<K, T> writeListener; // E.g. publishes snapshot images; null if none
+
+    /**
+     * Creates an empty store.
+     * @param name The store name, used in index names and query plans.
+     * @param keyExtractor Reads the primary key from an entity.
+     */
+    public IndexedStore(String name, Function<T, K> keyExtractor) {
+        this.name = name;
+        this.keyExtractor = keyExtractor;
+    }
+
+    public String getName() { return name; }
+
+    // --- Index Declarations ---
+
+    /**
+     * Declares a non-unique hash index on an attribute.
+     * @param attribute The indexed attribute.
+     * @return The index, for direct lookups.
+     */
+    public synchronized <V> HashIndex<K, T, V> hashIndex(Attribute<T, V> attribute) {
+        return register(new HashIndex<>(this, attribute, false));
+    }
+
+    /**
+     * Declares a unique hash index on an attribute; writes that would duplicate a value are rejected.
+     * @param attribute The indexed attribute.
+     * @return The index, for direct lookups.
+     */
+    public synchronized <V> HashIndex<K, T, V> uniqueIndex(Attribute<T, V> attribute) {
+        return register(new HashIndex<>(this, attribute, true));
+    }
+
+    /**
+     * Declares a sorted index on an attribute, supporting range lookups.
+     * @param attribute The indexed attribute.
+     * @return The index, for direct lookups.
+     */
+    public synchronized <V extends Comparable<? super V>> SortedIndex<K, T, V> sortedIndex(Attribute<T, V> attribute) {
+        return register(new SortedIndex<>(this, attribute));
+    }
+
+    /**
+     * Declares a hash index on an NRIC attribute, keyed by the encoded NRIC rather than the string.
+     * @param attribute The indexed NRIC attribute.
+     * @return The index, for direct lookups.
+     */
+    public synchronized NricIndex<K, T> nricIndex(Attribute<T, String> attribute) {
+        return register(new NricIndex<>(this, attribute));
+    }
+
+    /**
+     * Registers a callback run under the store lock after every put, remove and re-index,
+     * with the stored entity (null after a remove). Used to publish snapshot images in write order.
+     * @param listener The callback.
+     */
+    public synchronized void onWrite(BiConsumer<K, T> listener) {
+        this.writeListener = listener;
+    }
+
+    private <I extends SecondaryIndex<K, T, ?>> I register(I index) {
+        for (Map.Entry<K, T> entry : primary.entrySet()) index.index(entry.getKey(), entry.getValue()); // Backfill
+        indexes.add(index);
+        return index;
+    }
+
+    // --- Writes ---
+
+    /**
+     * Inserts or replaces an entity and updates every index.
+     * @param entity The entity.
+     * @return The entity previously stored under the same key, or null.
+     * @throws IllegalArgumentException if a unique index would be violated (nothing is changed).
+     */
+    public synchronized T put(T entity) {
+        K key = keyExtractor.apply(entity);
+        for (SecondaryIndex<K, T, ?> index : indexes) index.check(key, entity);
+        T previous = primary.put(key, entity);
+        for (SecondaryIndex<K, T, ?> index : indexes) index.index(key, entity);
+        if (writeListener != null) writeListener.accept(key, entity);
+        return previous;
+    }
+
+    /**
+     * Inserts an entity only if its key is not stored yet.
+     * @param entity The entity.
+     * @return true if the entity was inserted.
+     */
+    public synchronized boolean putIfAbsent(T entity) {
+        if (primary.containsKey(keyExtractor.apply(entity))) return false;
+        put(entity);
+        return true;
+    }
+
+    /**
+     * Removes an entity and its index postings.
+     * @param key The primary key.
+     * @return The removed entity, or null if none was stored.
+     */
+    public synchronized T remove(K key) {
+        if (key == null) return null;
+        T removed = primary.remove(key);
+        if (removed != null) {
+            for (SecondaryIndex<K, T, ?> index : indexes) index.unindex(key);
+            if (writeListener != null) writeListener.accept(key, null);
+        }
+        return removed;
+    }
+
+    /**
+     * Re-indexes an entity after it was mutated in place.
+     * @param key The primary key.
+     * @return true if the key is stored (and was re-indexed).
+     * @throws IllegalArgumentException if the mutation violates a unique index (postings are left as they were).
+     */
+    public synchronized boolean reindex(K key) {
+        T entity = key == null ? null : primary.get(key);
+        if (entity == null) return false;
+        for (SecondaryIndex<K, T, ?> index : indexes) index.check(key, entity);
+        for (SecondaryIndex<K, T, ?> index : indexes) index.index(key, entity);
+        if (writeListener != null) writeListener.accept(key, entity);
+        return true;
+    }
+
+    // --- Reads ---
+
+    public T get(K key) {
+        return key == null ? null : primary.get(key);
+    }
+
+    public boolean containsKey(K key) {
+        return key != null && primary.containsKey(key);
+    }
+
+    /**
+     * Gets a live, weakly consistent view of the stored entities.
+     * @return Unmodifiable view of the values.
+     */
+    public Collection<T> values() {
+        return Collections.unmodifiableCollection(primary.values());
+    }
+
+    public int size() {
+        return primary.size();
+    }
+
+    /**
+     * Gets a live, key-ordered, weakly consistent view of the primary map, for keyset pagination.
+     * @return Unmodifiable navigable view.
+     */
+    public NavigableMap<K, T> orderedView() {
+        return Collections.unmodifiableNavigableMap(primary);
+    }
+
+    /**
+     * Creates a query planner over this store and its declared indexes.
+     * @return The planner.
+     */
+    public synchronized QueryPlanner<T> planner() {
+        return new QueryPlanner<>(name, this::values, this::size, new ArrayList<QueryIndex<T>>(indexes));
+    }
+}
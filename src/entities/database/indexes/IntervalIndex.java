@@ -0,0 +1,218 @@
+package entities.database.indexes;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * An interval tree over closed [low, high] ranges of epoch days.
+ * Implemented as a treap ordered by (low, key) where every node also tracks the
+ * largest high value in its subtree, so overlap queries can prune whole subtrees.
+ * Insert/remove are O(log n) expected and overlap queries are O(log n + k).
+ * @param <K> The type of the key identifying each interval (e.g. project name).
+ */
+public class IntervalIndex<K extends Comparable<K>> {
+
+    private static final class Node<K> {
+        final K key;
+        final long low;
+        final long high;
+        final int priority;
+        long maxHigh;
+        Node<K> left;
+        Node<K> right;
+
+        Node(K key, long low, long high, int priority) {
+            this.key = key;
+            this.low = low;
+            this.high = high;
+            this.priority = priority;
+            this.maxHigh = high;
+        }
+    }
+
+    private final Map<K, Node<K>> nodesByKey = new HashMap<>();
+    private final Random random = new Random();
+    private Node<K> root;
+
+    /**
+     * Converts a date to its epoch day in the system time zone (same zone the CSV dates are parsed in).
+     * @param date The date to convert.
+     * @return The epoch day of the date.
+     */
+    public static long epochDay(Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Inserts or replaces the interval stored for a key.
+     * @param key The key of the interval.
+     * @param low The first day of the interval (inclusive).
+     * @param high The last day of the interval (inclusive).
+     */
+    public synchronized void put(K key, long low, long high) {
+        if (key == null) throw new IllegalArgumentException("Interval key cannot be null.");
+        if (low > high) throw new IllegalArgumentException("Interval low cannot be after high.");
+        Node<K> existing = nodesByKey.get(key);
+        if (existing != null) {
+            if (existing.low == low && existing.high == high) return; // Unchanged
+            root = remove(root, existing);
+        }
+        Node<K> node = new Node<>(key, low, high, random.nextInt());
+        root = insert(root, node);
+        nodesByKey.put(key, node);
+    }
+
+    /**
+     * Removes the interval stored for a key.
+     * @param key The key of the interval.
+     * @return true if an interval was removed, false if the key was not indexed.
+     */
+    public synchronized boolean remove(K key) {
+        Node<K> existing = nodesByKey.remove(key);
+        if (existing == null) return false;
+        root = remove(root, existing);
+        return true;
+    }
+
+    /**
+     * Checks whether a key is indexed.
+     * @param key The key to check.
+     * @return true if the key has an interval in this index.
+     */
+    public synchronized boolean contains(K key) {
+        return nodesByKey.containsKey(key);
+    }
+
+    /**
+     * Finds the keys of all intervals overlapping [from, to], ordered by interval start.
+     * @param from The first day of the query range (inclusive).
+     * @param to The last day of the query range (inclusive).
+     * @return List of matching keys.
+     */
+    public synchronized List<K> findOverlapping(long from, long to) {
+        List<K> result = new ArrayList<>();
+        if (from <= to) collect(root, from, to, result);
+        return result;
+    }
+
+    /**
+     * Finds the keys of all intervals containing a single day.
+     * @param day The day to check.
+     * @return List of matching keys.
+     */
+    public List<K> findContaining(long day) {
+        return findOverlapping(day, day);
+    }
+
+    /**
+     * Checks whether any interval other than the excluded key overlaps [from, to].
+     * @param from The first day of the query range (inclusive).
+     * @param to The last day of the query range (inclusive).
+     * @param excludedKey Optional key to ignore (e.g. the project being edited), may be null.
+     * @return The key of an overlapping interval, or null if there is none.
+     */
+    public synchronized K findAnyOverlapping(long from, long to, K excludedKey) {
+        if (from > to) return null;
+        return findAny(root, from, to, excludedKey);
+    }
+
+    /**
+     * Counts the indexed intervals.
+     * @return The number of intervals.
+     */
+    public synchronized int size() {
+        return nodesByKey.size();
+    }
+
+    // --- Treap helpers ---
+
+    private void collect(Node<K> node, long from, long to, List<K> result) {
+        if (node == null || node.maxHigh < from) return; // Nothing in this subtree ends late enough
+        collect(node.left, from, to, result);
+        if (node.low > to) return; // This node and its right subtree all start too late
+        if (node.high >= from) result.add(node.key);
+        collect(node.right, from, to, result);
+    }
+
+    private K findAny(Node<K> node, long from, long to, K excludedKey) {
+        if (node == null || node.maxHigh < from) return null;
+        K found = findAny(node.left, from, to, excludedKey);
+        if (found != null) return found;
+        if (node.low > to) return null;
+        if (node.high >= from && !node.key.equals(excludedKey)) return node.key;
+        return findAny(node.right, from, to, excludedKey);
+    }
+
+    private int compare(Node<K> a, Node<K> b) {
+        int cmp = Long.compare(a.low, b.low);
+        return cmp != 0 ? cmp : a.key.compareTo(b.key);
+    }
+
+    private Node<K> insert(Node<K> node, Node<K> newNode) {
+        if (node == null) return newNode;
+        if (compare(newNode, node) < 0) {
+            node.left = insert(node.left, newNode);
+            if (node.left.priority > node.priority) node = rotateRight(node);
+        } else {
+            node.right = insert(node.right, newNode);
+            if (node.right.priority > node.priority) node = rotateLeft(node);
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<K> remove(Node<K> node, Node<K> target) {
+        if (node == null) return null;
+        if (node == target) return merge(node.left, node.right);
+        if (compare(target, node) < 0) {
+            node.left = remove(node.left, target);
+        } else {
+            node.right = remove(node.right, target);
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<K> merge(Node<K> left, Node<K> right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private Node<K> rotateRight(Node<K> node) {
+        Node<K> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node<K> rotateLeft(Node<K> node) {
+        Node<K> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private void update(Node<K> node) {
+        long max = node.high;
+        if (node.left != null && node.left.maxHigh > max) max = node.left.maxHigh;
+        if (node.right != null && node.right.maxHigh > max) max = node.right.maxHigh;
+        node.maxHigh = max;
+    }
+}
@@ -0,0 +1,155 @@
+package entities.database.indexes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * An in-memory full-text index with one postings list (document key to term frequency) per term,
+ * ranked with Okapi BM25. Documents are re-indexed in place, so callers can keep it in step
+ * with every save and delete.
+ * @param <K> The type of the document key (e.g. enquiry ID).
+ */
+public class InvertedIndex<K> {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    /**
+     * A ranked search result.
+     * @param <K> The type of the document key.
+     */
+    public static final class Hit<K> {
+        private final K key;
+        private final double score;
+
+        Hit(K key, double score) {
+            this.key = key;
+            this.score = score;
+        }
+
+        public K getKey() { return key; }
+        public double getScore() { return score; }
+    }
+
+    private final Map<String, Map<K, Integer>> postings = new HashMap<>();
+    private final Map<K, Map<String, Integer>> termsByDocument = new HashMap<>(); // For removal on re-index
+    private final Map<K, Integer> documentLengths = new HashMap<>();
+    private long totalLength;
+
+    /**
+     * Splits text into lower-case alphanumeric terms.
+     * @param text The text to tokenize, may be null.
+     * @return The terms in order of appearance.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) return terms;
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(Character.toLowerCase(c));
+            } else if (current.length() > 0) {
+                terms.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) terms.add(current.toString());
+        return terms;
+    }
+
+    /**
+     * Indexes (or re-indexes) a document, replacing any previous postings for its key.
+     * @param key The document key.
+     * @param text The full text of the document.
+     */
+    public synchronized void put(K key, String text) {
+        removeDocument(key);
+        List<String> terms = tokenize(text);
+        if (terms.isEmpty()) return;
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : terms) frequencies.merge(term, 1, Integer::sum);
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), t -> new HashMap<>()).put(key, entry.getValue());
+        }
+        termsByDocument.put(key, frequencies);
+        documentLengths.put(key, terms.size());
+        totalLength += terms.size();
+    }
+
+    /**
+     * Removes a document from the index.
+     * @param key The document key.
+     * @return true if the document was indexed.
+     */
+    public synchronized boolean remove(K key) {
+        return removeDocument(key);
+    }
+
+    /**
+     * Searches the index, ranking matches by BM25 score (highest first).
+     * @param query The free-text query.
+     * @param filter Optional filter on document keys (e.g. by project), may be null.
+     * @param limit Maximum number of hits to return.
+     * @return Ranked hits, at most limit of them.
+     */
+    public synchronized List<Hit<K>> search(String query, Predicate<K> filter, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>(tokenize(query));
+        int documentCount = documentLengths.size();
+        if (queryTerms.isEmpty() || documentCount == 0 || limit <= 0) return Collections.emptyList();
+        double averageLength = (double) totalLength / documentCount;
+
+        Map<K, Double> scores = new HashMap<>();
+        for (String term : queryTerms) {
+            Map<K, Integer> termPostings = postings.get(term);
+            if (termPostings == null) continue;
+            double idf = Math.log(1 + (documentCount - termPostings.size() + 0.5) / (termPostings.size() + 0.5));
+            for (Map.Entry<K, Integer> posting : termPostings.entrySet()) {
+                K key = posting.getKey();
+                if (filter != null && !filter.test(key)) continue;
+                int tf = posting.getValue();
+                double norm = K1 * (1 - B + B * documentLengths.get(key) / averageLength);
+                scores.merge(key, idf * (tf * (K1 + 1)) / (tf + norm), Double::sum);
+            }
+        }
+
+        // Keep the top hits with a bounded min-heap
+        PriorityQueue<Hit<K>> top = new PriorityQueue<>((a, b) -> Double.compare(a.score, b.score));
+        for (Map.Entry<K, Double> entry : scores.entrySet()) {
+            top.offer(new Hit<>(entry.getKey(), entry.getValue()));
+            if (top.size() > limit) top.poll();
+        }
+        List<Hit<K>> hits = new ArrayList<>(top);
+        hits.sort((a, b) -> Double.compare(b.score, a.score));
+        return hits;
+    }
+
+    /**
+     * Counts the indexed documents.
+     * @return The number of documents.
+     */
+    public synchronized int size() {
+        return documentLengths.size();
+    }
+
+    private boolean removeDocument(K key) {
+        Map<String, Integer> frequencies = termsByDocument.remove(key);
+        if (frequencies == null) return false;
+        for (String term : frequencies.keySet()) {
+            Map<K, Integer> termPostings = postings.get(term);
+            if (termPostings == null) continue;
+            termPostings.remove(key);
+            if (termPostings.isEmpty()) postings.remove(term);
+        }
+        Integer length = documentLengths.remove(key);
+        if (length != null) totalLength -= length;
+        return true;
+    }
+}
@@ -0,0 +1,185 @@
+package entities.database.indexes;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * An open-addressing hash map from primitive {@code long} keys to values, with linear probing
+ * and backward-shift deletion (no tombstones). Keys and values live in two parallel arrays,
+ * so an entry costs two array slots instead of a boxed key plus a node object.
+ * {@link Long#MIN_VALUE} is reserved as the empty-slot marker and cannot be used as a key.
+ * Not thread-safe; callers synchronize around it.
+ * @param <V> The type of the values.
+ */
+public class LongObjectMap<V> {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int MIN_CAPACITY = 16;
+    private static final double LOAD_FACTOR = 0.6;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    /** Creates an empty map. */
+    public LongObjectMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map sized for an expected number of entries.
+     * @param expectedSize The number of entries expected.
+     */
+    public LongObjectMap(int expectedSize) {
+        allocate(capacityFor(Math.max(expectedSize, 1)));
+    }
+
+    /**
+     * Gets the value mapped to a key.
+     * @param key The key.
+     * @return The value, or null if the key is absent.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int slot = find(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    /**
+     * Checks whether a key is present.
+     * @param key The key.
+     * @return true if the key is mapped.
+     */
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Maps a key to a value, replacing any previous value.
+     * @param key The key (not {@link Long#MIN_VALUE}).
+     * @param value The value, not null.
+     * @return The previous value, or null.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (key == EMPTY) throw new IllegalArgumentException("Key " + key + " is reserved.");
+        if (value == null) throw new IllegalArgumentException("Null values are not supported.");
+        int slot = slotOf(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size >= resizeAt) allocateAndRehash(keys.length * 2);
+        return null;
+    }
+
+    /**
+     * Removes the mapping for a key.
+     * @param key The key.
+     * @return The removed value, or null if the key was absent.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int slot = find(key);
+        if (slot < 0) return null;
+        V previous = (V) values[slot];
+        // Backward-shift: pull later entries of the probe run into the gap
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = slotOf(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        values[gap] = null;
+        size--;
+        return previous;
+    }
+
+    /**
+     * Visits every value, in slot order.
+     * @param action The action applied to each value.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) action.accept((V) values[i]);
+        }
+    }
+
+    /** @return The number of entries. */
+    public int size() {
+        return size;
+    }
+
+    /** @return true if the map has no entries. */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Removes every entry, keeping the current capacity. */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    private int find(long key) {
+        if (key == EMPTY) return -1;
+        int slot = slotOf(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int slotOf(long key) {
+        // Finalizer of MurmurHash3's 64-bit mix; encoded NRICs are dense, so spread them first
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private static int capacityFor(int entries) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR <= entries) capacity <<= 1;
+        return capacity;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void allocateAndRehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) continue;
+            int slot = slotOf(oldKeys[i]);
+            while (keys[slot] != EMPTY) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+}
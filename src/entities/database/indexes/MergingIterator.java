@@ -0,0 +1,55 @@
+package entities.database.indexes;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Lazily merges several individually sorted iterators into one sorted sequence (k-way merge).
+ * Each element costs O(log p) for p sources, so reading the first k elements of
+ * p queues is O(p + k log p) instead of collecting and sorting everything.
+ * @param <T> The type of the elements.
+ */
+public class MergingIterator<T> implements Iterator<T> {
+
+    private static final class Head<T> {
+        final T value;
+        final Iterator<? extends T> source;
+
+        Head(T value, Iterator<? extends T> source) {
+            this.value = value;
+            this.source = source;
+        }
+    }
+
+    private final PriorityQueue<Head<T>> heads;
+
+    /**
+     * Creates a merging iterator.
+     * @param sources Iterators that are each sorted by the comparator.
+     * @param comparator The order shared by all sources.
+     */
+    public MergingIterator(Collection<? extends Iterator<? extends T>> sources, Comparator<? super T> comparator) {
+        this.heads = new PriorityQueue<>(Math.max(1, sources.size()), (a, b) -> comparator.compare(a.value, b.value));
+        for (Iterator<? extends T> source : sources) advance(source);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !heads.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        Head<T> head = heads.poll();
+        if (head == null) throw new NoSuchElementException();
+        advance(head.source);
+        return head.value;
+    }
+
+    private void advance(Iterator<? extends T> source) {
+        if (source.hasNext()) heads.offer(new Head<>(source.next(), source));
+    }
+}
@@ -0,0 +1,124 @@
+package entities.database.indexes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps immutable images of entities by commit sequence, so readers that pinned a sequence on the
+ * {@link SnapshotClock} see every entity as it was at that point while writers carry on.
+ * Each key holds a short chain of versions, newest first; versions no pinned reader can reach
+ * are dropped on the next write to the key or when the oldest pin is released.
+ * Images must not be modified once published.
+ * @param <K> The type of the key.
+ * @param <V> The type of the published images.
+ */
+public class MultiVersionStore<K, V> {
+
+    private static final class Version<V> {
+        final long sequence;
+        final V value; // Null marks a deletion
+        final Version<V> older;
+
+        Version(long sequence, V value, Version<V> older) {
+            this.sequence = sequence;
+            this.value = value;
+            this.older = older;
+        }
+    }
+
+    private final SnapshotClock clock;
+    private final Map<K, Version<V>> chains = new ConcurrentHashMap<>();
+    private final Set<K> stale = ConcurrentHashMap.newKeySet(); // Keys holding old versions or a deletion marker
+
+    /**
+     * Creates an empty store on a clock.
+     * @param clock The clock sequencing commits and pins.
+     */
+    public MultiVersionStore(SnapshotClock clock) {
+        this.clock = clock;
+        clock.register(this);
+    }
+
+    /**
+     * Publishes the current image of an entity as the next committed version, or as part of the batch
+     * open on this thread (see {@link SnapshotClock#atomically}). The image is taken and given its sequence
+     * under the lock, so the versions of a key are always in write order.
+     * @param key The key.
+     * @param lock The monitor guarding writes of the entity; every publish of a key must use the same one.
+     * @param image Takes an immutable image of the entity as it is now, or null if it no longer exists.
+     */
+    public void publish(K key, Object lock, Supplier<? extends V> image) {
+        clock.commit(this, key, lock, (sequence, horizon) -> {
+            V value = image.get();
+            chains.compute(key, (k, head) -> trim(k, new Version<>(sequence, value, head), horizon));
+        });
+    }
+
+    /**
+     * Reads an entity as of a pinned sequence.
+     * @param key The key.
+     * @param sequence The pinned sequence.
+     * @return The image visible at the sequence, or null if the entity did not exist then.
+     */
+    public V read(K key, long sequence) {
+        return visible(chains.get(key), sequence);
+    }
+
+    /**
+     * Reads every entity as of a pinned sequence.
+     * @param sequence The pinned sequence.
+     * @return The images visible at the sequence, in no particular order.
+     */
+    public List<V> readAll(long sequence) {
+        List<V> images = new ArrayList<>(chains.size());
+        for (Version<V> head : chains.values()) {
+            V value = visible(head, sequence);
+            if (value != null) images.add(value);
+        }
+        return images;
+    }
+
+    /** Drops versions that no pinned reader can reach any more. */
+    void vacuum() {
+        if (stale.isEmpty()) return;
+        clock.withHorizon(horizon -> {
+            for (K key : stale) chains.computeIfPresent(key, (k, head) -> trim(k, head, horizon));
+        });
+    }
+
+    private static <V> V visible(Version<V> head, long sequence) {
+        for (Version<V> version = head; version != null; version = version.older) {
+            if (version.sequence <= sequence) return version.value;
+        }
+        return null;
+    }
+
+    /** Keeps the versions newer than the horizon plus the newest one at or below it; null removes the key. */
+    private Version<V> trim(K key, Version<V> head, long horizon) {
+        List<Version<V>> kept = new ArrayList<>(2);
+        for (Version<V> version = head; version != null; version = version.older) {
+            kept.add(version);
+            if (version.sequence <= horizon) break;
+        }
+        Version<V> last = kept.get(kept.size() - 1);
+        if (kept.size() == 1 && last.value == null && last.sequence <= horizon) { // Deleted and unreachable
+            stale.remove(key);
+            return null;
+        }
+        Version<V> trimmed = head;
+        if (last.older != null) { // Rebuild the kept prefix without the dropped tail
+            trimmed = null;
+            for (int i = kept.size() - 1; i >= 0; i--) {
+                Version<V> version = kept.get(i);
+                trimmed = new Version<>(version.sequence, version.value, trimmed);
+            }
+        }
+        if (kept.size() == 1 && last.value != null) stale.remove(key);
+        else stale.add(key);
+        return trimmed;
+    }
+}
@@ -0,0 +1,59 @@
+package entities.database.indexes;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import entities.database.query.Attribute;
+import utilities.NricCodec;
+
+/**
+ * A hash index on an NRIC attribute, for per-user document lookups.
+ * Postings are keyed by the {@link NricCodec} encoding in a primitive open-addressing map;
+ * NRICs outside the standard format fall back to a string-keyed map. Lookups are case-insensitive.
+ * Declared through {@link IndexedStore#nricIndex}.
+ * @param <K> The type of the primary key.
+ * @param <T> The type of the entity.
+ */
+public class NricIndex<K, T> extends SecondaryIndex<K, T, String> {
+
+    private final LongObjectMap<Set<K>> postings = new LongObjectMap<>();
+    private final Map<String, Set<K>> irregularPostings = new HashMap<>();
+
+    NricIndex(IndexedStore<K, T> store, Attribute<T, String> attribute) {
+        super(store, attribute, "nric");
+    }
+
+    @Override
+    void addPosting(String nric, K key) {
+        long code = NricCodec.encode(nric);
+        Set<K> keys;
+        if (code != NricCodec.NONE) {
+            keys = postings.get(code);
+            if (keys == null) postings.put(code, keys = new LinkedHashSet<>(2));
+        } else {
+            keys = irregularPostings.computeIfAbsent(nric.toUpperCase(), n -> new LinkedHashSet<>(2));
+        }
+        keys.add(key);
+    }
+
+    @Override
+    void removePosting(String nric, K key) {
+        long code = NricCodec.encode(nric);
+        Set<K> keys = code != NricCodec.NONE ? postings.get(code) : irregularPostings.get(nric.toUpperCase());
+        if (keys == null) return;
+        keys.remove(key);
+        if (!keys.isEmpty()) return;
+        if (code != NricCodec.NONE) postings.remove(code);
+        else irregularPostings.remove(nric.toUpperCase());
+    }
+
+    @Override
+    Collection<K> keysFor(String nric) {
+        long code = NricCodec.encode(nric);
+        Set<K> keys = code != NricCodec.NONE ? postings.get(code) : irregularPostings.get(nric.toUpperCase());
+        return keys == null ? Set.of() : keys;
+    }
+}
@@ -0,0 +1,93 @@
+package entities.database.indexes;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns dense integer ordinals to keys so they can be addressed by bit position.
+ * Ordinals of removed keys are recycled, keeping bitmaps compact as entries come and go.
+ * Not thread-safe; callers synchronize around it together with the bitmaps it addresses.
+ * @param <K> The type of the keys.
+ */
+public class OrdinalMap<K> {
+
+    private final Map<K, Integer> ordinalsByKey = new HashMap<>();
+    private final List<K> keysByOrdinal = new ArrayList<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final BitSet live = new BitSet();
+
+    /**
+     * Gets the ordinal of a key, assigning a new one if the key is not known yet.
+     * @param key The key.
+     * @return The ordinal of the key.
+     */
+    public int ordinalOf(K key) {
+        Integer existing = ordinalsByKey.get(key);
+        if (existing != null) return existing;
+        int ordinal;
+        if (!freeOrdinals.isEmpty()) {
+            ordinal = freeOrdinals.pop();
+            keysByOrdinal.set(ordinal, key);
+        } else {
+            ordinal = keysByOrdinal.size();
+            keysByOrdinal.add(key);
+        }
+        ordinalsByKey.put(key, ordinal);
+        live.set(ordinal);
+        return ordinal;
+    }
+
+    /**
+     * Looks up the ordinal of a key without assigning one.
+     * @param key The key.
+     * @return The ordinal, or -1 if the key is not known.
+     */
+    public int find(K key) {
+        Integer existing = ordinalsByKey.get(key);
+        return existing == null ? -1 : existing;
+    }
+
+    /**
+     * Releases the ordinal of a key so it can be reused.
+     * @param key The key.
+     * @return The released ordinal, or -1 if the key was not known.
+     */
+    public int release(K key) {
+        Integer ordinal = ordinalsByKey.remove(key);
+        if (ordinal == null) return -1;
+        keysByOrdinal.set(ordinal, null);
+        live.clear(ordinal);
+        freeOrdinals.push(ordinal);
+        return ordinal;
+    }
+
+    /**
+     * Gets the key assigned to an ordinal.
+     * @param ordinal The ordinal.
+     * @return The key, or null if the ordinal is free.
+     */
+    public K keyAt(int ordinal) {
+        return ordinal >= 0 && ordinal < keysByOrdinal.size() ? keysByOrdinal.get(ordinal) : null;
+    }
+
+    /**
+     * Gets a copy of the bitmap of ordinals currently in use.
+     * @return A new BitSet with one bit per live key.
+     */
+    public BitSet liveOrdinals() {
+        return (BitSet) live.clone();
+    }
+
+    /**
+     * Counts the keys currently holding an ordinal.
+     * @return The number of live keys.
+     */
+    public int size() {
+        return ordinalsByKey.size();
+    }
+}
@@ -0,0 +1,106 @@
+package entities.database.indexes;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Splits keys into partitions (e.g. by marital status) and keeps each partition sorted by an
+ * integer rank (e.g. age), so "partition P with rank in [lo, hi]" is a range read whose boundaries
+ * are found in O(log n). Writes synchronize on the index; reads are lock-free and weakly consistent.
+ * @param <P> The type of the partition value.
+ * @param <K> The type of the keys (e.g. NRIC).
+ */
+public class PartitionedRangeIndex<P, K extends Comparable<? super K>> {
+
+    private static final class Entry<K> {
+        final int rank;
+        final K key; // null only in boundary probes, ordered before every key of the same rank
+
+        Entry(int rank, K key) {
+            this.rank = rank;
+            this.key = key;
+        }
+    }
+
+    private static final class Position<P, K> {
+        final P partition;
+        final Entry<K> entry;
+
+        Position(P partition, Entry<K> entry) {
+            this.partition = partition;
+            this.entry = entry;
+        }
+    }
+
+    private final Comparator<Entry<K>> order = Comparator.<Entry<K>>comparingInt(e -> e.rank)
+            .thenComparing(e -> e.key, Comparator.nullsFirst(Comparator.naturalOrder()));
+    private final Map<P, NavigableSet<Entry<K>>> partitions = new ConcurrentHashMap<>();
+    private final Map<K, Position<P, K>> positions = new ConcurrentHashMap<>();
+
+    /**
+     * Inserts or moves a key.
+     * @param key The key.
+     * @param partition The partition value (null values are not indexed).
+     * @param rank The rank within the partition.
+     */
+    public synchronized void put(K key, P partition, int rank) {
+        remove(key);
+        if (partition == null) return;
+        Entry<K> entry = new Entry<>(rank, key);
+        partitions.computeIfAbsent(partition, p -> new ConcurrentSkipListSet<>(order)).add(entry);
+        positions.put(key, new Position<>(partition, entry));
+    }
+
+    /**
+     * Removes a key.
+     * @param key The key.
+     * @return true if the key was indexed.
+     */
+    public synchronized boolean remove(K key) {
+        Position<P, K> old = positions.remove(key);
+        if (old == null) return false;
+        NavigableSet<Entry<K>> partition = partitions.get(old.partition);
+        if (partition != null) partition.remove(old.entry);
+        return true;
+    }
+
+    /**
+     * Finds the keys of a partition whose rank lies in an inclusive range, in rank order.
+     * @param partition The partition value.
+     * @param minRank The lowest rank to include.
+     * @param maxRank The highest rank to include.
+     * @return The matching keys.
+     */
+    public List<K> range(P partition, int minRank, int maxRank) {
+        List<K> keys = new ArrayList<>();
+        for (Entry<K> entry : slice(partition, minRank, maxRank)) keys.add(entry.key);
+        return keys;
+    }
+
+    /**
+     * Counts the keys of a partition whose rank lies in an inclusive range, without materializing them.
+     * @param partition The partition value.
+     * @param minRank The lowest rank to include.
+     * @param maxRank The highest rank to include.
+     * @return The number of matching keys.
+     */
+    public int count(P partition, int minRank, int maxRank) {
+        return slice(partition, minRank, maxRank).size();
+    }
+
+    private NavigableSet<Entry<K>> slice(P partition, int minRank, int maxRank) {
+        NavigableSet<Entry<K>> entries = partition == null ? null : partitions.get(partition);
+        if (entries == null || minRank > maxRank) return new ConcurrentSkipListSet<>(order);
+        NavigableSet<Entry<K>> tail = entries.tailSet(new Entry<>(minRank, null), true);
+        return maxRank == Integer.MAX_VALUE ? tail : tail.headSet(new Entry<>(maxRank + 1, null), false);
+    }
+
+    public int size() {
+        return positions.size();
+    }
+}
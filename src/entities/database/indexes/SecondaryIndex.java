@@ -0,0 +1,135 @@
+package entities.database.indexes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import entities.database.query.Attribute;
+import entities.database.query.Condition;
+import entities.database.query.QueryIndex;
+
+/**
+ * Base class of the secondary indexes maintained by an {@link IndexedStore}.
+ * Remembers the value each entry was indexed under, so re-indexing after an in-place
+ * mutation removes the stale posting even though the entity no longer reports the old value.
+ * All methods run under the owning store's lock.
+ * @param <K> The type of the primary key.
+ * @param <T> The type of the entity.
+ * @param <V> The type of the indexed attribute value.
+ */
+public abstract class SecondaryIndex<K, T, V> implements QueryIndex<T> {
+
+    protected final IndexedStore<K, T> store;
+    protected final Attribute<T, V> attribute;
+    private final String name;
+    private final Map<K, V> indexedValues = new HashMap<>();
+
+    SecondaryIndex(IndexedStore<K, T> store, Attribute<T, V> attribute, String kind) {
+        this.store = store;
+        this.attribute = attribute;
+        this.name = store.getName() + "." + attribute.getName() + " (" + kind + ")";
+    }
+
+    public Attribute<T, V> getAttribute() { return attribute; }
+
+    @Override
+    public String getName() { return name; }
+
+    // --- Maintenance, called by the store under its lock ---
+
+    /** Fails before anything is mutated if indexing the entity would violate a constraint. */
+    void check(K key, T entity) {}
+
+    void index(K key, T entity) {
+        V value = attribute.get(entity);
+        V old = indexedValues.get(key);
+        if (old != null && old.equals(value)) return; // Unchanged
+        if (old != null) {
+            indexedValues.remove(key);
+            removePosting(old, key);
+        }
+        if (value != null) {
+            indexedValues.put(key, value);
+            addPosting(value, key);
+        }
+    }
+
+    void unindex(K key) {
+        V old = indexedValues.remove(key);
+        if (old != null) removePosting(old, key);
+    }
+
+    /** @return The value the key is currently indexed under, or null. */
+    V indexedValue(K key) {
+        return indexedValues.get(key);
+    }
+
+    abstract void addPosting(V value, K key);
+
+    abstract void removePosting(V value, K key);
+
+    abstract Collection<K> keysFor(V value);
+
+    // --- Reads ---
+
+    /**
+     * Finds the entities currently indexed under a value.
+     * @param value The attribute value.
+     * @return A snapshot list of the matching entities.
+     */
+    public List<T> find(V value) {
+        synchronized (store) {
+            return resolve(value == null ? List.of() : keysFor(value));
+        }
+    }
+
+    /**
+     * Counts the entities currently indexed under a value.
+     * @param value The attribute value.
+     * @return The number of matching entities.
+     */
+    public int count(V value) {
+        synchronized (store) {
+            return value == null ? 0 : keysFor(value).size();
+        }
+    }
+
+    List<T> resolve(Collection<K> keys) {
+        List<T> result = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            T entity = store.get(key);
+            if (entity != null) result.add(entity);
+        }
+        return result;
+    }
+
+    // --- Query planner hooks ---
+
+    @Override
+    public boolean supports(Condition<T> condition) {
+        return condition.getAttribute() == attribute && condition.getKind() != Condition.Kind.RANGE
+                && !condition.getValues().contains(null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public long estimate(Condition<T> condition) {
+        synchronized (store) {
+            long total = 0;
+            for (Object value : condition.getValues()) total += keysFor((V) value).size();
+            return total;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterable<T> lookup(Condition<T> condition) {
+        synchronized (store) {
+            List<K> keys = new ArrayList<>();
+            for (Object value : condition.getValues()) keys.addAll(keysFor((V) value));
+            return resolve(keys);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package entities.database.indexes;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * The commit sequence shared by every {@link MultiVersionStore}, plus the set of sequences pinned by
+ * open snapshots. Writers take a new sequence per committed change; readers pin the latest committed
+ * sequence and see every store as of that point. Versions older than the oldest pin (the horizon)
+ * are reclaimed, on the next write to their key or when the pin holding them back is released.
+ * <p>A change takes its sequence and is applied under the lock guarding writes of its entry, so the versions
+ * of one entry are always in sequence order. Writers of unrelated entries never wait for each other: a sequence
+ * becomes visible to readers once it and every earlier sequence are in place, and whichever writer completes
+ * the run advances the committed sequence; nobody waits for a slower writer.
+ * Writes made inside {@link #atomically} (e.g. the saves of a unit of work) share one sequence, so a reader
+ * sees all of them or none; their images are taken when the batch commits, under the locks of all its entries.
+ */
+public final class SnapshotClock {
+
+    /** A change committed at a sequence; the horizon is the oldest sequence any reader can still ask for. */
+    interface Commit {
+        void apply(long sequence, long horizon);
+    }
+
+    /** A change deferred to the end of a batch, with the lock it must be applied under. */
+    private static final class Deferred {
+        final Object lock;
+        final Commit change;
+
+        Deferred(Object lock, Commit change) {
+            this.lock = lock;
+            this.change = change;
+        }
+    }
+
+    private static final SnapshotClock GLOBAL = new SnapshotClock();
+    private static final Comparator<Object> LOCK_ORDER = Comparator.comparingInt(System::identityHashCode);
+
+    private final AtomicLong issued = new AtomicLong();
+    private volatile long committed;
+    private final Set<Long> finished = ConcurrentHashMap.newKeySet(); // Applied sequences above the committed one
+    private final Object tieLock = new Object(); // Taken first by batches whose locks cannot be ordered by identity hash
+    // Pins change under the write lock; writers read the horizon under the (shared) read lock
+    private final ReadWriteLock pinLock = new ReentrantReadWriteLock();
+    private final TreeMap<Long, Integer> pins = new TreeMap<>(); // Pinned sequence -> number of open snapshots
+    private final List<MultiVersionStore<?, ?>> stores = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Map<Object, Deferred>> batches = new ThreadLocal<>(); // Deferred changes of the open batch, by entry
+
+    /** @return The clock shared by the repositories. */
+    public static SnapshotClock global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Pins the latest committed sequence for a reader.
+     * @return The pinned sequence; pass it to {@link #unpin} when the read is over.
+     */
+    public long pin() {
+        pinLock.writeLock().lock();
+        try {
+            long sequence = committed;
+            pins.merge(sequence, 1, Integer::sum);
+            return sequence;
+        } finally {
+            pinLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Releases a pin; when it was the oldest, versions only it needed are reclaimed.
+     * @param sequence The sequence returned by {@link #pin}.
+     */
+    public void unpin(long sequence) {
+        boolean horizonMoved;
+        pinLock.writeLock().lock();
+        try {
+            Integer count = pins.get(sequence);
+            if (count == null) return;
+            horizonMoved = sequence == pins.firstKey() && count == 1;
+            if (count == 1) pins.remove(sequence);
+            else pins.put(sequence, count - 1);
+        } finally {
+            pinLock.writeLock().unlock();
+        }
+        if (horizonMoved) {
+            for (MultiVersionStore<?, ?> store : stores) store.vacuum();
+        }
+    }
+
+    /** @return The latest committed sequence. */
+    public long committed() {
+        return committed;
+    }
+
+    /** @return The number of open snapshots. */
+    public int pinnedCount() {
+        pinLock.readLock().lock();
+        try {
+            int total = 0;
+            for (int count : pins.values()) total += count;
+            return total;
+        } finally {
+            pinLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs an action whose published entries all commit under one sequence when it returns, so no reader
+     * sees part of it. Images are taken at that point, under the locks of every entry in the batch, so a write
+     * of one of them made meanwhile outside the batch is never overtaken by an older image.
+     * Nothing is published if the action throws. Nested calls join the outer batch.
+     * @param action The action, e.g. the repository saves of a unit of work.
+     * @return The action's result.
+     */
+    public <T> T atomically(Supplier<T> action) {
+        if (batches.get() != null) return action.get(); // Joins the open batch
+        Map<Object, Deferred> batch = new LinkedHashMap<>();
+        batches.set(batch);
+        T result;
+        try {
+            result = action.get();
+        } finally {
+            batches.remove();
+        }
+        if (!batch.isEmpty()) {
+            List<Object> locks = new ArrayList<>(distinctLocks(batch));
+            locks.sort(LOCK_ORDER); // One global order, so two batches never wait on each other's locks
+            Commit combined = (sequence, horizon) -> {
+                for (Deferred deferred : batch.values()) deferred.change.apply(sequence, horizon);
+            };
+            if (hasTies(locks)) {
+                synchronized (tieLock) {
+                    commitLocked(locks, 0, combined);
+                }
+            } else {
+                commitLocked(locks, 0, combined);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Commits a change of one entry under the lock guarding its writes, or defers it to the batch open on this thread.
+     * @param store The store the entry belongs to.
+     * @param key The entry key.
+     * @param lock The monitor guarding writes of the entry.
+     * @param change The change; reads the entry's current image when applied.
+     */
+    void commit(MultiVersionStore<?, ?> store, Object key, Object lock, Commit change) {
+        Map<Object, Deferred> batch = batches.get();
+        if (batch != null) {
+            batch.put(new AbstractMap.SimpleImmutableEntry<>(store, key), new Deferred(lock, change));
+            return;
+        }
+        synchronized (lock) {
+            commit(change);
+        }
+    }
+
+    private void commitLocked(List<Object> locks, int index, Commit change) {
+        if (index == locks.size()) {
+            commit(change);
+            return;
+        }
+        synchronized (locks.get(index)) {
+            commitLocked(locks, index + 1, change);
+        }
+    }
+
+    private void commit(Commit change) {
+        long sequence = issued.incrementAndGet();
+        try {
+            change.apply(sequence, horizon());
+        } finally {
+            complete(sequence);
+        }
+    }
+
+    /**
+     * Marks a sequence as applied and advances the committed sequence over every applied sequence that
+     * follows it without a gap. Whoever applies the sequence that closes a gap advances past it, so no
+     * writer waits for an earlier one; until then readers simply pin the earlier, complete state.
+     */
+    private void complete(long sequence) {
+        finished.add(sequence);
+        long current;
+        // Only the thread that removes committed + 1 moves committed, so the plain write below cannot race
+        while (finished.remove((current = committed) + 1)) committed = current + 1;
+    }
+
+    private static Set<Object> distinctLocks(Map<Object, Deferred> batch) {
+        Set<Object> locks = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Deferred deferred : batch.values()) locks.add(deferred.lock);
+        return locks;
+    }
+
+    private static boolean hasTies(List<Object> sortedLocks) {
+        for (int i = 1; i < sortedLocks.size(); i++) {
+            if (LOCK_ORDER.compare(sortedLocks.get(i - 1), sortedLocks.get(i)) == 0) return true;
+        }
+        return false;
+    }
+
+    void withHorizon(LongConsumer action) {
+        action.accept(horizon());
+    }
+
+    /**
+     * Gets the oldest sequence a reader can ask for. Pins never go below the committed sequence read
+     * here, so a horizon is never above any pin taken after it was read.
+     */
+    private long horizon() {
+        pinLock.readLock().lock();
+        try {
+            long current = committed;
+            return pins.isEmpty() ? current : Math.min(current, pins.firstKey());
+        } finally {
+            pinLock.readLock().unlock();
+        }
+    }
+
+    void register(MultiVersionStore<?, ?> store) {
+        stores.add(store);
+    }
+}
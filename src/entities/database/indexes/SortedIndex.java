@@ -0,0 +1,91 @@
+package entities.database.indexes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import entities.database.query.Attribute;
+import entities.database.query.Condition;
+
+/**
+ * A sorted index from an attribute value to the entries holding it, answering range
+ * conditions and ordered walks as well as equality. Declared through {@link IndexedStore#sortedIndex}.
+ * @param <K> The type of the primary key.
+ * @param <T> The type of the entity.
+ * @param <V> The type of the indexed attribute value.
+ */
+public class SortedIndex<K, T, V extends Comparable<? super V>> extends SecondaryIndex<K, T, V> {
+
+    private final NavigableMap<V, Set<K>> postings = new TreeMap<>();
+
+    SortedIndex(IndexedStore<K, T> store, Attribute<T, V> attribute) {
+        super(store, attribute, "sorted");
+    }
+
+    @Override
+    void addPosting(V value, K key) {
+        postings.computeIfAbsent(value, v -> new LinkedHashSet<>()).add(key);
+    }
+
+    @Override
+    void removePosting(V value, K key) {
+        Set<K> keys = postings.get(value);
+        if (keys == null) return;
+        keys.remove(key);
+        if (keys.isEmpty()) postings.remove(value);
+    }
+
+    @Override
+    Collection<K> keysFor(V value) {
+        Set<K> keys = postings.get(value);
+        return keys == null ? Set.of() : keys;
+    }
+
+    /**
+     * Finds the entities whose value lies in an inclusive range, in ascending value order.
+     * @param lower The lower bound, or null for none.
+     * @param upper The upper bound, or null for none.
+     * @return A snapshot list of the matching entities.
+     */
+    public List<T> findBetween(V lower, V upper) {
+        synchronized (store) {
+            return resolve(rangeKeys(lower, upper));
+        }
+    }
+
+    private List<K> rangeKeys(V lower, V upper) {
+        NavigableMap<V, Set<K>> range = postings;
+        if (lower != null && upper != null && lower.compareTo(upper) > 0) return List.of();
+        if (lower != null) range = range.tailMap(lower, true);
+        if (upper != null) range = range.headMap(upper, true);
+        List<K> keys = new ArrayList<>();
+        for (Set<K> bucket : range.values()) keys.addAll(bucket);
+        return keys;
+    }
+
+    @Override
+    public boolean supports(Condition<T> condition) {
+        if (condition.getAttribute() != attribute) return false;
+        return condition.getKind() == Condition.Kind.RANGE || !condition.getValues().contains(null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public long estimate(Condition<T> condition) {
+        if (condition.getKind() != Condition.Kind.RANGE) return super.estimate(condition);
+        synchronized (store) {
+            return rangeKeys((V) condition.getLower(), (V) condition.getUpper()).size();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterable<T> lookup(Condition<T> condition) {
+        if (condition.getKind() != Condition.Kind.RANGE) return super.lookup(condition);
+        return findBetween((V) condition.getLower(), (V) condition.getUpper());
+    }
+}
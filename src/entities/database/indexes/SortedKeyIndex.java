@@ -0,0 +1,112 @@
+package entities.database.indexes;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Keeps keys ordered by a precomputed sort key, so sorted listings are an ordered walk
+ * instead of a comparator sort on every request. Entries are re-positioned on each put.
+ * Null sort keys order last. Not thread-safe; callers synchronize around it.
+ * @param <K> The type of the keys (e.g. project name).
+ * @param <S> The type of the sort key.
+ */
+public class SortedKeyIndex<K, S extends Comparable<? super S>> {
+
+    private static final class Entry<K, S> {
+        final K key;
+        final S sortKey;
+        final String tieBreaker;
+
+        Entry(K key, S sortKey, String tieBreaker) {
+            this.key = key;
+            this.sortKey = sortKey;
+            this.tieBreaker = tieBreaker;
+        }
+    }
+
+    private final NavigableSet<Entry<K, S>> entries = new TreeSet<>(
+            Comparator.<Entry<K, S>, S>comparing(e -> e.sortKey, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparing(e -> e.tieBreaker));
+    private final Map<K, Entry<K, S>> entriesByKey = new HashMap<>();
+
+    /**
+     * Folds a string into a collation key that orders like {@link String#CASE_INSENSITIVE_ORDER}
+     * under plain {@code compareTo}, so the fold is paid once per write rather than per comparison.
+     * @param value The string, may be null.
+     * @return The collation key, or null.
+     */
+    public static String collationKey(String value) {
+        if (value == null) return null;
+        char[] folded = value.toCharArray();
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = Character.toLowerCase(Character.toUpperCase(folded[i]));
+        }
+        return new String(folded);
+    }
+
+    /**
+     * Inserts or re-positions a key.
+     * @param key The key.
+     * @param sortKey The sort key, may be null (ordered last).
+     * @param tieBreaker Orders keys with equal sort keys; must be unique per key.
+     */
+    public void put(K key, S sortKey, String tieBreaker) {
+        Entry<K, S> old = entriesByKey.remove(key);
+        if (old != null) entries.remove(old);
+        Entry<K, S> entry = new Entry<>(key, sortKey, tieBreaker);
+        entries.add(entry);
+        entriesByKey.put(key, entry);
+    }
+
+    /**
+     * Removes a key.
+     * @param key The key.
+     * @return true if the key was present.
+     */
+    public boolean remove(K key) {
+        Entry<K, S> old = entriesByKey.remove(key);
+        if (old == null) return false;
+        entries.remove(old);
+        return true;
+    }
+
+    /**
+     * Walks the keys in sort order.
+     * @param ascending true for ascending order, false for descending.
+     * @return An iterator over the keys; invalidated by writes.
+     */
+    public Iterator<K> keys(boolean ascending) {
+        return keysOf(ascending ? entries.iterator() : entries.descendingIterator());
+    }
+
+    private static <K, S> Iterator<K> keysOf(Iterator<Entry<K, S>> walk) {
+        return new Iterator<K>() {
+            @Override
+            public boolean hasNext() { return walk.hasNext(); }
+
+            @Override
+            public K next() { return walk.next().key; }
+        };
+    }
+
+    /**
+     * Walks the keys strictly after a position, in sort order. The position is given by its sort key
+     * and tie breaker, so it can be resumed even if the key there has since been removed.
+     * @param sortKey The sort key of the position.
+     * @param tieBreaker The tie breaker of the position.
+     * @param ascending true for ascending order, false for descending.
+     * @return An iterator over the keys after the position; invalidated by writes.
+     */
+    public Iterator<K> keysAfter(S sortKey, String tieBreaker, boolean ascending) {
+        Entry<K, S> probe = new Entry<>(null, sortKey, tieBreaker);
+        return keysOf(ascending ? entries.tailSet(probe, false).iterator() : entries.headSet(probe, false).descendingIterator());
+    }
+
+    public int size() {
+        return entriesByKey.size();
+    }
+}
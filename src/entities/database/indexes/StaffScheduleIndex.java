@@ -0,0 +1,89 @@
+package entities.database.indexes;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-staff schedule of project assignments, keyed by staff NRIC.
+ * Each staff member gets an {@link IntervalIndex} of the application periods of the
+ * projects they are assigned to, so "is this person busy during [a,b]?" is O(log n)
+ * regardless of how many historical projects they have.
+ */
+public class StaffScheduleIndex {
+
+    private final Map<String, IntervalIndex<String>> schedulesByStaff = new HashMap<>();
+    private final Map<String, Set<String>> staffByProject = new HashMap<>(); // Reverse map for re-indexing
+
+    /**
+     * Replaces the recorded assignments of a project.
+     * Staff no longer in the collection are unassigned, the rest get the (possibly new) period.
+     * @param projectName The project name.
+     * @param staffNrics The NRICs of the staff assigned to the project.
+     * @param openDay The first day of the application period (epoch day).
+     * @param closeDay The last day of the application period (epoch day).
+     */
+    public synchronized void recordProject(String projectName, Collection<String> staffNrics, long openDay, long closeDay) {
+        Set<String> newStaff = new HashSet<>();
+        for (String nric : staffNrics) {
+            if (nric != null) newStaff.add(nric.toUpperCase());
+        }
+        Set<String> oldStaff = staffByProject.getOrDefault(projectName, Set.of());
+        for (String nric : oldStaff) {
+            if (!newStaff.contains(nric)) unassign(nric, projectName);
+        }
+        for (String nric : newStaff) {
+            schedulesByStaff.computeIfAbsent(nric, k -> new IntervalIndex<>()).put(projectName, openDay, closeDay);
+        }
+        if (newStaff.isEmpty()) {
+            staffByProject.remove(projectName);
+        } else {
+            staffByProject.put(projectName, newStaff);
+        }
+    }
+
+    /**
+     * Removes every assignment recorded for a project.
+     * @param projectName The project name.
+     */
+    public synchronized void removeProject(String projectName) {
+        Set<String> oldStaff = staffByProject.remove(projectName);
+        if (oldStaff == null) return;
+        for (String nric : oldStaff) unassign(nric, projectName);
+    }
+
+    /**
+     * Finds a project assigned to the staff member whose period overlaps [fromDay, toDay].
+     * @param staffNric The staff NRIC.
+     * @param fromDay The first day of the period to check (epoch day).
+     * @param toDay The last day of the period to check (epoch day).
+     * @param excludedProjectName Optional project to ignore (e.g. the one being edited), may be null.
+     * @return The name of a conflicting project, or null if the staff member is free.
+     */
+    public synchronized String findConflict(String staffNric, long fromDay, long toDay, String excludedProjectName) {
+        if (staffNric == null) return null;
+        IntervalIndex<String> schedule = schedulesByStaff.get(staffNric.toUpperCase());
+        return schedule == null ? null : schedule.findAnyOverlapping(fromDay, toDay, excludedProjectName);
+    }
+
+    /**
+     * Checks whether the staff member has an assignment overlapping [fromDay, toDay].
+     * @param staffNric The staff NRIC.
+     * @param fromDay The first day of the period to check (epoch day).
+     * @param toDay The last day of the period to check (epoch day).
+     * @param excludedProjectName Optional project to ignore, may be null.
+     * @return true if there is a conflicting assignment.
+     */
+    public boolean hasConflict(String staffNric, long fromDay, long toDay, String excludedProjectName) {
+        return findConflict(staffNric, fromDay, toDay, excludedProjectName) != null;
+    }
+
+    private void unassign(String nric, String projectName) {
+        IntervalIndex<String> schedule = schedulesByStaff.get(nric);
+        if (schedule == null) return;
+        schedule.remove(projectName);
+        if (schedule.size() == 0) schedulesByStaff.remove(nric);
+    }
+}
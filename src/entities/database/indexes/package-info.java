@@ -0,0 +1,5 @@
+/**
+ * This package contains the in-memory index structures used by the repositories.
+ */
+
+package entities.database.indexes;
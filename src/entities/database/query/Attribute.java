@@ -0,0 +1,46 @@
+package entities.database.query;
+
+import java.util.function.Function;
+
+/**
+ * A named, typed attribute of an entity that queries can filter and sort on.
+ * Repositories publish their attributes as constants so indexes can be matched to conditions.
+ * @param <T> The type of the entity.
+ * @param <V> The type of the attribute value.
+ */
+public final class Attribute<T, V> {
+
+    private final String name;
+    private final Function<? super T, ? extends V> getter;
+
+    private Attribute(String name, Function<? super T, ? extends V> getter) {
+        this.name = name;
+        this.getter = getter;
+    }
+
+    /**
+     * Declares an attribute.
+     * @param name The attribute name (used in query plans).
+     * @param getter Reads the attribute value from an entity.
+     * @return The attribute.
+     */
+    public static <T, V> Attribute<T, V> of(String name, Function<? super T, ? extends V> getter) {
+        return new Attribute<>(name, getter);
+    }
+
+    public String getName() { return name; }
+
+    /**
+     * Reads the attribute value from an entity.
+     * @param entity The entity.
+     * @return The value, may be null.
+     */
+    public V get(T entity) {
+        return entity == null ? null : getter.apply(entity);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
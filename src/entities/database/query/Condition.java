@@ -0,0 +1,95 @@
+package entities.database.query;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A single predicate on an attribute: equality, membership in a set, or an inclusive range.
+ * @param <T> The type of the entity.
+ */
+public final class Condition<T> {
+
+    /** The kind of predicate. */
+    public enum Kind {
+        /** Attribute equals a value. */
+        EQUALS,
+        /** Attribute is one of a set of values. */
+        IN,
+        /** Attribute lies in an inclusive range (either bound may be open). */
+        RANGE
+    }
+
+    private final Attribute<T, ?> attribute;
+    private final Kind kind;
+    private final Set<Object> values;
+    private final Comparable<Object> lower;
+    private final Comparable<Object> upper;
+
+    private Condition(Attribute<T, ?> attribute, Kind kind, Set<Object> values, Comparable<Object> lower, Comparable<Object> upper) {
+        this.attribute = Objects.requireNonNull(attribute, "Condition attribute cannot be null");
+        this.kind = kind;
+        this.values = values;
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    static <T, V> Condition<T> equalTo(Attribute<T, V> attribute, V value) {
+        return new Condition<>(attribute, Kind.EQUALS, Collections.singleton(value), null, null);
+    }
+
+    static <T, V> Condition<T> in(Attribute<T, V> attribute, Collection<? extends V> values) {
+        return new Condition<>(attribute, Kind.IN, Collections.unmodifiableSet(new LinkedHashSet<Object>(values)), null, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T, V extends Comparable<? super V>> Condition<T> between(Attribute<T, V> attribute, V lower, V upper) {
+        return new Condition<>(attribute, Kind.RANGE, null, (Comparable<Object>) lower, (Comparable<Object>) upper);
+    }
+
+    public Attribute<T, ?> getAttribute() { return attribute; }
+    public Kind getKind() { return kind; }
+
+    /**
+     * Gets the accepted values of an EQUALS or IN condition.
+     * @return The values (a single value for EQUALS), or an empty set for RANGE.
+     */
+    public Set<Object> getValues() { return values == null ? Collections.emptySet() : values; }
+
+    /** @return The inclusive lower bound of a RANGE condition, or null if open. */
+    public Object getLower() { return lower; }
+
+    /** @return The inclusive upper bound of a RANGE condition, or null if open. */
+    public Object getUpper() { return upper; }
+
+    /**
+     * Evaluates the condition against an entity.
+     * @param entity The entity.
+     * @return true if the entity satisfies the condition.
+     */
+    public boolean test(T entity) {
+        Object value = attribute.get(entity);
+        switch (kind) {
+            case EQUALS:
+            case IN:
+                return values.contains(value);
+            case RANGE:
+                if (value == null) return false;
+                if (lower != null && lower.compareTo(value) > 0) return false;
+                return upper == null || upper.compareTo(value) >= 0;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case EQUALS: return attribute + " = " + values.iterator().next();
+            case IN: return attribute + " IN " + values;
+            default: return attribute + " BETWEEN " + (lower != null ? lower : "-inf") + " AND " + (upper != null ? upper : "+inf");
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package entities.database.query;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Adapts an existing value-to-entities index (hash map, bitmap, queue, ...) to the planner,
+ * answering EQUALS and IN conditions on one attribute.
+ * @param <T> The type of the entity.
+ * @param <V> The type of the indexed attribute value.
+ */
+public class KeyedQueryIndex<T, V> implements QueryIndex<T> {
+
+    private final String name;
+    private final Attribute<T, V> attribute;
+    private final ToLongFunction<V> counter;
+    private final Function<V, ? extends Iterable<T>> lookup;
+
+    /**
+     * Creates the adapter.
+     * @param name The index name shown in plans.
+     * @param attribute The indexed attribute.
+     * @param counter Counts the entities stored under a value (cheap, no materialization);
+     *                return Long.MAX_VALUE for values the index cannot answer, so the planner never picks it.
+     * @param lookup Returns the entities stored under a value.
+     */
+    public KeyedQueryIndex(String name, Attribute<T, V> attribute, ToLongFunction<V> counter, Function<V, ? extends Iterable<T>> lookup) {
+        this.name = name;
+        this.attribute = attribute;
+        this.counter = counter;
+        this.lookup = lookup;
+    }
+
+    @Override
+    public String getName() { return name; }
+
+    @Override
+    public boolean supports(Condition<T> condition) {
+        return condition.getAttribute() == attribute && condition.getKind() != Condition.Kind.RANGE;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public long estimate(Condition<T> condition) {
+        long total = 0;
+        for (Object value : condition.getValues()) {
+            if (value == null) continue;
+            long count = counter.applyAsLong((V) value);
+            total = count >= Long.MAX_VALUE - total ? Long.MAX_VALUE : total + count; // Saturate for "unsupported value" counts
+        }
+        return total;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterable<T> lookup(Condition<T> condition) {
+        Set<Object> values = condition.getValues();
+        if (values.size() == 1) {
+            Object value = values.iterator().next();
+            return value == null ? List.of() : lookup.apply((V) value);
+        }
+        Set<T> result = new LinkedHashSet<>(); // Normalized keys may map several values to the same entities
+        for (Object value : values) {
+            if (value == null) continue;
+            for (T entity : lookup.apply((V) value)) result.add(entity);
+        }
+        return new ArrayList<>(result);
+    }
+}
@@ -0,0 +1,118 @@
+package entities.database.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A typed criteria query: a conjunction of conditions, an optional sort order and an optional limit.
+ * Build one fluently and pass it to {@code IRepository.query} (or {@code explain} to see the plan).
+ * @param <T> The type of the entity.
+ */
+public class Query<T> {
+
+    private final List<Condition<T>> conditions = new ArrayList<>();
+    private Comparator<? super T> order;
+    private String orderDescription;
+    private int limit = Integer.MAX_VALUE;
+
+    /**
+     * Requires an attribute to equal a value.
+     * @param attribute The attribute.
+     * @param value The required value.
+     * @return This query.
+     */
+    public <V> Query<T> where(Attribute<T, V> attribute, V value) {
+        conditions.add(Condition.equalTo(attribute, value));
+        return this;
+    }
+
+    /**
+     * Requires an attribute to be one of the given values (e.g. a set of statuses or project names).
+     * @param attribute The attribute.
+     * @param values The accepted values.
+     * @return This query.
+     */
+    public <V> Query<T> whereIn(Attribute<T, V> attribute, Collection<? extends V> values) {
+        conditions.add(Condition.in(attribute, values));
+        return this;
+    }
+
+    /**
+     * Requires a status-like attribute to be one of the given values.
+     * @param attribute The attribute.
+     * @param statuses The accepted statuses.
+     * @return This query.
+     */
+    @SafeVarargs
+    public final <V extends Enum<V>> Query<T> whereStatus(Attribute<T, V> attribute, V... statuses) {
+        List<V> values = new ArrayList<>(statuses.length); // Copied element-wise, so the varargs array is never passed on
+        for (V status : statuses) values.add(status);
+        return values.size() == 1 ? where(attribute, values.get(0)) : whereIn(attribute, values);
+    }
+
+    /**
+     * Requires an attribute to lie in an inclusive range.
+     * @param attribute The attribute.
+     * @param lower The lower bound, or null for none.
+     * @param upper The upper bound, or null for none.
+     * @return This query.
+     */
+    public <V extends Comparable<? super V>> Query<T> whereBetween(Attribute<T, V> attribute, V lower, V upper) {
+        conditions.add(Condition.between(attribute, lower, upper));
+        return this;
+    }
+
+    /**
+     * Sorts results by an attribute (nulls last).
+     * @param attribute The attribute to sort on.
+     * @param ascending true for ascending order.
+     * @return This query.
+     */
+    public <V extends Comparable<? super V>> Query<T> orderBy(Attribute<T, V> attribute, boolean ascending) {
+        Comparator<T> comparator = Comparator.comparing(attribute::get, Comparator.nullsLast(Comparator.<V>naturalOrder()));
+        return orderBy(ascending ? comparator : comparator.reversed(), attribute + (ascending ? " ASC" : " DESC"));
+    }
+
+    /**
+     * Sorts results with a custom comparator.
+     * @param comparator The comparator.
+     * @param description How the order is shown in query plans.
+     * @return This query.
+     */
+    public Query<T> orderBy(Comparator<? super T> comparator, String description) {
+        this.order = comparator;
+        this.orderDescription = description;
+        return this;
+    }
+
+    /**
+     * Caps the number of results.
+     * @param limit The maximum number of results.
+     * @return This query.
+     */
+    public Query<T> limit(int limit) {
+        if (limit < 0) throw new IllegalArgumentException("Query limit cannot be negative.");
+        this.limit = limit;
+        return this;
+    }
+
+    public List<Condition<T>> getConditions() { return Collections.unmodifiableList(conditions); }
+    public Comparator<? super T> getOrder() { return order; }
+    public String getOrderDescription() { return orderDescription; }
+    public int getLimit() { return limit; }
+
+    /**
+     * Evaluates every condition against an entity.
+     * @param entity The entity.
+     * @return true if the entity satisfies all conditions.
+     */
+    public boolean matches(T entity) {
+        for (Condition<T> condition : conditions) {
+            if (!condition.test(entity)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,37 @@
+package entities.database.query;
+
+/**
+ * An access path the query planner can use instead of a full scan.
+ * Lookups may return a superset of the matching entities (e.g. case-normalized keys);
+ * the planner always re-checks every condition on the rows an index returns.
+ * @param <T> The type of the entity.
+ */
+public interface QueryIndex<T> {
+
+    /**
+     * Gets the name of the index, as shown in query plans.
+     * @return The index name.
+     */
+    String getName();
+
+    /**
+     * Checks whether this index can answer a condition.
+     * @param condition The condition.
+     * @return true if {@link #lookup} can be used for it.
+     */
+    boolean supports(Condition<T> condition);
+
+    /**
+     * Estimates how many entities a lookup would return, without materializing them.
+     * @param condition A supported condition.
+     * @return An upper-bound estimate of the rows returned.
+     */
+    long estimate(Condition<T> condition);
+
+    /**
+     * Looks up the candidate entities for a condition.
+     * @param condition A supported condition.
+     * @return The candidate entities.
+     */
+    Iterable<T> lookup(Condition<T> condition);
+}
@@ -0,0 +1,85 @@
+package entities.database.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * An executable plan for a {@link Query}: the chosen access path, the residual filter, sort and limit.
+ * Produced by {@link QueryPlanner}.
+ * @param <T> The type of the entity.
+ */
+public class QueryPlan<T> {
+
+    private final String source;
+    private final Query<T> query;
+    private final QueryIndex<T> index;        // null for a full scan
+    private final Condition<T> drivingCondition;
+    private final long estimatedRows;
+    private final Supplier<? extends Iterable<T>> scan;
+
+    QueryPlan(String source, Query<T> query, QueryIndex<T> index, Condition<T> drivingCondition,
+              long estimatedRows, Supplier<? extends Iterable<T>> scan) {
+        this.source = source;
+        this.query = query;
+        this.index = index;
+        this.drivingCondition = drivingCondition;
+        this.estimatedRows = estimatedRows;
+        this.scan = scan;
+    }
+
+    /**
+     * Checks whether the plan uses an index rather than a full scan.
+     * @return true if an index drives the plan.
+     */
+    public boolean usesIndex() {
+        return index != null;
+    }
+
+    /**
+     * Runs the plan.
+     * @return The matching entities, sorted and limited as the query requires.
+     */
+    public List<T> execute() {
+        Iterable<T> candidates = index != null ? index.lookup(drivingCondition) : scan.get();
+        int limit = query.getLimit();
+        boolean sorted = query.getOrder() != null;
+        List<T> result = new ArrayList<>();
+        for (T entity : candidates) {
+            if (!sorted && result.size() >= limit) break; // Unsorted queries can stop early
+            if (entity != null && query.matches(entity)) result.add(entity);
+        }
+        if (sorted) {
+            result.sort(query.getOrder());
+            if (result.size() > limit) return new ArrayList<>(result.subList(0, limit));
+        }
+        return result;
+    }
+
+    /**
+     * Describes the chosen plan, e.g. for logging or diagnosing slow listings.
+     * @return A one-line plan description.
+     */
+    public String explain() {
+        StringBuilder plan = new StringBuilder();
+        if (index != null) {
+            plan.append("INDEX ").append(index.getName()).append(" (").append(drivingCondition).append(")");
+        } else {
+            plan.append("SCAN ").append(source);
+        }
+        plan.append(" ~").append(estimatedRows).append(" rows");
+        List<String> residual = new ArrayList<>();
+        for (Condition<T> condition : query.getConditions()) {
+            if (condition != drivingCondition) residual.add(condition.toString());
+        }
+        if (!residual.isEmpty()) plan.append(" -> FILTER ").append(String.join(" AND ", residual));
+        if (query.getOrder() != null) plan.append(" -> SORT ").append(query.getOrderDescription());
+        if (query.getLimit() != Integer.MAX_VALUE) plan.append(" -> LIMIT ").append(query.getLimit());
+        return plan.toString();
+    }
+
+    @Override
+    public String toString() {
+        return explain();
+    }
+}
@@ -0,0 +1,65 @@
+package entities.database.query;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Chooses an access path for a {@link Query}: the most selective index that supports one of its
+ * conditions (by estimated row count), or a full scan when no index beats it.
+ * @param <T> The type of the entity.
+ */
+public class QueryPlanner<T> {
+
+    private final String source;
+    private final Supplier<? extends Iterable<T>> scan;
+    private final LongSupplier size;
+    private final List<QueryIndex<T>> indexes;
+
+    /**
+     * Creates a planner.
+     * @param source The name of the scanned source, as shown in plans.
+     * @param scan Supplies every entity for a full scan.
+     * @param size Counts the entities (the cost of a full scan).
+     * @param indexes The indexes available to the planner.
+     */
+    public QueryPlanner(String source, Supplier<? extends Iterable<T>> scan, LongSupplier size, List<QueryIndex<T>> indexes) {
+        this.source = source;
+        this.scan = scan;
+        this.size = size;
+        this.indexes = List.copyOf(indexes);
+    }
+
+    /**
+     * Plans a query without running it.
+     * @param query The query.
+     * @return The chosen plan.
+     */
+    public QueryPlan<T> plan(Query<T> query) {
+        long scanCost = size.getAsLong();
+        QueryIndex<T> bestIndex = null;
+        Condition<T> bestCondition = null;
+        long bestCost = scanCost;
+        for (Condition<T> condition : query.getConditions()) {
+            for (QueryIndex<T> index : indexes) {
+                if (!index.supports(condition)) continue;
+                long cost = index.estimate(condition);
+                if (bestIndex == null ? cost <= bestCost : cost < bestCost) {
+                    bestIndex = index;
+                    bestCondition = condition;
+                    bestCost = cost;
+                }
+            }
+        }
+        return new QueryPlan<>(source, query, bestIndex, bestCondition, bestCost, scan);
+    }
+
+    /**
+     * Plans and runs a query.
+     * @param query The query.
+     * @return The matching entities.
+     */
+    public List<T> execute(Query<T> query) {
+        return plan(query).execute();
+    }
+}
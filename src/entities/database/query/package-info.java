@@ -0,0 +1,5 @@
+/**
+ * This package contains the criteria query API and the index-aware query planner used by the repositories.
+ */
+
+package entities.database.query;
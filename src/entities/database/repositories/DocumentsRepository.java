@@ -64,6 +64,24 @@ public class DocumentsRepository { // Not implementing IRepository<IBaseSubmitta
         }
     }
 
+    /**
+     * Re-indexes a document after an in-place mutation (e.g. {@code setStatus}) that is not followed
+     * by a save, so status and project lookups stop returning it under its old values.
+     * @param document The mutated document.
+     */
+    public void reindexDocument(IBaseSubmittableDocument document) {
+        if (document instanceof ProjectApplication) {
+            applicationRepository.reindex((ProjectApplication) document);
+        } else if (document instanceof ProjectRegistration) {
+            registrationRepository.reindex((ProjectRegistration) document);
+        } else if (document instanceof Withdrawal) {
+            withdrawalRepository.reindex((Withdrawal) document);
+        } else if (document instanceof Enquiry) {
+            Enquiry enquiry = (Enquiry) document;
+            if (enquiryRepository.findById(enquiry.getDocumentID()).isPresent()) enquiryRepository.save(enquiry); // Save re-indexes enquiries
+        }
+    }
+
     public void saveAllDocuments() {
         System.out.println("Saving all user types to CSV...");
         applicationRepository.saveToFile();
@@ -153,14 +171,22 @@ public class DocumentsRepository { // Not implementing IRepository<IBaseSubmitta
      * @return A combined list of all documents.
      */
     public List<IBaseSubmittableDocument> findAllDocuments() {
+        return streamAllDocuments().collect(Collectors.toList());
+    }
+
+    /**
+     * Streams every document across the four repositories without copying them first.
+     * Weakly consistent, like {@link IRepository#stream()}; call {@code parallel()} for large aggregations.
+     * @return A stream over all documents.
+     */
+    public Stream<IBaseSubmittableDocument> streamAllDocuments() {
         return Stream.of(
-                applicationRepository.findAll().stream(),
-                registrationRepository.findAll().stream(),
-                withdrawalRepository.findAll().stream(),
-                enquiryRepository.findAll().stream()
+                applicationRepository.stream(),
+                registrationRepository.stream(),
+                withdrawalRepository.stream(),
+                enquiryRepository.stream()
             )
-            .flatMap(docStream -> docStream)
-            .collect(Collectors.toList());
+            .flatMap(docStream -> docStream);
     }
 
     // --- Getters for specific repositories ---
@@ -1,7 +1,14 @@
 package entities.database.repositories;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import entities.database.query.Query;
+import entities.database.query.QueryPlanner;
 
 /**
  * A generic repository interface defining common data access operations.
@@ -29,6 +36,39 @@ public interface IRepository<T, ID> {
      */
     List<T> findAll();
 
+    /**
+     * Gets a live, unmodifiable view of all entities, backed directly by the repository's map.
+     * Iteration is weakly consistent: it never throws ConcurrentModificationException and may or may
+     * not reflect writes made after it started. Use {@link #findAll()} when a stable snapshot is needed.
+     * @return The live view of the entities.
+     */
+    Collection<T> values();
+
+    /**
+     * Streams all entities without copying them, with {@link #values()} semantics.
+     * @return A sequential stream over the live view.
+     */
+    default Stream<T> stream() {
+        return values().stream();
+    }
+
+    /**
+     * Streams all entities in parallel without copying them; the backing maps' spliterators split
+     * their bins or skip-list levels across workers.
+     * @return A parallel stream over the live view.
+     */
+    default Stream<T> parallelStream() {
+        return values().parallelStream();
+    }
+
+    /**
+     * Runs an action for every entity without copying them, with {@link #values()} semantics.
+     * @param action The action.
+     */
+    default void forEach(Consumer<? super T> action) {
+        values().forEach(action);
+    }
+
     /**
      * Deletes an entity by its ID.
      * @param id The ID of the entity to delete.
@@ -48,4 +88,43 @@ public interface IRepository<T, ID> {
      * @return the total number of entities.
      */
     long count();
-}
\ No newline at end of file
+
+    /**
+     * Reads one page of entities in a stable key order, resuming after a cursor (keyset pagination).
+     * Costs O(page size) plus whatever the criteria skips, regardless of how many entities are stored.
+     * @param afterKey The key of the last entity of the previous page, or null for the first page.
+     * @param limit Maximum number of entities in the page.
+     * @param criteria Optional filter, may be null.
+     * @return The page, with the cursor for the next one.
+     */
+    Page<T, ID> findPage(ID afterKey, int limit, Predicate<? super T> criteria);
+
+    // --- Criteria Queries ---
+
+    /**
+     * Gets the planner used for criteria queries. Repositories with secondary indexes override this
+     * to register them; the default can only scan.
+     * @return The query planner for this repository.
+     */
+    default QueryPlanner<T> queryPlanner() {
+        return new QueryPlanner<>(getClass().getSimpleName(), this::values, this::count, List.of());
+    }
+
+    /**
+     * Runs a criteria query through the planner, using the most selective index available.
+     * @param query The query.
+     * @return The matching entities, sorted and limited as the query requires.
+     */
+    default List<T> query(Query<T> query) {
+        return queryPlanner().execute(query);
+    }
+
+    /**
+     * Describes how a criteria query would be executed, without running it.
+     * @param query The query.
+     * @return The chosen plan.
+     */
+    default String explain(Query<T> query) {
+        return queryPlanner().plan(query).explain();
+    }
+}
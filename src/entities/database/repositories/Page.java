@@ -0,0 +1,70 @@
+package entities.database.repositories;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.function.Predicate;
+
+/**
+ * One page of a keyset-paginated listing: the entities plus the cursor to pass as
+ * {@code afterKey} for the next page. The cursor is a key, not an offset, so pages stay
+ * stable while entities are added or removed elsewhere in the repository.
+ * @param <T> The type of the entity.
+ * @param <ID> The type of the entity's identifier.
+ */
+public final class Page<T, ID> {
+
+    private final List<T> items;
+    private final ID nextCursor;
+
+    public Page(List<T> items, ID nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() { return items; }
+
+    /** @return The key to resume after, or null if this is the last page. */
+    public ID getNextCursor() { return nextCursor; }
+
+    public boolean hasNext() { return nextCursor != null; }
+
+    /**
+     * Collects a page from entries walked in key order.
+     * Reads at most one matching entry beyond the page, to know whether another page exists.
+     * @param entries Key/entity pairs in key order, starting after the cursor.
+     * @param limit Maximum number of entities in the page.
+     * @param criteria Optional filter, may be null.
+     * @return The page.
+     */
+    public static <T, ID> Page<T, ID> collect(Iterator<? extends Map.Entry<ID, T>> entries, int limit, Predicate<? super T> criteria) {
+        if (limit <= 0) return new Page<>(new ArrayList<>(), null);
+        List<T> items = new ArrayList<>(Math.min(limit, 64));
+        ID lastKey = null;
+        while (entries.hasNext()) {
+            Map.Entry<ID, T> entry = entries.next();
+            T entity = entry.getValue();
+            if (entity == null || (criteria != null && !criteria.test(entity))) continue;
+            if (items.size() == limit) return new Page<>(items, lastKey); // A further match exists
+            items.add(entity);
+            lastKey = entry.getKey();
+        }
+        return new Page<>(items, null);
+    }
+
+    /**
+     * Collects a page from a key-ordered map, starting strictly after a cursor.
+     * @param map The key-ordered map.
+     * @param afterKey The cursor, or null for the first page.
+     * @param limit Maximum number of entities in the page.
+     * @param criteria Optional filter, may be null.
+     * @return The page.
+     */
+    public static <T, ID> Page<T, ID> after(NavigableMap<ID, T> map, ID afterKey, int limit, Predicate<? super T> criteria) {
+        NavigableMap<ID, T> tail = afterKey == null ? map : map.tailMap(afterKey, false);
+        return collect(tail.entrySet().iterator(), limit, criteria);
+    }
+}
@@ -1,12 +1,13 @@
 package entities.database.repositories;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import entities.project.*;
 import entities.user.*;
@@ -14,8 +15,26 @@ import java.util.Date;
 import java.text.SimpleDateFormat;
 import java.util.HashMap;
 import java.util.Comparator;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.AbstractMap;
+import java.util.function.Predicate;
 import utilities.*;
 import entities.database.*;
+import entities.database.indexes.AssignmentIndex;
+import entities.database.indexes.BitmapIndex;
+import entities.database.indexes.IntervalIndex;
+import entities.database.indexes.MultiVersionStore;
+import entities.database.indexes.OrdinalMap;
+import entities.database.indexes.SnapshotClock;
+import entities.database.indexes.SortedKeyIndex;
+import entities.database.indexes.StaffScheduleIndex;
+import entities.database.query.Attribute;
+import entities.database.query.KeyedQueryIndex;
+import entities.database.query.QueryPlanner;
 
 /**
  * This entity class is a repository for managing Project entities.
@@ -23,12 +42,97 @@ import entities.database.*;
  */
 public class ProjectsRepository implements IRepository<Project, String> {
 
+    // --- Query Attributes ---
+    public static final Attribute<Project, String> NAME = Attribute.of("name", Project::getName);
+    public static final Attribute<Project, String> NEIGHBOURHOOD = Attribute.of("neighbourhood", Project::getNeighbourhood);
+    public static final Attribute<Project, String> MANAGER_NRIC =
+            Attribute.of("managerNric", p -> p.getManager() != null ? p.getManager().getNric() : null);
+    public static final Attribute<Project, Boolean> VISIBLE = Attribute.of("visible", Project::isVisible);
+    public static final Attribute<Project, Date> OPEN_DATE = Attribute.of("applicationOpenDate", Project::getApplicationOpenDate);
+
     private final Map<String, Project> projectMap = new ConcurrentHashMap<>();
     private final String filename = "data/projects.csv"; // Define filename
     // Define a consistent date format for CSV read/write
     private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
+    // Application periods (open/close date as epoch days) keyed by project name
+    private final IntervalIndex<String> applicationPeriodIndex = new IntervalIndex<>();
+    // Per-staff assignment windows, used for availability checks
+    private final StaffScheduleIndex managerSchedule = new StaffScheduleIndex();
+    private final StaffScheduleIndex officerSchedule = new StaffScheduleIndex();
+    // Officer <-> project assignments, kept in step by each project's assignment listener
+    private final AssignmentIndex officerAssignments = new AssignmentIndex();
+    private final IOfficerAssignmentListener assignmentListener = new IOfficerAssignmentListener() {
+        @Override
+        public void officerAssigned(Project project, HdbOfficer officer) { indexOfficers(project); }
+
+        @Override
+        public void officerUnassigned(Project project, HdbOfficer officer) { indexOfficers(project); }
+    };
+    // Bitmap attribute indexes over dense project ordinals (guarded by bitmapLock)
+    // Bumped on every save, delete, visibility toggle or unit count change, so listing caches know when to recompute
+    private final AtomicLong version = new AtomicLong();
+    private final IProjectChangeListener changeListener = project -> {
+        if (projectMap.get(project.getName()) == project) version.incrementAndGet();
+    };
+
+    private final Object bitmapLock = new Object();
+    private final OrdinalMap<String> projectOrdinals = new OrdinalMap<>();
+    private final List<Project> projectsByOrdinal = new ArrayList<>();
+    private final Map<String, BitmapKeys> bitmapKeysByName = new HashMap<>(); // Values currently indexed, for re-indexing
+    private final BitmapIndex<String> neighbourhoodIndex = new BitmapIndex<>();
+    private final BitmapIndex<FlatType> flatTypeIndex = new BitmapIndex<>();
+    private final BitmapIndex<String> managerIndex = new BitmapIndex<>();
+    private final BitmapIndex<Boolean> visibilityIndex = new BitmapIndex<>();
+    // Sorted views of project names per sort order, keyed by precomputed collation keys (guarded by bitmapLock)
+    private final SortedKeyIndex<String, String> nameOrder = new SortedKeyIndex<>();
+    private final SortedKeyIndex<String, String> neighbourhoodOrder = new SortedKeyIndex<>();
+    private final SortedKeyIndex<String, String> managerOrder = new SortedKeyIndex<>();
+    private final SortedKeyIndex<String, Date> openDateOrder = new SortedKeyIndex<>();
+    // Detached copies of every saved project, for snapshot reads (see Database.openSnapshot)
+    private final MultiVersionStore<String, Project> versions = new MultiVersionStore<>(SnapshotClock.global());
+    private final Object[] publishLocks = new Object[64]; // Striped by name, so saves of different projects do not queue
+
+    /** The orders in which project listings can be walked. */
+    public enum SortOrder { NAME, NEIGHBOURHOOD, MANAGER, OPEN_DATE }
+
+    /** The attribute values a project was last indexed under. */
+    private static final class BitmapKeys {
+        final String neighbourhood;
+        final EnumSet<FlatType> flatTypes;
+        final String managerNric;
+        final boolean visible;
+
+        BitmapKeys(Project project) {
+            this.neighbourhood = normalizeNeighbourhood(project.getNeighbourhood());
+            this.flatTypes = EnumSet.noneOf(FlatType.class);
+            for (FlatType type : FlatType.values()) {
+                if (project.getInitialUnitCount(type) > 0) flatTypes.add(type);
+            }
+            this.managerNric = project.getManager() != null ? normalizeNric(project.getManager().getNric()) : null;
+            this.visible = project.isVisible();
+        }
+    }
 
-    public ProjectsRepository() {}
+    // Bitmap indexes exposed to the query planner (lookups are normalized; the planner re-checks exact values)
+    private final QueryPlanner<Project> planner = new QueryPlanner<>("projects", this::values, this::count, List.of(
+            new KeyedQueryIndex<>("projects.neighbourhood", NEIGHBOURHOOD,
+                    value -> bitmapCardinality(neighbourhoodIndex, normalizeNeighbourhood(value)),
+                    value -> findByCriteria(value, null, null, null, null)),
+            new KeyedQueryIndex<>("projects.manager", MANAGER_NRIC,
+                    value -> bitmapCardinality(managerIndex, normalizeNric(value)),
+                    value -> findByCriteria(null, null, value, null, null)),
+            new KeyedQueryIndex<>("projects.visibility", VISIBLE,
+                    value -> bitmapCardinality(visibilityIndex, value),
+                    value -> findByCriteria(null, null, null, value, null))));
+
+    public ProjectsRepository() {
+        for (int i = 0; i < publishLocks.length; i++) publishLocks[i] = new Object();
+    }
+
+    @Override
+    public QueryPlanner<Project> queryPlanner() {
+        return planner;
+    }
 
      // --- Load and Save Methods ---
      public void loadFromFile() {
@@ -190,9 +294,21 @@ public class ProjectsRepository implements IRepository<Project, String> {
             throw new IllegalArgumentException("Project/Name cannot be null or empty.");
         }
         projectMap.put(project.getName(), project);
+        indexProject(project); // Picks up in-place date/officer edits made before saving
+        publish(project.getName());
+        version.incrementAndGet();
         return project;
     }
     
+    /**
+     * Gets the change counter of the projects, bumped on any save, delete, visibility toggle or unit count change.
+     * A result computed while the counter held a value is current for as long as it still holds it.
+     * @return The current version.
+     */
+    public long version() {
+        return version.get();
+    }
+
     @Override
     public Optional<Project> findById(String projectName) { /* unchanged */
          if (projectName == null) return Optional.empty();
@@ -204,10 +320,40 @@ public class ProjectsRepository implements IRepository<Project, String> {
     @Override
     public List<Project> findAll() { /* unchanged */ return new ArrayList<>(projectMap.values()); }
 
+    @Override
+    public Collection<Project> values() { return Collections.unmodifiableCollection(projectMap.values()); }
+
+    /**
+     * Reads every project as it was at a pinned snapshot sequence.
+     * @param sequence The sequence pinned by a snapshot.
+     * @return Read-only copies of the projects visible at that sequence.
+     */
+    public List<Project> snapshotValues(long sequence) {
+        return versions.readAll(sequence);
+    }
+
+    /**
+     * Reads one project as it was at a pinned snapshot sequence.
+     * @param projectName The project name.
+     * @param sequence The sequence pinned by a snapshot.
+     * @return A read-only copy of the project, or empty if it did not exist then.
+     */
+    public Optional<Project> snapshotFind(String projectName, long sequence) {
+        if (projectName == null) return Optional.empty();
+        return Optional.ofNullable(versions.read(projectName, sequence));
+    }
+
      @Override
     public boolean deleteById(String projectName) { /* unchanged */
          if (projectName == null) return false;
-         return projectMap.remove(projectName) != null;
+         Project removed = projectMap.remove(projectName);
+         if (removed == null) return false;
+         removed.setOfficerAssignmentListener(null);
+         removed.setChangeListener(null);
+         unindexProject(projectName);
+         publish(projectName);
+         version.incrementAndGet();
+         return true;
     }
     @Override
     public boolean delete(Project project) { /* unchanged */
@@ -217,55 +363,143 @@ public class ProjectsRepository implements IRepository<Project, String> {
     @Override
     public long count() { /* unchanged */ return projectMap.size(); }
 
+    /**
+     * Pages through projects in case-insensitive name order (the order of the name view),
+     * resuming after the given project name.
+     */
+    @Override
+    public Page<Project, String> findPage(String afterName, int limit, Predicate<? super Project> criteria) {
+        synchronized (bitmapLock) {
+            Iterator<String> names = afterName == null
+                    ? nameOrder.keys(true)
+                    : nameOrder.keysAfter(SortedKeyIndex.collationKey(afterName), afterName, true);
+            Iterator<Map.Entry<String, Project>> entries = new Iterator<Map.Entry<String, Project>>() {
+                @Override
+                public boolean hasNext() { return names.hasNext(); }
+
+                @Override
+                public Map.Entry<String, Project> next() {
+                    String name = names.next();
+                    return new AbstractMap.SimpleImmutableEntry<>(name, projectMap.get(name));
+                }
+            };
+            return Page.collect(entries, limit, criteria);
+        }
+    }
+
 
     // --- Requirement Specific Finders (Implementations) ---
 
-    public List<Project> findVisibleToApplicants() { /* unchanged */
-        return projectMap.values().stream()
-                         .filter(Project::isVisible)
-                         .collect(Collectors.toList());
+    public List<Project> findVisibleToApplicants() {
+        return findByCriteria(null, null, null, true, null);
     }
 
     public List<Project> findByCriteria(String neighborhoodFilter, FlatType flatTypeFilter,
                                         String managerNricFilter, Boolean visibilityFilter,
                                         Date[] dateRangeFilter) {
 
-        Stream<Project> projectStream = projectMap.values().stream();
+        synchronized (bitmapLock) {
+            BitSet candidates = candidateOrdinals(neighborhoodFilter, flatTypeFilter, managerNricFilter, visibilityFilter, dateRangeFilter);
 
-        // Apply filters... (logic as implemented previously)
-        if (neighborhoodFilter != null && !neighborhoodFilter.trim().isEmpty()) {
-            final String finalNeighFilter = neighborhoodFilter.trim(); // For use in lambda
-            projectStream = projectStream.filter(project -> project.getNeighbourhood()
-                                            .equalsIgnoreCase(finalNeighFilter));
+            // Return filtered list (sorting done by the caller, or use findByCriteriaSorted)
+            List<Project> result = new ArrayList<>(candidates.cardinality());
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                result.add(projectsByOrdinal.get(i));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Same filters as {@link #findByCriteria}, returned in the requested order by walking the
+     * matching sorted view and keeping the projects in the candidate bitmap.
+     * @param sortOrder The order to list projects in (null means by name).
+     * @param ascending true for ascending order.
+     * @return The matching projects, sorted.
+     */
+    public List<Project> findByCriteriaSorted(String neighborhoodFilter, FlatType flatTypeFilter,
+                                              String managerNricFilter, Boolean visibilityFilter,
+                                              Date[] dateRangeFilter, SortOrder sortOrder, boolean ascending) {
+        synchronized (bitmapLock) {
+            BitSet candidates = candidateOrdinals(neighborhoodFilter, flatTypeFilter, managerNricFilter, visibilityFilter, dateRangeFilter);
+            return walkSorted(candidates, sortOrder, ascending);
+        }
+    }
+
+    /**
+     * Puts a collection of stored projects into the requested order by walking the sorted view.
+     * Projects that are not stored (or are stale copies) are left out.
+     * @param projects The projects to order.
+     * @param sortOrder The order to list projects in (null means by name).
+     * @param ascending true for ascending order.
+     * @return The distinct stored projects, sorted.
+     */
+    public List<Project> inSortedOrder(Collection<Project> projects, SortOrder sortOrder, boolean ascending) {
+        synchronized (bitmapLock) {
+            BitSet candidates = new BitSet();
+            for (Project project : projects) {
+                if (project == null) continue;
+                int ordinal = projectOrdinals.find(project.getName());
+                if (ordinal >= 0 && projectsByOrdinal.get(ordinal) == project) candidates.set(ordinal);
             }
+            return walkSorted(candidates, sortOrder, ascending);
+        }
+    }
 
+    private BitSet candidateOrdinals(String neighborhoodFilter, FlatType flatTypeFilter,
+                                     String managerNricFilter, Boolean visibilityFilter, Date[] dateRangeFilter) {
+        // Attribute filters are bitmap intersections; no Project object is touched until the end
+        BitSet candidates = projectOrdinals.liveOrdinals();
+        if (neighborhoodFilter != null && !neighborhoodFilter.trim().isEmpty()) {
+            neighbourhoodIndex.retain(normalizeNeighbourhood(neighborhoodFilter), candidates);
+        }
         if (flatTypeFilter != null) {
-        projectStream = projectStream.filter(project -> project.getInitialUnitCount(flatTypeFilter) > 0);
+            flatTypeIndex.retain(flatTypeFilter, candidates);
         }
         if (managerNricFilter != null && !managerNricFilter.trim().isEmpty()) {
-            final String finalManagerNric = managerNricFilter.trim(); // For use in lambda
-            projectStream = projectStream.filter(project -> project.getManager() != null &&
-                                project.getManager().getNric().equalsIgnoreCase(finalManagerNric));
-            }
-        
+            managerIndex.retain(normalizeNric(managerNricFilter), candidates);
+        }
         if (visibilityFilter != null) {
-                projectStream = projectStream.filter(project -> project.isVisible() == visibilityFilter);
-                }
+            visibilityIndex.retain(visibilityFilter, candidates);
+        }
 
-        
         if (dateRangeFilter != null && dateRangeFilter.length == 2 &&
                 dateRangeFilter[0] != null && dateRangeFilter[1] != null &&
                 !dateRangeFilter[0].after(dateRangeFilter[1])) { // Check for valid range
-                    final Date filterStart = dateRangeFilter[0];
-                    final Date filterEnd = dateRangeFilter[1];
-                    projectStream = projectStream.filter(project ->
-                        project.getApplicationOpenDate() != null && project.getApplicationCloseDate() != null &&
-                        !project.getApplicationOpenDate().after(filterEnd) && // Project starts before or when filter ends
-                        !project.getApplicationCloseDate().before(filterStart) // Project ends after or when filter starts
-                    );
+            // Date range is answered by the interval index, then intersected with the candidate bitmap
+            BitSet open = new BitSet();
+            for (Project project : findOpenDuring(dateRangeFilter[0], dateRangeFilter[1])) {
+                int ordinal = projectOrdinals.find(project.getName());
+                if (ordinal >= 0) open.set(ordinal);
             }
-        // Return filtered list (sorting removed)
-        return projectStream.collect(Collectors.toList()); // COLLECT WITHOUT SORTING HERE
+            candidates.and(open);
+        }
+        return candidates;
+    }
+
+    private List<Project> walkSorted(BitSet candidates, SortOrder sortOrder, boolean ascending) {
+        int remaining = candidates.cardinality();
+        List<Project> result = new ArrayList<>(remaining);
+        Iterator<String> names = sortedView(sortOrder).keys(ascending);
+        while (remaining > 0 && names.hasNext()) {
+            int ordinal = projectOrdinals.find(names.next());
+            if (ordinal >= 0 && candidates.get(ordinal)) {
+                result.add(projectsByOrdinal.get(ordinal));
+                remaining--;
+            }
+        }
+        return result;
+    }
+
+    private SortedKeyIndex<String, ?> sortedView(SortOrder sortOrder) {
+        if (sortOrder == null) return nameOrder;
+        switch (sortOrder) {
+            case NEIGHBOURHOOD: return neighbourhoodOrder;
+            case MANAGER: return managerOrder;
+            case OPEN_DATE: return openDateOrder;
+            case NAME:
+            default: return nameOrder;
+        }
     }
 
 
@@ -274,21 +508,215 @@ public class ProjectsRepository implements IRepository<Project, String> {
             return findByCriteria(null, null, managerNric, null, null);
         }
     
-        // findProjectsInApplicationPeriod can also use findByCriteria
+        // findProjectsInApplicationPeriod is answered directly by the interval index
         public List<Project> findProjectsInApplicationPeriod(Date startDate, Date endDate) {
-            if (startDate == null || endDate == null) return new ArrayList<>();
-            return findByCriteria(null, null, null, null, new Date[]{startDate, endDate});
+            if (startDate == null || endDate == null || startDate.after(endDate)) return new ArrayList<>();
+            return findOpenDuring(startDate, endDate);
          }
 
          public List<Project> findByVisibility(Date startDate, Date endDate) {
-            if (startDate == null || endDate == null) return new ArrayList<>();
-            return findByCriteria(null, null, null, null, new Date[]{startDate, endDate});
+            return findProjectsInApplicationPeriod(startDate, endDate);
          }
 
-         public List<Project> findByManager(HdbManager manager) { /* unchanged */
-            if (manager == null) return new ArrayList<>();
-            return projectMap.values().stream()
-                             .filter(project -> manager.equals(project.getManager()))
-                             .collect(Collectors.toList());
+         /**
+          * Finds projects whose application period includes the given day.
+          * @param date The day to check.
+          * @return List of projects open for applications on that day.
+          */
+         public List<Project> findProjectsOpenOn(Date date) {
+            if (date == null) return new ArrayList<>();
+            return findOpenDuring(date, date);
+         }
+
+         /**
+          * Finds projects whose application period includes today.
+          * @return List of projects currently open for applications.
+          */
+         public List<Project> findProjectsOpenToday() {
+            return findProjectsOpenOn(new Date());
+         }
+
+         public List<Project> findByManager(HdbManager manager) {
+            if (manager == null || manager.getNric() == null) return new ArrayList<>();
+            return findByCriteria(null, null, manager.getNric(), null, null);
+        }
+
+         /**
+          * Finds the projects an officer is assigned to, from the assignment index.
+          * @param officerNric The NRIC of the officer.
+          * @return List of projects handled by the officer.
+          */
+         public List<Project> findByOfficerNric(String officerNric) {
+            List<Project> projects = new ArrayList<>();
+            for (String name : officerAssignments.findProjects(officerNric)) {
+                Project project = projectMap.get(name);
+                if (project != null) projects.add(project);
+            }
+            return projects;
+         }
+
+         /**
+          * Finds the NRICs of the officers assigned to a project, from the assignment index.
+          * @param projectName The project name.
+          * @return List of officer NRICs.
+          */
+         public List<String> findOfficerNricsByProject(String projectName) {
+            return officerAssignments.findStaff(projectName);
+         }
+
+         /**
+          * Checks whether an officer is assigned to a project.
+          * @param projectName The project name.
+          * @param officerNric The NRIC of the officer.
+          * @return true if the officer handles the project.
+          */
+         public boolean isOfficerAssigned(String projectName, String officerNric) {
+            return officerAssignments.isAssigned(projectName, officerNric);
+         }
+
+    // --- Schedule Index Accessors ---
+
+    /**
+     * Gets the schedule of projects each manager is in charge of.
+     * @return The manager schedule index.
+     */
+    public StaffScheduleIndex getManagerSchedule() { return managerSchedule; }
+
+    /**
+     * Gets the schedule of projects each officer is assigned to.
+     * @return The officer schedule index.
+     */
+    public StaffScheduleIndex getOfficerSchedule() { return officerSchedule; }
+
+    // --- Index Maintenance Helpers ---
+
+    /** Publishes the project as it is stored when the image is taken (absent after a delete) to snapshot readers. */
+    private void publish(String projectName) {
+        Object lock = publishLocks[(projectName.hashCode() & Integer.MAX_VALUE) % publishLocks.length];
+        versions.publish(projectName, lock, () -> {
+            Project current = projectMap.get(projectName);
+            return current == null ? null : current.snapshotCopy();
+        });
+    }
+
+    private void indexProject(Project project) {
+        String name = project.getName();
+        indexBitmaps(project);
+        project.setOfficerAssignmentListener(assignmentListener);
+        project.setChangeListener(changeListener);
+        officerAssignments.replaceProject(name, officerNricsOf(project));
+        Date openDate = project.getApplicationOpenDate();
+        Date closeDate = project.getApplicationCloseDate();
+        if (openDate == null || closeDate == null || openDate.after(closeDate)) {
+            // Not queryable by period
+            applicationPeriodIndex.remove(name);
+            managerSchedule.removeProject(name);
+            officerSchedule.removeProject(name);
+            return;
+        }
+        long openDay = IntervalIndex.epochDay(openDate);
+        long closeDay = IntervalIndex.epochDay(closeDate);
+        applicationPeriodIndex.put(name, openDay, closeDay);
+
+        List<String> managerNrics = project.getManager() != null ? List.of(project.getManager().getNric()) : List.of();
+        managerSchedule.recordProject(name, managerNrics, openDay, closeDay);
+        officerSchedule.recordProject(name, officerNricsOf(project), openDay, closeDay);
+    }
+
+    private void indexOfficers(Project project) {
+        String name = project.getName();
+        if (projectMap.get(name) != project) return; // Not (or no longer) stored under this name
+        List<String> officerNrics = officerNricsOf(project);
+        officerAssignments.replaceProject(name, officerNrics);
+        Date openDate = project.getApplicationOpenDate();
+        Date closeDate = project.getApplicationCloseDate();
+        if (openDate != null && closeDate != null && !openDate.after(closeDate)) {
+            officerSchedule.recordProject(name, officerNrics, IntervalIndex.epochDay(openDate), IntervalIndex.epochDay(closeDate));
+        }
+    }
+
+    private static List<String> officerNricsOf(Project project) {
+        return project.getAssignedOfficers().stream().map(User::getNric).collect(Collectors.toList());
+    }
+
+    private void unindexProject(String projectName) {
+        unindexBitmaps(projectName);
+        officerAssignments.removeProject(projectName);
+        applicationPeriodIndex.remove(projectName);
+        managerSchedule.removeProject(projectName);
+        officerSchedule.removeProject(projectName);
+    }
+
+    private List<Project> findOpenDuring(Date startDate, Date endDate) {
+        List<String> names = applicationPeriodIndex.findOverlapping(IntervalIndex.epochDay(startDate), IntervalIndex.epochDay(endDate));
+        List<Project> projects = new ArrayList<>(names.size());
+        for (String name : names) {
+            Project project = projectMap.get(name);
+            if (project != null) projects.add(project);
+        }
+        return projects;
+    }
+
+    private void indexBitmaps(Project project) {
+        BitmapKeys newKeys = new BitmapKeys(project);
+        synchronized (bitmapLock) {
+            int ordinal = projectOrdinals.ordinalOf(project.getName());
+            BitmapKeys oldKeys = bitmapKeysByName.put(project.getName(), newKeys);
+            if (oldKeys != null) removeBitmapKeys(oldKeys, ordinal);
+            neighbourhoodIndex.add(newKeys.neighbourhood, ordinal);
+            for (FlatType type : newKeys.flatTypes) flatTypeIndex.add(type, ordinal);
+            managerIndex.add(newKeys.managerNric, ordinal);
+            visibilityIndex.add(newKeys.visible, ordinal);
+            while (projectsByOrdinal.size() <= ordinal) projectsByOrdinal.add(null);
+            projectsByOrdinal.set(ordinal, project);
+            indexSortOrders(project);
+        }
+    }
+
+    private <V> long bitmapCardinality(BitmapIndex<V> index, V value) {
+        synchronized (bitmapLock) {
+            return index.cardinality(value);
+        }
+    }
+
+    private void unindexBitmaps(String projectName) {
+        synchronized (bitmapLock) {
+            BitmapKeys oldKeys = bitmapKeysByName.remove(projectName);
+            int ordinal = projectOrdinals.release(projectName);
+            if (ordinal < 0) return;
+            if (oldKeys != null) removeBitmapKeys(oldKeys, ordinal);
+            projectsByOrdinal.set(ordinal, null);
+            nameOrder.remove(projectName);
+            neighbourhoodOrder.remove(projectName);
+            managerOrder.remove(projectName);
+            openDateOrder.remove(projectName);
         }
-}
\ No newline at end of file
+    }
+
+    private void indexSortOrders(Project project) {
+        // Ties are broken by name so each order is total (names are unique)
+        String name = project.getName();
+        String nameKey = SortedKeyIndex.collationKey(name);
+        String tieBreaker = nameKey + '\0' + name;
+        nameOrder.put(name, nameKey, name);
+        neighbourhoodOrder.put(name, SortedKeyIndex.collationKey(project.getNeighbourhood()), tieBreaker);
+        managerOrder.put(name, SortedKeyIndex.collationKey(project.getManager() != null ? project.getManager().getNric() : ""), tieBreaker);
+        Date openDate = project.getApplicationOpenDate();
+        openDateOrder.put(name, openDate != null ? new Date(openDate.getTime()) : null, tieBreaker); // Copy, Date is mutable
+    }
+
+    private void removeBitmapKeys(BitmapKeys keys, int ordinal) {
+        neighbourhoodIndex.remove(keys.neighbourhood, ordinal);
+        for (FlatType type : keys.flatTypes) flatTypeIndex.remove(type, ordinal);
+        managerIndex.remove(keys.managerNric, ordinal);
+        visibilityIndex.remove(keys.visible, ordinal);
+    }
+
+    private static String normalizeNeighbourhood(String neighbourhood) {
+        return neighbourhood == null ? null : neighbourhood.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalizeNric(String nric) {
+        return nric == null ? null : nric.trim().toUpperCase(Locale.ROOT);
+    }
+}
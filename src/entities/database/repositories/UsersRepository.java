@@ -16,6 +16,7 @@ public class UsersRepository {
     private final ApplicantRepository applicantRepository;
     private final HdbOfficerRepository hdbOfficerRepository;
     private final HdbManagerRepository hdbManagerRepository;
+    private final UserDirectory userDirectory; // NRIC -> (role, user), shared with the role repositories
 
     // Package-private constructor, managed by Database facade
 /*     public UsersRepository() {
@@ -32,9 +33,10 @@ public class UsersRepository {
 
     public UsersRepository() {
         System.out.println("Initializing UsersRepository Facade instances...");
-        this.applicantRepository = new ApplicantRepository();
-        this.hdbOfficerRepository = new HdbOfficerRepository();
-        this.hdbManagerRepository = new HdbManagerRepository();
+        this.userDirectory = new UserDirectory();
+        this.applicantRepository = new ApplicantRepository(userDirectory);
+        this.hdbOfficerRepository = new HdbOfficerRepository(userDirectory);
+        this.hdbManagerRepository = new HdbManagerRepository(userDirectory);
         // DO NOT call loading here
         System.out.println("UsersRepository Facade instances created.");
     }
@@ -54,12 +56,7 @@ public class UsersRepository {
 
     // --- Other methods (findUserByNric, save, delete, getters) remain the same ---
     public Optional<User> findUserByNric(String nric) {
-         if (nric == null) return Optional.empty();
-         String upperNric = nric.toUpperCase();
-         return applicantRepository.findById(upperNric)
-                 .<User>map(applicant -> applicant)
-                 .or(() -> hdbOfficerRepository.findById(upperNric).map(officer -> officer))
-                 .or(() -> hdbManagerRepository.findById(upperNric).map(manager -> manager));
+         return userDirectory.findUser(nric); // Single hash probe across all roles
     }
 
     public void save(User user) {
@@ -104,15 +101,24 @@ public class UsersRepository {
      }
 
     public List<User> findAllUsers() {
+        return streamAllUsers().collect(Collectors.toList());
+    }
+
+    /**
+     * Streams every user across the three role repositories without copying them first.
+     * Weakly consistent, like {@link IRepository#stream()}.
+     * @return A stream over all users.
+     */
+    public Stream<User> streamAllUsers() {
         return Stream.of(
-                applicantRepository.findAll().stream(),
-                hdbOfficerRepository.findAll().stream(),
-                hdbManagerRepository.findAll().stream()
+                applicantRepository.stream(),
+                hdbOfficerRepository.stream(),
+                hdbManagerRepository.stream()
             )
-            .flatMap(userStream -> userStream)
-            .collect(Collectors.toList());
+            .flatMap(userStream -> userStream.map(user -> (User) user));
     }
 
+    public UserDirectory getUserDirectory() { return userDirectory; }
     public ApplicantRepository getApplicantRepository() { return applicantRepository; }
     public HdbOfficerRepository getHdbOfficerRepository() { return hdbOfficerRepository; }
     public HdbManagerRepository getHdbManagerRepository() { return hdbManagerRepository; }
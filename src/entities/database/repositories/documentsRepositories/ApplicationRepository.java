@@ -3,13 +3,13 @@ package entities.database.repositories.documentsRepositories;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.function.Predicate;
 import java.util.Date;
 import entities.documents.approvableDocuments.*;
+import entities.user.MaritalStatus;
 import entities.user.User;
 import utilities.CsvUtil;
 import entities.database.Database;
@@ -20,30 +20,63 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 
 import entities.project.*;
+import entities.database.query.Attribute;
+import entities.database.query.QueryPlanner;
+import entities.database.indexes.HashIndex;
+import entities.database.indexes.MultiVersionStore;
+import entities.database.indexes.NricIndex;
+import entities.database.indexes.SnapshotClock;
+import entities.database.indexes.IndexedStore;
+import entities.database.repositories.usersRepositories.UserDirectory;
 
 /**
  * This entity class is a repository for managing ProjectApplication entities.
  */
 public class ApplicationRepository implements IRepository<ProjectApplication, String> {
-    private final Map<String, ProjectApplication> applicationMap = new ConcurrentHashMap<>();
+    // --- Query Attributes ---
+    public static final Attribute<ProjectApplication, DocumentStatus> STATUS = Attribute.of("status", ProjectApplication::getStatus);
+    public static final Attribute<ProjectApplication, String> PROJECT_NAME = Attribute.of("projectName", ProjectApplication::getProjectName);
+    public static final Attribute<ProjectApplication, String> APPLICANT_NRIC =
+            Attribute.of("applicantNric", app -> app.getSubmitter() != null ? UserDirectory.normalize(app.getSubmitter().getNric()) : null);
+    public static final Attribute<ProjectApplication, MaritalStatus> APPLICANT_MARITAL_STATUS =
+            Attribute.of("applicantMaritalStatus", app -> app.getSubmitter() != null ? app.getSubmitter().getMaritalStatus() : null);
+    public static final Attribute<ProjectApplication, FlatType> BOOKED_FLAT_TYPE = Attribute.of("bookedFlatType", ProjectApplication::getBookedFlatType);
+
+    // Primary map plus secondary indexes, maintained together on every write
+    private final IndexedStore<String, ProjectApplication> applicationStore = new IndexedStore<>("applications", ProjectApplication::getDocumentID);
+    private final HashIndex<String, ProjectApplication, DocumentStatus> byStatus = applicationStore.hashIndex(STATUS);
+    private final HashIndex<String, ProjectApplication, String> byProject = applicationStore.hashIndex(PROJECT_NAME);
+    private final NricIndex<String, ProjectApplication> byApplicant = applicationStore.nricIndex(APPLICANT_NRIC);
+    // Immutable images of every write, for snapshot reads (see Database.openSnapshot)
+    private final MultiVersionStore<String, ProjectApplication> versions = new MultiVersionStore<>(SnapshotClock.global());
+    // BOOKED applications in report order, maintained on every write (guarded by the store lock)
+    private final BookingView bookings = new BookingView();
     private final String filename = "data/documents/applications.csv";
 
 
     // Package-private constructor
-    public ApplicationRepository() {}
+    public ApplicationRepository() {
+        applicationStore.onWrite((id, app) -> {
+            versions.publish(id, applicationStore, () -> { // Copied when committed, from whatever is stored then
+                ProjectApplication current = applicationStore.get(id);
+                return current == null ? null : current.snapshotCopy();
+            });
+            bookings.apply(id, app);
+        });
+    }
 
     public void loadFromFile() {
         // Note: Assumes Users and Projects Repositories are already loaded for lookups!
         List<ProjectApplication> loaded = CsvUtil.readCsv(filename, this::mapRowToApplication, true);
         loaded.forEach(this::save); // Populate map via save method
-        System.out.println("Loaded " + applicationMap.size() + " applications from " + filename);
+        System.out.println("Loaded " + applicationStore.size() + " applications from " + filename);
     }
 
     public void saveToFile() {
         // Added BookedFlatType column
         String[] header = {"DocumentID", "ApplicantNRIC", "ProjectName", "Status",
                            "SubmissionDate", "LastModifiedDate", "LastModifiedByNRIC",
-                           "RejectionReason", "BookedFlatType"};
+                           "RejectionReason", "BookedFlatType", "BallotNumber", "AllocatedFlatType", "WaitlistedFlatType"};
         CsvUtil.writeCsv(filename, findAll(), this::mapApplicationToRow, header);
     }
 
@@ -82,6 +115,10 @@ public class ApplicationRepository implements IRepository<ProjectApplication, St
                  rejectionReason,
                  bookedFlatType      // Pass loaded value
              );
+            if (row.length > 9 && !row[9].isEmpty()) app.setBallotNumber(Integer.parseInt(row[9])); // Optional column
+            if (row.length > 10 && !row[10].isEmpty()) app.setAllocatedFlatType(FlatType.valueOf(row[10].toUpperCase())); // Optional column
+            if (row.length > 11 && !row[11].isEmpty()) app.setWaitlistedFlatType(FlatType.valueOf(row[11].toUpperCase())); // Optional column
+
 
             return app;
 
@@ -102,7 +139,10 @@ public class ApplicationRepository implements IRepository<ProjectApplication, St
                 app.getLastModifiedByNric() != null ? app.getLastModifiedByNric() : "",
                 app.getRejectionReason() != null ? app.getRejectionReason() : "",
                 // Add booked flat type (handle null)
-                app.getBookedFlatType() != null ? app.getBookedFlatType().name() : ""
+                app.getBookedFlatType() != null ? app.getBookedFlatType().name() : "",
+                app.getBallotNumber() > 0 ? String.valueOf(app.getBallotNumber()) : "",
+                app.getAllocatedFlatType() != null ? app.getAllocatedFlatType().name() : "",
+                app.getWaitlistedFlatType() != null ? app.getWaitlistedFlatType().name() : ""
         };
     }
 
@@ -111,23 +151,31 @@ public class ApplicationRepository implements IRepository<ProjectApplication, St
         if (application == null || application.getDocumentID() == null) {
             throw new IllegalArgumentException("Application and Document ID cannot be null.");
         }
-        applicationMap.put(application.getDocumentID(), application);
+        synchronized (applicationStore) {
+            application.advanceVersion(); // Before the put, so the published image carries the new version
+            applicationStore.put(application);
+        }
         return application;
     }
 
     @Override
     public Optional<ProjectApplication> findById(String documentId) {
-        return Optional.ofNullable(applicationMap.get(documentId));
+        return Optional.ofNullable(applicationStore.get(documentId));
     }
 
     @Override
     public List<ProjectApplication> findAll() {
-        return new ArrayList<>(applicationMap.values());
+        return new ArrayList<>(applicationStore.values());
+    }
+
+    @Override
+    public Collection<ProjectApplication> values() {
+        return applicationStore.values();
     }
 
     @Override
     public boolean deleteById(String documentId) {
-        return applicationMap.remove(documentId) != null;
+        return applicationStore.remove(documentId) != null;
     }
 
     @Override
@@ -138,7 +186,99 @@ public class ApplicationRepository implements IRepository<ProjectApplication, St
 
      @Override
     public long count() {
-        return applicationMap.size();
+        return applicationStore.size();
+    }
+
+    @Override
+    public Page<ProjectApplication, String> findPage(String afterKey, int limit, Predicate<? super ProjectApplication> criteria) {
+        return Page.after(applicationStore.orderedView(), afterKey, limit, criteria);
+    }
+
+    @Override
+    public QueryPlanner<ProjectApplication> queryPlanner() {
+        return applicationStore.planner();
+    }
+
+    /**
+     * Reads every application as it was at a pinned snapshot sequence.
+     * @param sequence The sequence pinned by a snapshot.
+     * @return Read-only copies of the applications visible at that sequence.
+     */
+    public List<ProjectApplication> snapshotValues(long sequence) {
+        return versions.readAll(sequence);
+    }
+
+    /**
+     * Reads the booked applications from the booking view, in (project, applicant name) order.
+     * Read under the store lock, so the rows are consistent with each other as of one point in time.
+     * @param projectName Only this project, or null for all.
+     * @param maritalStatus Only applicants of this marital status, or null for all.
+     * @param flatType Only bookings of this flat type, or null for all.
+     * @return The matching booking rows.
+     */
+    public List<BookingView.Row> findBookings(String projectName, MaritalStatus maritalStatus, FlatType flatType) {
+        synchronized (applicationStore) {
+            return bookings.range(projectName, maritalStatus, flatType);
+        }
+    }
+
+    /**
+     * Re-indexes an application after it was mutated in place (e.g. {@code setStatus}) without a save.
+     * @param application The mutated application.
+     * @return true if the application is stored and was re-indexed.
+     */
+    public boolean reindex(ProjectApplication application) {
+        return application != null && applicationStore.reindex(application.getDocumentID());
+    }
+
+    /**
+     * Moves an application from one status to another on behalf of a user, if nobody has changed it since the caller read it.
+     * @param documentId The application ID.
+     * @param expectedVersion The version the caller read.
+     * @param fromStatus The status the application must still be in.
+     * @param toStatus The new status.
+     * @param actor The user recorded as making the change.
+     * @return The result, a conflict if another session changed the application first.
+     */
+    public TransitionResult<ProjectApplication> transition(String documentId, long expectedVersion, DocumentStatus fromStatus, DocumentStatus toStatus, User actor) {
+        return update(documentId, expectedVersion, fromStatus, doc -> { doc.changeStatus(toStatus, actor); return true; });
+    }
+
+    /**
+     * Compare-and-set update of an application; see {@link TransitionResult#update}.
+     * @return The result of the attempt.
+     */
+    public TransitionResult<ProjectApplication> update(String documentId, long expectedVersion, DocumentStatus expectedStatus,
+            Predicate<? super ProjectApplication> change) {
+        return TransitionResult.update(applicationStore, documentId, expectedVersion, expectedStatus, change);
+    }
+
+    /**
+     * Applies a batch of compare-and-set updates under one acquisition of the store lock, in order.
+     * Each update is checked and applied on its own; a conflict on one does not affect the others.
+     * @param updates The updates.
+     * @return One result per update, in the same order.
+     */
+    public List<TransitionResult<ProjectApplication>> updateAll(List<BatchUpdate<ProjectApplication>> updates) {
+        List<TransitionResult<ProjectApplication>> results = new ArrayList<>(updates.size());
+        synchronized (applicationStore) {
+            for (BatchUpdate<ProjectApplication> update : updates) {
+                TransitionResult<ProjectApplication> result = TransitionResult.attempt(applicationStore.get(update.getDocumentId()),
+                        update.getExpectedVersion(), update.getExpectedStatus(), update.getChange());
+                if (result.isApplied()) applicationStore.reindex(update.getDocumentId());
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Finds all applications currently in a status.
+     * @param status The status.
+     * @return List of matching applications.
+     */
+    public List<ProjectApplication> findByStatus(DocumentStatus status) {
+        return byStatus.find(status);
     }
 
     // --- Requirement Specific Methods ---
@@ -149,9 +289,8 @@ public class ApplicationRepository implements IRepository<ProjectApplication, St
      * @return List of applications submitted by the user.
      */
     public List<ProjectApplication> findByApplicantNric(String applicantNric) {
-        return applicationMap.values().stream()
-                .filter(app -> app.getSubmitter() != null && app.getSubmitter().getNric().equalsIgnoreCase(applicantNric))
-                .collect(Collectors.toList());
+        if (applicantNric == null) return new ArrayList<>();
+        return byApplicant.find(UserDirectory.normalize(applicantNric));
     }
 
     /**
@@ -161,8 +300,7 @@ public class ApplicationRepository implements IRepository<ProjectApplication, St
      * @return Optional containing the active/pending application if found, empty otherwise.
      */
     public Optional<ProjectApplication> findActiveApplicationByApplicantNric(String applicantNric) {
-        return applicationMap.values().stream()
-                .filter(app -> app.getSubmitter() != null && app.getSubmitter().getNric().equalsIgnoreCase(applicantNric))
+        return findByApplicantNric(applicantNric).stream()
                 .filter(app -> {
                     DocumentStatus status = app.getStatus();
                     // Define which statuses count as "active" or "blocking a new application"
@@ -177,15 +315,11 @@ public class ApplicationRepository implements IRepository<ProjectApplication, St
 
     /**
      * Finds applications related to a specific project ID.
-     * Assumes ProjectApplication has a reference to the Project.
      * @param projectId The unique ID (e.g., name) of the project.
      * @return List of applications for that project.
      */
     public List<ProjectApplication> findByProjectId(String projectId) {
-        System.out.println("ApplicationRepository: Finding applications for project " + projectId + " (Stub - Requires ProjectApplication <-> Project Link)");
-        return applicationMap.values().stream()
-                 .filter(app -> app.getProject() != null && app.getProject().getName().equals(projectId))
-                 .collect(Collectors.toList());
+        return byProject.find(projectId);
     }
 
 private String formatDate(LocalDateTime ldt) {
@@ -212,10 +346,8 @@ private String formatDate(LocalDateTime ldt) {
         if (applicantNric == null || applicantNric.isBlank()) {
             return Optional.empty();
         }
-        return applicationMap.values().stream()
-                .filter(app -> app.getSubmitter() != null &&
-                               app.getSubmitter().getNric().equalsIgnoreCase(applicantNric) &&
-                               app.getStatus() == DocumentStatus.BOOKED)
+        return findByApplicantNric(applicantNric).stream()
+                .filter(app -> app.getStatus() == DocumentStatus.BOOKED)
                 .findFirst();
     }
 }
\ No newline at end of file
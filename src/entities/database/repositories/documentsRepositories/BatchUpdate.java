@@ -0,0 +1,39 @@
+package entities.database.repositories.documentsRepositories;
+
+import java.util.function.Predicate;
+
+import entities.documents.DocumentStatus;
+import entities.documents.IBaseSubmittableDocument;
+
+/**
+ * One compare-and-set update in a batch (see e.g. {@link ApplicationRepository#updateAll}).
+ * Carries the same checks as a single {@code update}: the version the caller read, the status the
+ * document must still be in, and the in-place change to apply.
+ * @param <T> The type of the document.
+ */
+public final class BatchUpdate<T extends IBaseSubmittableDocument> {
+
+    private final String documentId;
+    private final long expectedVersion;
+    private final DocumentStatus expectedStatus;
+    private final Predicate<? super T> change;
+
+    /**
+     * Creates an update.
+     * @param documentId The document ID.
+     * @param expectedVersion The version the caller read.
+     * @param expectedStatus The status the document must still be in, or null to check the version only.
+     * @param change The in-place change; returns false to refuse.
+     */
+    public BatchUpdate(String documentId, long expectedVersion, DocumentStatus expectedStatus, Predicate<? super T> change) {
+        this.documentId = documentId;
+        this.expectedVersion = expectedVersion;
+        this.expectedStatus = expectedStatus;
+        this.change = change;
+    }
+
+    public String getDocumentId() { return documentId; }
+    public long getExpectedVersion() { return expectedVersion; }
+    public DocumentStatus getExpectedStatus() { return expectedStatus; }
+    public Predicate<? super T> getChange() { return change; }
+}
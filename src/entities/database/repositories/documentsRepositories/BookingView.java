@@ -0,0 +1,110 @@
+package entities.database.repositories.documentsRepositories;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import entities.documents.DocumentStatus;
+import entities.documents.approvableDocuments.ProjectApplication;
+import entities.project.FlatType;
+import entities.user.MaritalStatus;
+import entities.user.User;
+
+/**
+ * A materialized view of the BOOKED applications, kept sorted by (project, applicant name) and updated on every
+ * write of an application, so a booking report is an ordered range read instead of a scan, filter and sort.
+ * Each row is an immutable image taken when the application was written, with its report line already formatted.
+ * Maintained by {@link ApplicationRepository} under its store lock; not thread-safe on its own.
+ * Applicant details are those at the time of the booking write.
+ */
+public final class BookingView {
+
+    private static final String LINE_FORMAT = "%-15s | %-12s | %-20s | %-8d | %-12s | %-10s%n";
+    private static final char SEPARATOR = '\u0000'; // Sorts before any character, so "A" < "A B" as with a field-wise compare
+
+    /** One booked application. */
+    public static final class Row {
+        private final String applicationId;
+        private final String projectName;
+        private final String applicantNric;
+        private final String applicantName;
+        private final int applicantAge;
+        private final MaritalStatus maritalStatus;
+        private final FlatType bookedFlatType;
+        private final String reportLine;
+
+        private Row(ProjectApplication application) {
+            User applicant = application.getSubmitter();
+            this.applicationId = application.getDocumentID();
+            this.projectName = application.getProjectName();
+            this.applicantNric = applicant != null ? applicant.getNric() : null;
+            this.applicantName = applicant != null ? applicant.getName() : null;
+            this.applicantAge = applicant != null ? applicant.getAge() : 0;
+            this.maritalStatus = applicant != null ? applicant.getMaritalStatus() : null;
+            this.bookedFlatType = application.getBookedFlatType();
+            this.reportLine = String.format(LINE_FORMAT, projectName, applicantNric, applicantName, applicantAge,
+                    maritalStatus, bookedFlatType != null ? bookedFlatType.name() : "N/A");
+        }
+
+        public String getApplicationId() { return applicationId; }
+        public String getProjectName() { return projectName; }
+        public String getApplicantNric() { return applicantNric; }
+        public String getApplicantName() { return applicantName; }
+        public int getApplicantAge() { return applicantAge; }
+        public MaritalStatus getMaritalStatus() { return maritalStatus; }
+        public FlatType getBookedFlatType() { return bookedFlatType; }
+
+        /** @return The row formatted for the booking report, ending in a line separator. */
+        public String getReportLine() { return reportLine; }
+    }
+
+    private final NavigableMap<String, Row> rows = new TreeMap<>(); // By sort key
+    private final Map<String, String> sortKeys = new HashMap<>(); // Application ID -> sort key of its row
+
+    /**
+     * Brings the view up to date after an application was written.
+     * @param applicationId The application ID.
+     * @param application The stored application, or null if it was removed.
+     */
+    void apply(String applicationId, ProjectApplication application) {
+        String oldKey = sortKeys.remove(applicationId);
+        if (oldKey != null) rows.remove(oldKey);
+        if (application == null || application.getStatus() != DocumentStatus.BOOKED) return;
+        Row row = new Row(application);
+        String key = sortKey(row);
+        rows.put(key, row);
+        sortKeys.put(applicationId, key);
+    }
+
+    /**
+     * Reads the booked rows in (project, applicant name) order.
+     * @param projectName Only this project, or null for all.
+     * @param maritalStatus Only applicants of this marital status, or null for all.
+     * @param flatType Only bookings of this flat type, or null for all.
+     * @return The matching rows.
+     */
+    List<Row> range(String projectName, MaritalStatus maritalStatus, FlatType flatType) {
+        NavigableMap<String, Row> range = rows;
+        if (projectName != null) {
+            range = rows.subMap(projectName + SEPARATOR, true, projectName + (char) (SEPARATOR + 1), false);
+        }
+        List<Row> result = new ArrayList<>(range.size());
+        for (Row row : range.values()) {
+            if (maritalStatus != null && row.maritalStatus != maritalStatus) continue;
+            if (flatType != null && row.bookedFlatType != flatType) continue;
+            result.add(row);
+        }
+        return result;
+    }
+
+    int size() {
+        return rows.size();
+    }
+
+    private static String sortKey(Row row) {
+        return row.projectName + SEPARATOR + (row.applicantName != null ? row.applicantName : "") + SEPARATOR + row.applicationId;
+    }
+}
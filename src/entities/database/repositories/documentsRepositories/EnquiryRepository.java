@@ -6,37 +6,108 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.Date;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.TimeZone;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import entities.database.Database;
+import entities.database.indexes.InvertedIndex;
+import entities.database.indexes.LongObjectMap;
+import entities.database.indexes.MergingIterator;
+import entities.database.query.Attribute;
+import entities.database.query.KeyedQueryIndex;
+import entities.database.query.QueryPlanner;
 import entities.database.repositories.*;
 import entities.documents.*;
 import entities.documents.repliableDocuments.*;
 import entities.project.Project;
 import entities.user.User;
 import utilities.CsvUtil;
+import utilities.NricCodec;
 
 /**
  * This entity class is a repository for managing Enquiry entities.
  */
 public class EnquiryRepository implements IRepository<Enquiry, String> {
-    private final Map<String, Enquiry> enquiryMap = new ConcurrentHashMap<>();
+    // --- Query Attributes ---
+    public static final Attribute<Enquiry, DocumentStatus> STATUS = Attribute.of("status", Enquiry::getStatus);
+    public static final Attribute<Enquiry, String> PROJECT_NAME = Attribute.of("projectName", Enquiry::getProjectName);
+    public static final Attribute<Enquiry, String> SUBMITTER_NRIC =
+            Attribute.of("submitterNric", e -> e.getSubmitter() != null ? e.getSubmitter().getNric() : null);
+    public static final Attribute<Enquiry, LocalDateTime> SUBMISSION_DATE = Attribute.of("submissionDate", Enquiry::getSubmissionDate);
+
+    private final NavigableMap<String, Enquiry> enquiryMap = new ConcurrentSkipListMap<>(); // Key-ordered, for keyset pagination
+    private final InvertedIndex<String> contentIndex = new InvertedIndex<>(); // Enquiry + reply text, keyed by document ID
+    // Per-project enquiry queues ordered by submission time (oldest first); general enquiries use GENERAL_QUEUE
+    private static final String GENERAL_QUEUE = "";
+    private static final Comparator<QueueEntry> QUEUE_ORDER = Comparator
+            .comparing((QueueEntry q) -> q.submissionDate, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(q -> q.documentId);
+    private final Object queueLock = new Object();
+    private final Map<String, QueueEntry> queueEntries = new ConcurrentHashMap<>(); // Entry each enquiry is queued under
+    private final Map<String, ConcurrentSkipListSet<QueueEntry>> enquiriesByProject = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrentSkipListSet<QueueEntry>> unrepliedByProject = new ConcurrentHashMap<>();
+    private final LongObjectMap<TreeSet<String>> enquiriesBySubmitter = new LongObjectMap<>(); // Encoded NRIC -> IDs, under queueLock
+
+    /** Snapshot of the fields an enquiry is queued by, so later in-place edits cannot corrupt the ordering. */
+    private static final class QueueEntry {
+        final String documentId;
+        final String queue;
+        final LocalDateTime submissionDate;
+        final boolean unreplied;
+        final long submitterKey; // NricCodec key, or NONE if the submitter's NRIC is not in the standard format
+
+        QueueEntry(Enquiry enquiry) {
+            this.documentId = enquiry.getDocumentID();
+            this.queue = enquiry.getProjectName() != null ? enquiry.getProjectName() : GENERAL_QUEUE;
+            this.submissionDate = enquiry.getSubmissionDate();
+            this.unreplied = enquiry.getStatus() == DocumentStatus.SUBMITTED;
+            this.submitterKey = enquiry.getSubmitter() != null ? NricCodec.encode(enquiry.getSubmitter().getNric()) : NricCodec.NONE;
+        }
+    }
     private final String filename = "data/documents/enquiries.csv";
     private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
     static { DATE_FORMAT.setTimeZone(TimeZone.getTimeZone("UTC")); }
 
+    private final QueryPlanner<Enquiry> planner = new QueryPlanner<>("enquiries", this::values, this::count, List.of(
+            new KeyedQueryIndex<>("enquiries.byProject", PROJECT_NAME,
+                    name -> queueSize(enquiriesByProject, name), name -> () -> iterateByProjects(List.of(name))),
+            new KeyedQueryIndex<>("enquiries.unreplied", STATUS, // Only SUBMITTED enquiries are queued
+                    status -> status == DocumentStatus.SUBMITTED ? unrepliedCount() : Long.MAX_VALUE,
+                    status -> () -> merge(unrepliedByProject, unrepliedByProject.keySet()))));
+
     // Package-private constructor
     public EnquiryRepository() {}
 
+    @Override
+    public QueryPlanner<Enquiry> queryPlanner() {
+        return planner;
+    }
+
     public void loadFromFile() {
         List<Enquiry> loaded = CsvUtil.readCsv(filename, this::mapRowToEnquiry, true);
-        loaded.forEach(e -> enquiryMap.putIfAbsent(e.getDocumentID(), e));
+        loaded.forEach(e -> {
+            if (enquiryMap.putIfAbsent(e.getDocumentID(), e) == null) {
+                indexContent(e);
+                enqueue(e);
+            }
+        });
         System.out.println("Loaded " + enquiryMap.size() + " enquiries from " + filename);
     }
 
@@ -133,10 +204,40 @@ public class EnquiryRepository implements IRepository<Enquiry, String> {
         if (enquiry == null || enquiry.getDocumentID() == null) {
             throw new IllegalArgumentException("Enquiry and Document ID cannot be null.");
         }
-        enquiryMap.put(enquiry.getDocumentID(), enquiry);
+        synchronized (this) { // Versions advance in write order
+            enquiryMap.put(enquiry.getDocumentID(), enquiry);
+            indexContent(enquiry); // Re-indexes edits and replies
+            enqueue(enquiry); // Moves replied enquiries out of the unreplied queue
+            enquiry.advanceVersion();
+        }
         return enquiry;
     }
 
+    /**
+     * Moves an enquiry from one status to another on behalf of a user, if nobody has changed it since the caller read it.
+     * @param documentId The enquiry ID.
+     * @param expectedVersion The version the caller read.
+     * @param fromStatus The status the enquiry must still be in.
+     * @param toStatus The new status.
+     * @param actor The user recorded as making the change.
+     * @return The result, a conflict if another session changed the enquiry first.
+     */
+    public TransitionResult<Enquiry> transition(String documentId, long expectedVersion, DocumentStatus fromStatus, DocumentStatus toStatus, User actor) {
+        return update(documentId, expectedVersion, fromStatus, doc -> { doc.changeStatus(toStatus, actor); return true; });
+    }
+
+    /**
+     * Compare-and-set update of an enquiry; see {@link TransitionResult#update}.
+     * @return The result of the attempt.
+     */
+    public TransitionResult<Enquiry> update(String documentId, long expectedVersion, DocumentStatus expectedStatus,
+            Predicate<? super Enquiry> change) {
+        return TransitionResult.update(this, enquiryMap::get, documentId, expectedVersion, expectedStatus, change, enquiry -> {
+            indexContent(enquiry);
+            enqueue(enquiry);
+        });
+    }
+
     @Override
     public Optional<Enquiry> findById(String documentId) {
         return Optional.ofNullable(enquiryMap.get(documentId));
@@ -148,9 +249,17 @@ public class EnquiryRepository implements IRepository<Enquiry, String> {
     }
 
      @Override
+    public Collection<Enquiry> values() {
+        return Collections.unmodifiableCollection(enquiryMap.values());
+    }
+
+    @Override
     public boolean deleteById(String documentId) {
         // Check if deletion is allowed based on status/role might happen in Controller/Service
-        return enquiryMap.remove(documentId) != null;
+        if (documentId == null || enquiryMap.remove(documentId) == null) return false;
+        contentIndex.remove(documentId);
+        dequeue(documentId);
+        return true;
     }
 
     @Override
@@ -166,6 +275,11 @@ public class EnquiryRepository implements IRepository<Enquiry, String> {
         return enquiryMap.size();
     }
 
+    @Override
+    public Page<Enquiry, String> findPage(String afterKey, int limit, Predicate<? super Enquiry> criteria) {
+        return Page.after(enquiryMap, afterKey, limit, criteria);
+    }
+
     // --- Requirement Specific Methods ---
 
     /**
@@ -174,34 +288,198 @@ public class EnquiryRepository implements IRepository<Enquiry, String> {
      * @return List of enquiries submitted by the user.
      */
     public List<Enquiry> findBySubmitterNric(String submitterNric) {
-         return enquiryMap.values().stream()
+        long submitterKey = NricCodec.encode(submitterNric);
+        if (submitterKey != NricCodec.NONE) {
+            List<String> ids;
+            synchronized (queueLock) {
+                TreeSet<String> posting = enquiriesBySubmitter.get(submitterKey);
+                ids = posting == null ? List.of() : new ArrayList<>(posting);
+            }
+            List<Enquiry> results = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                Enquiry e = enquiryMap.get(id);
+                if (e != null) results.add(e);
+            }
+            return results;
+        }
+        if (submitterNric == null) return new ArrayList<>();
+        return enquiryMap.values().stream() // Non-standard NRICs are not indexed
                 .filter(e -> e.getSubmitter() != null && e.getSubmitter().getNric().equalsIgnoreCase(submitterNric))
                 .collect(Collectors.toList());
     }
 
      /**
-     * Finds enquiries related to a specific project ID. [cite: 22, 33]
-     * Assumes Enquiry has a reference to the Project.
+     * Finds enquiries related to a specific project ID, oldest submission first. [cite: 22, 33]
      * @param projectId The unique ID (e.g., name) of the project.
      * @return List of enquiries for that project.
      */
     public List<Enquiry> findByProjectId(String projectId) {
-         System.out.println("EnquiryRepository: Finding enquiries for project " + projectId + " (Stub - Requires Enquiry <-> Project Link)");
-         // TODO: Implement filtering based on Enquiry having a getProject().getName() method
-         // return enquiryMap.values().stream()
-         //        .filter(e -> e.getProject() != null && e.getProject().getName().equals(projectId))
-         //        .collect(Collectors.toList());
-         return new ArrayList<>(); // Placeholder
+        if (projectId == null) return new ArrayList<>();
+        return collect(iterateByProjects(List.of(projectId)), Integer.MAX_VALUE);
     }
 
      /**
-     * Finds enquiries that have not yet been replied to (status is SUBMITTED).
+     * Finds enquiries that have not yet been replied to (status is SUBMITTED), oldest first.
      * @return List of unreplied enquiries.
      */
     public List<Enquiry> findUnrepliedEnquiries() {
-        return enquiryMap.values().stream()
-                .filter(e -> e.getStatus() == DocumentStatus.SUBMITTED) // Assuming SUBMITTED means awaiting reply
-                .collect(Collectors.toList());
+        return collect(merge(unrepliedByProject, unrepliedByProject.keySet()), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds the oldest unreplied enquiries across the given projects.
+     * @param projectNames The project names whose queues are merged.
+     * @param limit Maximum number of enquiries to return.
+     * @return Up to limit unreplied enquiries, oldest submission first.
+     */
+    public List<Enquiry> findUnrepliedByProjects(Collection<String> projectNames, int limit) {
+        return collect(iterateUnrepliedByProjects(projectNames), limit);
+    }
+
+    /**
+     * Iterates the enquiries of the given projects, oldest submission first, merging the per-project queues lazily.
+     * @param projectNames The project names whose queues are merged.
+     * @return Iterator over the enquiries.
+     */
+    public Iterator<Enquiry> iterateByProjects(Collection<String> projectNames) {
+        return merge(enquiriesByProject, projectNames);
+    }
+
+    /**
+     * Iterates the unreplied enquiries of the given projects, oldest submission first.
+     * @param projectNames The project names whose queues are merged.
+     * @return Iterator over the unreplied enquiries.
+     */
+    public Iterator<Enquiry> iterateUnrepliedByProjects(Collection<String> projectNames) {
+        return merge(unrepliedByProject, projectNames);
+    }
+
+    /**
+     * Iterates every enquiry, oldest submission first (enquiries never submitted come last).
+     * @return Iterator over all enquiries.
+     */
+    public Iterator<Enquiry> iterateAllBySubmission() {
+        return merge(enquiriesByProject, enquiriesByProject.keySet());
+    }
+
+    /**
+     * Full-text search over enquiry and reply content, ranked by relevance (BM25).
+     * @param query The free-text query.
+     * @param projectNames Optional project names to restrict the search to, null for all projects.
+     * @param limit Maximum number of results.
+     * @return Matching enquiries, most relevant first.
+     */
+    public List<Enquiry> searchByContent(String query, Collection<String> projectNames, int limit) {
+        Set<String> allowedProjects = projectNames == null ? null : new HashSet<>(projectNames);
+        List<Enquiry> results = new ArrayList<>();
+        for (InvertedIndex.Hit<String> hit : contentIndex.search(query, id -> {
+                if (allowedProjects == null) return true;
+                Enquiry e = enquiryMap.get(id);
+                return e != null && e.getProjectName() != null && allowedProjects.contains(e.getProjectName());
+            }, limit)) {
+            Enquiry e = enquiryMap.get(hit.getKey());
+            if (e != null) results.add(e);
+        }
+        return results;
+    }
+
+    // --- Queue Maintenance Helpers ---
+
+    private void enqueue(Enquiry enquiry) {
+        QueueEntry entry = new QueueEntry(enquiry);
+        synchronized (queueLock) {
+            QueueEntry old = queueEntries.put(entry.documentId, entry);
+            if (old != null) removeEntry(old);
+            enquiriesByProject.computeIfAbsent(entry.queue, k -> new ConcurrentSkipListSet<>(QUEUE_ORDER)).add(entry);
+            if (entry.submitterKey != NricCodec.NONE) {
+                TreeSet<String> posting = enquiriesBySubmitter.get(entry.submitterKey);
+                if (posting == null) enquiriesBySubmitter.put(entry.submitterKey, posting = new TreeSet<>());
+                posting.add(entry.documentId);
+            }
+            if (entry.unreplied) {
+                unrepliedByProject.computeIfAbsent(entry.queue, k -> new ConcurrentSkipListSet<>(QUEUE_ORDER)).add(entry);
+            }
+        }
+    }
+
+    private void dequeue(String documentId) {
+        synchronized (queueLock) {
+            QueueEntry old = queueEntries.remove(documentId);
+            if (old != null) removeEntry(old);
+        }
+    }
+
+    private void removeEntry(QueueEntry entry) {
+        removeFromQueue(enquiriesByProject, entry);
+        if (entry.unreplied) removeFromQueue(unrepliedByProject, entry);
+        if (entry.submitterKey != NricCodec.NONE) {
+            TreeSet<String> posting = enquiriesBySubmitter.get(entry.submitterKey);
+            if (posting != null && posting.remove(entry.documentId) && posting.isEmpty()) enquiriesBySubmitter.remove(entry.submitterKey);
+        }
+    }
+
+    private static void removeFromQueue(Map<String, ConcurrentSkipListSet<QueueEntry>> queues, QueueEntry entry) {
+        ConcurrentSkipListSet<QueueEntry> queue = queues.get(entry.queue);
+        if (queue == null) return;
+        queue.remove(entry);
+        if (queue.isEmpty()) queues.remove(entry.queue);
+    }
+
+    private Iterator<Enquiry> merge(Map<String, ConcurrentSkipListSet<QueueEntry>> queues, Collection<String> projectNames) {
+        List<Iterator<QueueEntry>> sources = new ArrayList<>();
+        if (projectNames != null) {
+            for (String name : new HashSet<>(projectNames)) {
+                ConcurrentSkipListSet<QueueEntry> queue = queues.get(name);
+                if (queue != null) sources.add(queue.iterator()); // Weakly consistent, safe under concurrent saves
+            }
+        }
+        Iterator<QueueEntry> merged = new MergingIterator<>(sources, QUEUE_ORDER);
+        return new Iterator<Enquiry>() {
+            private Enquiry nextEnquiry = advance();
+
+            private Enquiry advance() {
+                while (merged.hasNext()) {
+                    QueueEntry entry = merged.next();
+                    Enquiry enquiry = enquiryMap.get(entry.documentId);
+                    if (enquiry != null && queueEntries.get(entry.documentId) == entry) return enquiry; // Skip stale entries
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() { return nextEnquiry != null; }
+
+            @Override
+            public Enquiry next() {
+                if (nextEnquiry == null) throw new NoSuchElementException();
+                Enquiry current = nextEnquiry;
+                nextEnquiry = advance();
+                return current;
+            }
+        };
+    }
+
+    private static long queueSize(Map<String, ConcurrentSkipListSet<QueueEntry>> queues, String name) {
+        ConcurrentSkipListSet<QueueEntry> queue = queues.get(name);
+        return queue == null ? 0 : queue.size();
+    }
+
+    private long unrepliedCount() {
+        long total = 0;
+        for (ConcurrentSkipListSet<QueueEntry> queue : unrepliedByProject.values()) total += queue.size();
+        return total;
+    }
+
+    private static List<Enquiry> collect(Iterator<Enquiry> iterator, int limit) {
+        List<Enquiry> result = new ArrayList<>();
+        while (result.size() < limit && iterator.hasNext()) result.add(iterator.next());
+        return result;
+    }
+
+    private void indexContent(Enquiry enquiry) {
+        String content = enquiry.getEnquiryContent() != null ? enquiry.getEnquiryContent() : "";
+        String reply = enquiry.getReplyContent() != null ? enquiry.getReplyContent() : "";
+        contentIndex.put(enquiry.getDocumentID(), content + " " + reply);
     }
 
         private String formatDate(LocalDateTime ldt) {
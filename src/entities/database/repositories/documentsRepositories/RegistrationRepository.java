@@ -7,12 +7,11 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.function.Predicate;
 import java.util.TimeZone;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
 import entities.documents.DocumentStatus;
 import entities.documents.approvableDocuments.*;
@@ -21,13 +20,31 @@ import entities.user.HdbOfficer;
 import entities.user.User;
 import utilities.CsvUtil;
 import entities.database.Database;
+import entities.database.indexes.IntervalIndex;
 import entities.database.repositories.*;
+import entities.database.query.Attribute;
+import entities.database.query.Query;
+import entities.database.query.QueryPlanner;
+import entities.database.indexes.HashIndex;
+import entities.database.indexes.NricIndex;
+import entities.database.indexes.IndexedStore;
+import entities.database.repositories.usersRepositories.UserDirectory;
 
 /**
  * This entity class is a repository for managing Registration entities.
  */
 public class RegistrationRepository implements IRepository<ProjectRegistration, String> {
-    private final Map<String, ProjectRegistration> registrationMap = new ConcurrentHashMap<>();
+    // --- Query Attributes ---
+    public static final Attribute<ProjectRegistration, DocumentStatus> STATUS = Attribute.of("status", ProjectRegistration::getStatus);
+    public static final Attribute<ProjectRegistration, String> PROJECT_NAME = Attribute.of("projectName", ProjectRegistration::getProjectName);
+    public static final Attribute<ProjectRegistration, String> OFFICER_NRIC =
+            Attribute.of("officerNric", reg -> reg.getSubmitter() != null ? UserDirectory.normalize(reg.getSubmitter().getNric()) : null);
+
+    // Primary map plus secondary indexes, maintained together on every write
+    private final IndexedStore<String, ProjectRegistration> registrationStore = new IndexedStore<>("registrations", ProjectRegistration::getDocumentID);
+    private final HashIndex<String, ProjectRegistration, DocumentStatus> byStatus = registrationStore.hashIndex(STATUS);
+    private final HashIndex<String, ProjectRegistration, String> byProject = registrationStore.hashIndex(PROJECT_NAME);
+    private final NricIndex<String, ProjectRegistration> byOfficer = registrationStore.nricIndex(OFFICER_NRIC);
     private final String filename = "data/documents/registrations.csv";
     private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
     static { DATE_FORMAT.setTimeZone(TimeZone.getTimeZone("UTC")); }
@@ -37,8 +54,8 @@ public class RegistrationRepository implements IRepository<ProjectRegistration,
 
     public void loadFromFile() {
         List<ProjectRegistration> loaded = CsvUtil.readCsv(filename, this::mapRowToRegistration, true);
-        loaded.forEach(reg -> registrationMap.putIfAbsent(reg.getDocumentID(), reg));
-        System.out.println("Loaded " + registrationMap.size() + " registrations from " + filename);
+        loaded.forEach(registrationStore::putIfAbsent);
+        System.out.println("Loaded " + registrationStore.size() + " registrations from " + filename);
     }
 
     public void saveToFile() {
@@ -123,23 +140,31 @@ public class RegistrationRepository implements IRepository<ProjectRegistration,
          if (registration == null || registration.getDocumentID() == null) {
             throw new IllegalArgumentException("Registration and Document ID cannot be null.");
         }
-        registrationMap.put(registration.getDocumentID(), registration);
+        synchronized (registrationStore) {
+            registrationStore.put(registration);
+            registration.advanceVersion();
+        }
         return registration;
     }
 
     @Override
     public Optional<ProjectRegistration> findById(String documentId) {
-        return Optional.ofNullable(registrationMap.get(documentId));
+        return Optional.ofNullable(registrationStore.get(documentId));
     }
 
     @Override
     public List<ProjectRegistration> findAll() {
-        return new ArrayList<>(registrationMap.values());
+        return new ArrayList<>(registrationStore.values());
     }
 
+     @Override
+     public Collection<ProjectRegistration> values() {
+         return registrationStore.values();
+     }
+
      @Override
     public boolean deleteById(String documentId) {
-        return registrationMap.remove(documentId) != null;
+        return registrationStore.remove(documentId) != null;
     }
 
     @Override
@@ -150,7 +175,57 @@ public class RegistrationRepository implements IRepository<ProjectRegistration,
 
     @Override
     public long count() {
-        return registrationMap.size();
+        return registrationStore.size();
+    }
+
+    @Override
+    public Page<ProjectRegistration, String> findPage(String afterKey, int limit, Predicate<? super ProjectRegistration> criteria) {
+        return Page.after(registrationStore.orderedView(), afterKey, limit, criteria);
+    }
+
+    @Override
+    public QueryPlanner<ProjectRegistration> queryPlanner() {
+        return registrationStore.planner();
+    }
+
+    /**
+     * Re-indexes a registration after it was mutated in place (e.g. {@code approve}) without a save.
+     * @param registration The mutated registration.
+     * @return true if the registration is stored and was re-indexed.
+     */
+    public boolean reindex(ProjectRegistration registration) {
+        return registration != null && registrationStore.reindex(registration.getDocumentID());
+    }
+
+    /**
+     * Moves a registration from one status to another on behalf of a user, if nobody has changed it since the caller read it.
+     * @param documentId The registration ID.
+     * @param expectedVersion The version the caller read.
+     * @param fromStatus The status the registration must still be in.
+     * @param toStatus The new status.
+     * @param actor The user recorded as making the change.
+     * @return The result, a conflict if another session changed the registration first.
+     */
+    public TransitionResult<ProjectRegistration> transition(String documentId, long expectedVersion, DocumentStatus fromStatus, DocumentStatus toStatus, User actor) {
+        return update(documentId, expectedVersion, fromStatus, doc -> { doc.changeStatus(toStatus, actor); return true; });
+    }
+
+    /**
+     * Compare-and-set update of a registration; see {@link TransitionResult#update}.
+     * @return The result of the attempt.
+     */
+    public TransitionResult<ProjectRegistration> update(String documentId, long expectedVersion, DocumentStatus expectedStatus,
+            Predicate<? super ProjectRegistration> change) {
+        return TransitionResult.update(registrationStore, documentId, expectedVersion, expectedStatus, change);
+    }
+
+    /**
+     * Finds all registrations currently in a status.
+     * @param status The status.
+     * @return List of matching registrations.
+     */
+    public List<ProjectRegistration> findByStatus(DocumentStatus status) {
+        return byStatus.find(status);
     }
 
     // --- Requirement Specific Methods ---
@@ -161,73 +236,60 @@ public class RegistrationRepository implements IRepository<ProjectRegistration,
      * @return List of registrations by the officer.
      */
     public List<ProjectRegistration> findByOfficerNric(String officerNric) {
-        return registrationMap.values().stream()
-                .filter(reg -> reg.getSubmitter() != null && reg.getSubmitter().getNric().equalsIgnoreCase(officerNric))
-                .collect(Collectors.toList());
+        if (officerNric == null) return new ArrayList<>();
+        return byOfficer.find(UserDirectory.normalize(officerNric));
     }
 
      /**
      * Finds registrations related to a specific project ID.
-     * Assumes ProjectRegistration has a reference to the Project.
      * @param projectId The unique ID (e.g., name) of the project.
      * @return List of registrations for that project.
      */
     public List<ProjectRegistration> findByProjectId(String projectId) {
-        System.out.println("RegistrationRepository: Finding registrations for project " + projectId + " (Stub - Requires ProjectRegistration <-> Project Link)");
-        // TODO: Implement filtering based on ProjectRegistration having a getProject().getName() method
-        // return registrationMap.values().stream()
-        //         .filter(reg -> reg.getProject() != null && reg.getProject().getName().equals(projectId))
-        //         .collect(Collectors.toList());
-        return new ArrayList<>(); // Placeholder
+        return byProject.find(projectId);
     }
 
     /**
      * Finds PENDING registrations for a specific project ID[cite: 29].
-     * Assumes ProjectRegistration has a reference to the Project.
      * @param projectId The unique ID (e.g., name) of the project.
      * @return List of pending registrations for that project.
      */
     public List<ProjectRegistration> findPendingByProjectId(String projectId) {
-         System.out.println("RegistrationRepository: Finding PENDING registrations for project " + projectId + " (Stub - Requires ProjectRegistration <-> Project Link)");
-         // TODO: Implement filtering based on ProjectRegistration having a getProject().getName() method and status
-         // return findByProjectId(projectId).stream()
-         //        .filter(reg -> reg.getStatus() == DocumentStatus.PENDING_APPROVAL)
-         //        .collect(Collectors.toList());
-         return new ArrayList<>(); // Placeholder
+        return findByProjectIdAndStatus(projectId, DocumentStatus.PENDING_APPROVAL);
     }
 
      /**
      * Finds APPROVED registrations for a specific project ID[cite: 29].
-     * Assumes ProjectRegistration has a reference to the Project.
      * @param projectId The unique ID (e.g., name) of the project.
      * @return List of approved registrations for that project.
      */
     public List<ProjectRegistration> findApprovedByProjectId(String projectId) {
-         System.out.println("RegistrationRepository: Finding APPROVED registrations for project " + projectId + " (Stub - Requires ProjectRegistration <-> Project Link)");
-         // TODO: Implement filtering based on ProjectRegistration having a getProject().getName() method and status
-         // return findByProjectId(projectId).stream()
-         //        .filter(reg -> reg.getStatus() == DocumentStatus.APPROVED)
-         //        .collect(Collectors.toList());
-         return new ArrayList<>(); // Placeholder
+        return findByProjectIdAndStatus(projectId, DocumentStatus.APPROVED);
+    }
+
+    private List<ProjectRegistration> findByProjectIdAndStatus(String projectId, DocumentStatus status) {
+        return query(new Query<ProjectRegistration>()
+                .where(PROJECT_NAME, projectId)
+                .where(STATUS, status));
     }
 
     /**
      * Finds an officer's APPROVED registration for any project overlapping a given period.
-     * Used for eligibility check[cite: 18]. Requires Project data access. Likely better in a service layer.
+     * Used for eligibility check[cite: 18]. The overlap is answered by the officer schedule index
+     * kept by ProjectsRepository, so only the officer's own registrations are scanned afterwards.
      * @param officerNric NRIC of the officer.
      * @param startDate Start date of the period to check.
      * @param endDate End date of the period to check.
      * @return Optional containing the conflicting approved registration if found.
      */
     public Optional<ProjectRegistration> findApprovedRegistrationInPeriod(String officerNric, java.util.Date startDate, java.util.Date endDate) {
-         System.out.println("RegistrationRepository: Finding APPROVED registration for officer " + officerNric + " in period (Stub - Requires Project Data Access)");
-        // TODO:
-        // 1. Find all APPROVED registrations for the officerNric.
-        // 2. For each registration, get its associated Project.
-        // 3. Get the Project's application period (open/close dates).
-        // 4. Check if the project's period overlaps with the given startDate/endDate.
-        // 5. Return the first one found.
-        return Optional.empty(); // Placeholder
+        if (officerNric == null || startDate == null || endDate == null || startDate.after(endDate)) return Optional.empty();
+        String conflictingProject = Database.getProjectsRepository().getOfficerSchedule().findConflict(
+                officerNric, IntervalIndex.epochDay(startDate), IntervalIndex.epochDay(endDate), null);
+        if (conflictingProject == null) return Optional.empty();
+        return findByOfficerNric(officerNric).stream()
+                .filter(reg -> reg.getStatus() == DocumentStatus.APPROVED && conflictingProject.equals(reg.getProjectName()))
+                .findFirst();
     }
         private String formatDate(LocalDateTime ldt) {
         if (ldt == null) return "";
@@ -0,0 +1,100 @@
+package entities.database.repositories.documentsRepositories;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import entities.documents.DocumentStatus;
+import entities.database.indexes.IndexedStore;
+import entities.documents.IBaseSubmittableDocument;
+
+/**
+ * The outcome of a compare-and-set update on a document, and the update itself ({@link #update}), which every
+ * document repository's {@code update} and {@code transition} delegate to.
+ * A conflict means another session changed the document first; the caller should re-read it and decide again.
+ * @param <T> The type of the document.
+ */
+public final class TransitionResult<T extends IBaseSubmittableDocument> {
+
+    /** How a compare-and-set update ended. */
+    public enum Outcome {
+        /** The change was applied and the version advanced. */
+        APPLIED,
+        /** No document has the given ID. */
+        NOT_FOUND,
+        /** The document's version no longer matches the version the caller read. */
+        VERSION_CONFLICT,
+        /** The document is not in the status the caller expected. */
+        STATUS_CONFLICT,
+        /** The change itself refused to apply (e.g. a lifecycle method returned false). */
+        REJECTED
+    }
+
+    private final Outcome outcome;
+    private final T document;
+
+    private TransitionResult(Outcome outcome, T document) {
+        this.outcome = outcome;
+        this.document = document;
+    }
+
+    public Outcome getOutcome() { return outcome; }
+
+    /** @return The document as it is after the attempt, or null if it was not found. */
+    public T getDocument() { return document; }
+
+    public boolean isApplied() { return outcome == Outcome.APPLIED; }
+
+    /** @return true if the update lost a race with another session. */
+    public boolean isConflict() { return outcome == Outcome.VERSION_CONFLICT || outcome == Outcome.STATUS_CONFLICT; }
+
+    /** @return The version of the document after the attempt, or -1 if it was not found. */
+    public long getVersion() { return document == null ? -1 : document.getVersion(); }
+
+    /**
+     * Applies an in-place change (e.g. {@code approve} or {@code reply}) to a stored document if its version and
+     * status are still the ones the caller read. The lookup, the check, the change, the version bump and
+     * re-indexing happen under the store's lock, so two sessions deciding the same document cannot both succeed.
+     * @param lock The monitor guarding the store's writes.
+     * @param lookup Reads the stored document by ID.
+     * @param documentId The document ID.
+     * @param expectedVersion The version the caller read.
+     * @param expectedStatus The status the document must still be in, or null to check the version only.
+     * @param change The change; returns false to refuse.
+     * @param reindex Brings the store's indexes up to date with the changed document.
+     * @return The result of the attempt.
+     */
+    static <T extends IBaseSubmittableDocument> TransitionResult<T> update(Object lock, Function<String, ? extends T> lookup,
+            String documentId, long expectedVersion, DocumentStatus expectedStatus, Predicate<? super T> change, Consumer<? super T> reindex) {
+        synchronized (lock) {
+            TransitionResult<T> result = attempt(lookup.apply(documentId), expectedVersion, expectedStatus, change);
+            if (result.isApplied()) reindex.accept(result.getDocument());
+            return result;
+        }
+    }
+
+    /** {@link #update} on an indexed store, locked and re-indexed through the store itself. */
+    static <T extends IBaseSubmittableDocument> TransitionResult<T> update(IndexedStore<String, T> store, String documentId,
+            long expectedVersion, DocumentStatus expectedStatus, Predicate<? super T> change) {
+        return update(store, store::get, documentId, expectedVersion, expectedStatus, change, doc -> store.reindex(documentId));
+    }
+
+    /**
+     * Checks the expected version and status and applies a change, advancing the version on success.
+     * The caller holds the repository's write lock and re-indexes the document when the change is applied.
+     * @param document The current document, may be null.
+     * @param expectedVersion The version the caller read.
+     * @param expectedStatus The status the document must be in, or null to skip the status check.
+     * @param change The in-place change; returns false to refuse.
+     * @return The result of the attempt.
+     */
+    static <T extends IBaseSubmittableDocument> TransitionResult<T> attempt(T document, long expectedVersion,
+            DocumentStatus expectedStatus, Predicate<? super T> change) {
+        if (document == null) return new TransitionResult<>(Outcome.NOT_FOUND, null);
+        if (document.getVersion() != expectedVersion) return new TransitionResult<>(Outcome.VERSION_CONFLICT, document);
+        if (expectedStatus != null && document.getStatus() != expectedStatus) return new TransitionResult<>(Outcome.STATUS_CONFLICT, document);
+        if (!change.test(document)) return new TransitionResult<>(Outcome.REJECTED, document);
+        document.advanceVersion();
+        return new TransitionResult<>(Outcome.APPLIED, document);
+    }
+}
@@ -7,12 +7,11 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.function.Predicate;
 import java.util.TimeZone;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
 import entities.documents.DocumentStatus;
 import entities.documents.approvableDocuments.*;
@@ -21,12 +20,31 @@ import entities.user.User;
 import utilities.CsvUtil;
 import entities.database.Database;
 import entities.database.repositories.*;
+import entities.database.query.Attribute;
+import entities.database.query.QueryPlanner;
+import entities.database.indexes.HashIndex;
+import entities.database.indexes.NricIndex;
+import entities.database.indexes.IndexedStore;
+import entities.database.repositories.usersRepositories.UserDirectory;
 
 /**
  * This entity class is a repository for managing Withdrawal entities.
  */
 public class WithdrawalRepository implements IRepository<Withdrawal, String> {
-    private final Map<String, Withdrawal> withdrawalMap = new ConcurrentHashMap<>();
+    // --- Query Attributes ---
+    public static final Attribute<Withdrawal, DocumentStatus> STATUS = Attribute.of("status", Withdrawal::getStatus);
+    public static final Attribute<Withdrawal, String> PROJECT_NAME = Attribute.of("projectName", Withdrawal::getProjectName);
+    public static final Attribute<Withdrawal, String> APPLICANT_NRIC =
+            Attribute.of("applicantNric", wd -> wd.getSubmitter() != null ? UserDirectory.normalize(wd.getSubmitter().getNric()) : null);
+    public static final Attribute<Withdrawal, String> APPLICATION_ID =
+            Attribute.of("applicationId", wd -> wd.getApplicationToWithdraw() != null ? wd.getApplicationToWithdraw().getDocumentID() : null);
+
+    // Primary map plus secondary indexes, maintained together on every write
+    private final IndexedStore<String, Withdrawal> withdrawalStore = new IndexedStore<>("withdrawals", Withdrawal::getDocumentID);
+    private final HashIndex<String, Withdrawal, DocumentStatus> byStatus = withdrawalStore.hashIndex(STATUS);
+    private final HashIndex<String, Withdrawal, String> byProject = withdrawalStore.hashIndex(PROJECT_NAME);
+    private final NricIndex<String, Withdrawal> byApplicant = withdrawalStore.nricIndex(APPLICANT_NRIC);
+    private final HashIndex<String, Withdrawal, String> byApplication = withdrawalStore.hashIndex(APPLICATION_ID);
     private final String filename = "data/documents/withdrawals.csv";
     private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
      static { DATE_FORMAT.setTimeZone(TimeZone.getTimeZone("UTC")); }
@@ -37,8 +55,8 @@ public class WithdrawalRepository implements IRepository<Withdrawal, String> {
     public void loadFromFile() {
         // Important: Load AFTER Applications are loaded
         List<Withdrawal> loaded = CsvUtil.readCsv(filename, this::mapRowToWithdrawal, true);
-        loaded.forEach(w -> withdrawalMap.putIfAbsent(w.getDocumentID(), w));
-        System.out.println("Loaded " + withdrawalMap.size() + " withdrawals from " + filename);
+        loaded.forEach(withdrawalStore::putIfAbsent);
+        System.out.println("Loaded " + withdrawalStore.size() + " withdrawals from " + filename);
     }
 
     public void saveToFile() {
@@ -134,23 +152,31 @@ public class WithdrawalRepository implements IRepository<Withdrawal, String> {
          if (withdrawal == null || withdrawal.getDocumentID() == null) {
             throw new IllegalArgumentException("Withdrawal and Document ID cannot be null.");
         }
-        withdrawalMap.put(withdrawal.getDocumentID(), withdrawal);
+        synchronized (withdrawalStore) {
+            withdrawalStore.put(withdrawal);
+            withdrawal.advanceVersion();
+        }
         return withdrawal;
     }
 
     @Override
     public Optional<Withdrawal> findById(String documentId) {
-        return Optional.ofNullable(withdrawalMap.get(documentId));
+        return Optional.ofNullable(withdrawalStore.get(documentId));
     }
 
     @Override
     public List<Withdrawal> findAll() {
-        return new ArrayList<>(withdrawalMap.values());
+        return new ArrayList<>(withdrawalStore.values());
     }
 
      @Override
+    public Collection<Withdrawal> values() {
+        return withdrawalStore.values();
+    }
+
+    @Override
     public boolean deleteById(String documentId) {
-        return withdrawalMap.remove(documentId) != null;
+        return withdrawalStore.remove(documentId) != null;
     }
 
     @Override
@@ -161,7 +187,66 @@ public class WithdrawalRepository implements IRepository<Withdrawal, String> {
 
     @Override
     public long count() {
-        return withdrawalMap.size();
+        return withdrawalStore.size();
+    }
+
+    @Override
+    public Page<Withdrawal, String> findPage(String afterKey, int limit, Predicate<? super Withdrawal> criteria) {
+        return Page.after(withdrawalStore.orderedView(), afterKey, limit, criteria);
+    }
+
+    @Override
+    public QueryPlanner<Withdrawal> queryPlanner() {
+        return withdrawalStore.planner();
+    }
+
+    /**
+     * Re-indexes a withdrawal after it was mutated in place (e.g. {@code setStatus}) without a save.
+     * @param withdrawal The mutated withdrawal.
+     * @return true if the withdrawal is stored and was re-indexed.
+     */
+    public boolean reindex(Withdrawal withdrawal) {
+        return withdrawal != null && withdrawalStore.reindex(withdrawal.getDocumentID());
+    }
+
+    /**
+     * Moves a withdrawal from one status to another on behalf of a user, if nobody has changed it since the caller read it.
+     * @param documentId The withdrawal ID.
+     * @param expectedVersion The version the caller read.
+     * @param fromStatus The status the withdrawal must still be in.
+     * @param toStatus The new status.
+     * @param actor The user recorded as making the change.
+     * @return The result, a conflict if another session changed the withdrawal first.
+     */
+    public TransitionResult<Withdrawal> transition(String documentId, long expectedVersion, DocumentStatus fromStatus, DocumentStatus toStatus, User actor) {
+        return update(documentId, expectedVersion, fromStatus, doc -> { doc.changeStatus(toStatus, actor); return true; });
+    }
+
+    /**
+     * Compare-and-set update of a withdrawal; see {@link TransitionResult#update}.
+     * @return The result of the attempt.
+     */
+    public TransitionResult<Withdrawal> update(String documentId, long expectedVersion, DocumentStatus expectedStatus,
+            Predicate<? super Withdrawal> change) {
+        return TransitionResult.update(withdrawalStore, documentId, expectedVersion, expectedStatus, change);
+    }
+
+    /**
+     * Finds all withdrawal requests currently in a status.
+     * @param status The status.
+     * @return List of matching withdrawal requests.
+     */
+    public List<Withdrawal> findByStatus(DocumentStatus status) {
+        return byStatus.find(status);
+    }
+
+    /**
+     * Finds withdrawal requests for a specific project.
+     * @param projectName The project name.
+     * @return List of withdrawal requests for the project.
+     */
+    public List<Withdrawal> findByProjectName(String projectName) {
+        return byProject.find(projectName);
     }
 
      // --- Requirement Specific Methods ---
@@ -172,9 +257,8 @@ public class WithdrawalRepository implements IRepository<Withdrawal, String> {
       * @return List of withdrawal requests by the applicant.
       */
     public List<Withdrawal> findByApplicantNric(String applicantNric) {
-         return withdrawalMap.values().stream()
-                .filter(w -> w.getSubmitter() != null && w.getSubmitter().getNric().equalsIgnoreCase(applicantNric))
-                .collect(Collectors.toList());
+        if (applicantNric == null) return new ArrayList<>();
+        return byApplicant.find(UserDirectory.normalize(applicantNric));
     }
 
     /**
@@ -183,8 +267,7 @@ public class WithdrawalRepository implements IRepository<Withdrawal, String> {
      * @return Optional containing the Withdrawal request if found.
      */
     public Optional<Withdrawal> findByApplicationId(String originalApplicationId) {
-         return withdrawalMap.values().stream()
-                .filter(w -> w.getApplicationToWithdraw() != null && w.getApplicationToWithdraw().getDocumentID().equals(originalApplicationId))
+        return byApplication.find(originalApplicationId).stream()
                 .findFirst(); // Assuming only one withdrawal request per application
     }
             private String formatDate(LocalDateTime ldt) {
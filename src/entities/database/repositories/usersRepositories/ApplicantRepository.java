@@ -1,13 +1,17 @@
 package entities.database.repositories.usersRepositories;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.NavigableMap;
+import java.util.function.Predicate;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.ArrayList;
 import entities.user.*;
 import entities.database.repositories.IRepository;
+import entities.database.repositories.Page;
+import entities.database.indexes.PartitionedRangeIndex;
 import utilities.*;
 import entities.project.*;
 
@@ -16,11 +20,25 @@ import entities.project.*;
  */
 public class ApplicantRepository implements IRepository<Applicant, String> {
 
-    private final Map<String, Applicant> applicantMap = new ConcurrentHashMap<>();
+    private final NavigableMap<String, Applicant> applicantMap = new ConcurrentSkipListMap<>(); // Key-ordered, for keyset pagination
+    private final UserDirectory directory; // Shared NRIC directory, kept in sync on save/delete
+    // Normalized NRICs partitioned by marital status, each partition sorted by age
+    private final PartitionedRangeIndex<MaritalStatus, String> eligibilityIndex = new PartitionedRangeIndex<>();
+
+    // --- Eligibility Thresholds ---
+    public static final int MARRIED_MIN_AGE = EligibilityRules.standard().minimumAge(MaritalStatus.MARRIED); // Any flat type
+    public static final int SINGLE_MIN_AGE = EligibilityRules.standard().minimumAge(MaritalStatus.SINGLE);   // 2-Room only
+    private static final MaritalStatus[] ELIGIBILITY_ORDER = {MaritalStatus.MARRIED, MaritalStatus.SINGLE};
     private final String filename = "data/users/applicants.csv"; // Define filename
 
     // Package-private constructor, managed by UsersRepository facade
-    public ApplicantRepository() {}
+    public ApplicantRepository() {
+        this(new UserDirectory());
+    }
+
+    public ApplicantRepository(UserDirectory directory) {
+        this.directory = directory;
+    }
 
     // --- Load and Save Methods ---
     public void loadFromFile() {
@@ -72,7 +90,10 @@ public class ApplicantRepository implements IRepository<Applicant, String> {
         if (applicant == null || applicant.getNric() == null) {
             throw new IllegalArgumentException("Applicant/NRIC cannot be null.");
         }
-        applicantMap.put(applicant.getNric().toUpperCase(), applicant);
+        String key = UserDirectory.normalize(applicant.getNric());
+        applicantMap.put(key, applicant);
+        eligibilityIndex.put(key, applicant.getMaritalStatus(), applicant.getAge());
+        directory.register(Role.APPLICANT, applicant);
         // Note: saveToFile() is not called here for performance; called on shutdown/explicitly
         return applicant;
     }
@@ -80,16 +101,26 @@ public class ApplicantRepository implements IRepository<Applicant, String> {
     @Override
     public Optional<Applicant> findById(String nric) { /* unchanged */
         if (nric == null) return Optional.empty();
-        return Optional.ofNullable(applicantMap.get(nric.toUpperCase()));
+        return Optional.ofNullable(applicantMap.get(UserDirectory.normalize(nric)));
     }
      @Override
     public List<Applicant> findAll() { /* unchanged */
         return new ArrayList<>(applicantMap.values());
     }
+    @Override
+    public Collection<Applicant> values() {
+        return Collections.unmodifiableCollection(applicantMap.values());
+    }
+
     @Override
     public boolean deleteById(String nric) { /* unchanged */
         if (nric == null) return false;
-        boolean removed = applicantMap.remove(nric.toUpperCase()) != null;
+        String key = UserDirectory.normalize(nric);
+        boolean removed = applicantMap.remove(key) != null;
+        if (removed) {
+            eligibilityIndex.remove(key);
+            directory.unregister(Role.APPLICANT, nric);
+        }
          // Note: saveToFile() is not called here
          return removed;
     }
@@ -103,6 +134,11 @@ public class ApplicantRepository implements IRepository<Applicant, String> {
         return applicantMap.size();
     }
 
+    @Override
+    public Page<Applicant, String> findPage(String afterNric, int limit, Predicate<? super Applicant> criteria) {
+        return Page.after(applicantMap, afterNric == null ? null : UserDirectory.normalize(afterNric), limit, criteria);
+    }
+
 
     // --- Requirement Specific Methods (Implemented) ---
 
@@ -110,32 +146,49 @@ public class ApplicantRepository implements IRepository<Applicant, String> {
      * Finds applicants eligible for specific flat types based on age and marital status.
      * - Singles, 35 years old and above, can ONLY apply for 2-Room.
      * - Married, 21 years old and above, can apply for any flat types (2-Room or 3-Room).
+     * Each age band of the {@link EligibilityRules} is a range read on the eligibility index rather than a check of every applicant.
      * @param flatType The flat type to check eligibility for.
-     * @return List of eligible applicants.
+     * @return List of eligible applicants, married first, each group in age order.
      */
     public List<Applicant> findEligibleApplicants(FlatType flatType) {
-        return findAll().stream()
-                .filter(applicant -> checkEligibility(applicant, flatType))
-                .collect(Collectors.toList());
-    }
-
-    private boolean checkEligibility(Applicant applicant, FlatType flatType) {
-        int age = applicant.getAge();
-        MaritalStatus status = applicant.getMaritalStatus();
-
-        if (status == MaritalStatus.MARRIED) {
-            // Married, 21 years old and above, can apply for any flat types
-            return age >= 21; // Can apply for TWO_ROOM or THREE_ROOM if >= 21
-        } else if (status == MaritalStatus.SINGLE) {
-            // Singles, 35 years old and above, can ONLY apply for 2-Room
-            if (age >= 35 && flatType == FlatType.TWO_ROOM) {
-                return true;
-            } else {
-                return false; // Singles < 35 or applying for 3-Room are ineligible
+        List<Applicant> eligible = new ArrayList<>();
+        for (MaritalStatus status : ELIGIBILITY_ORDER) {
+            for (int[] band : EligibilityRules.standard().ageBands(status, flatType)) {
+                eligible.addAll(findByMaritalStatusAndAge(status, band[0], band[1]));
             }
-        } else {
-            return false; // Should not happen if enum is used correctly
         }
+        return eligible;
+    }
+
+    /**
+     * Counts the applicants eligible for a flat type without materializing them.
+     * @param flatType The flat type to check eligibility for.
+     * @return The number of eligible applicants.
+     */
+    public int countEligibleApplicants(FlatType flatType) {
+        int count = 0;
+        for (MaritalStatus status : ELIGIBILITY_ORDER) {
+            for (int[] band : EligibilityRules.standard().ageBands(status, flatType)) {
+                count += eligibilityIndex.count(status, band[0], band[1]);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds applicants with a marital status whose age lies in an inclusive range (e.g. singles aged 35-40).
+     * @param maritalStatus The marital status.
+     * @param minAge The lowest age to include.
+     * @param maxAge The highest age to include.
+     * @return List of matching applicants, in age order.
+     */
+    public List<Applicant> findByMaritalStatusAndAge(MaritalStatus maritalStatus, int minAge, int maxAge) {
+        List<Applicant> applicants = new ArrayList<>();
+        for (String key : eligibilityIndex.range(maritalStatus, minAge, maxAge)) {
+            Applicant applicant = applicantMap.get(key);
+            if (applicant != null) applicants.add(applicant);
+        }
+        return applicants;
     }
 
      /**
@@ -1,25 +1,38 @@
 package entities.database.repositories.usersRepositories;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.NavigableMap;
+import java.util.function.Predicate;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.ArrayList;
 import entities.user.*;
 import entities.database.repositories.IRepository;
+import entities.database.repositories.Page;
 import utilities.*;
 import java.util.Date;
+import entities.database.Database;
+import entities.database.indexes.IntervalIndex;
 
 /**
  * This entity class is a repository for managing HdbManager entities.
  */
 public class HdbManagerRepository implements IRepository<HdbManager, String> {
 
-    private final Map<String, HdbManager> managerMap = new ConcurrentHashMap<>();
+    private final NavigableMap<String, HdbManager> managerMap = new ConcurrentSkipListMap<>(); // Key-ordered, for keyset pagination
+    private final UserDirectory directory; // Shared NRIC directory, kept in sync on save/delete
     private final String filename = "data/users/hdb_managers.csv"; // Define filename
 
     // Package-private constructor
-   public HdbManagerRepository() {}
+   public HdbManagerRepository() {
+       this(new UserDirectory());
+   }
+
+   public HdbManagerRepository(UserDirectory directory) {
+       this.directory = directory;
+   }
 
    // --- Load and Save Methods ---
    public void loadFromFile() {
@@ -73,7 +86,8 @@ public class HdbManagerRepository implements IRepository<HdbManager, String> {
        if (manager == null || manager.getNric() == null) {
            throw new IllegalArgumentException("Manager/NRIC cannot be null.");
        }
-       managerMap.put(manager.getNric().toUpperCase(), manager);
+       managerMap.put(UserDirectory.normalize(manager.getNric()), manager);
+       directory.register(Role.HDB_MANAGER, manager);
         // Note: saveToFile() is not called here
        return manager;
    }
@@ -81,7 +95,7 @@ public class HdbManagerRepository implements IRepository<HdbManager, String> {
    @Override
    public Optional<HdbManager> findById(String nric) {
         if (nric == null) return Optional.empty();
-       return Optional.ofNullable(managerMap.get(nric.toUpperCase()));
+       return Optional.ofNullable(managerMap.get(UserDirectory.normalize(nric)));
    }
 
    @Override
@@ -89,10 +103,16 @@ public class HdbManagerRepository implements IRepository<HdbManager, String> {
        return new ArrayList<>(managerMap.values());
    }
 
+   @Override
+   public Collection<HdbManager> values() {
+       return Collections.unmodifiableCollection(managerMap.values());
+   }
+
    @Override
    public boolean deleteById(String nric) {
         if (nric == null) return false;
-       boolean removed = managerMap.remove(nric.toUpperCase()) != null;
+       boolean removed = managerMap.remove(UserDirectory.normalize(nric)) != null;
+       if (removed) directory.unregister(Role.HDB_MANAGER, nric);
         // Note: saveToFile() is not called here
         return removed;
    }
@@ -108,30 +128,47 @@ public class HdbManagerRepository implements IRepository<HdbManager, String> {
        return managerMap.size();
    }
 
-    // --- Requirement Specific Methods (Stubs - Require Service Layer) ---
+   @Override
+   public Page<HdbManager, String> findPage(String afterNric, int limit, Predicate<? super HdbManager> criteria) {
+       return Page.after(managerMap, afterNric == null ? null : UserDirectory.normalize(afterNric), limit, criteria);
+   }
+
+    // --- Requirement Specific Methods ---
 
     /**
     * Checks if a manager is already managing a project within a given application period.
     * - Can only handle one project within an application period.
-    * Requires Project data access. **Belongs in a Service Layer.**
+    * Answered by the manager schedule index kept by ProjectsRepository (O(log n) per manager).
     * @param managerNric The NRIC of the manager.
     * @param projectApplicationStartDate The start date of the *new* project's application period.
     * @param projectApplicationEndDate The end date of the *new* project's application period.
-    * @return true if the manager is already busy during this period, false otherwise (full check needs service).
+    * @return true if the manager is already busy during this period, false otherwise.
     */
    public boolean isManagingProjectDuringPeriod(String managerNric, Date projectApplicationStartDate, Date projectApplicationEndDate) {
-       System.out.println("HdbManagerRepository: Checking if manager " + managerNric + " is busy during period (Stub - Requires Service Layer for full check)");
+       return isManagingProjectDuringPeriod(managerNric, projectApplicationStartDate, projectApplicationEndDate, null);
+   }
+
+    /**
+    * Checks if a manager is managing a project other than the excluded one within a given application period.
+    * Used when editing a project's dates, so the project does not conflict with itself.
+    * @param managerNric The NRIC of the manager.
+    * @param projectApplicationStartDate The start date of the application period to check.
+    * @param projectApplicationEndDate The end date of the application period to check.
+    * @param excludedProjectName The project to ignore, may be null.
+    * @return true if the manager is already busy during this period, false otherwise.
+    */
+   public boolean isManagingProjectDuringPeriod(String managerNric, Date projectApplicationStartDate, Date projectApplicationEndDate,
+                                                String excludedProjectName) {
        // Basic check: Does the manager exist?
        if(findById(managerNric).isEmpty()){
             System.err.println("Availability check failed: Manager " + managerNric + " not found.");
-            return true; // Treat non-existent manager as 'busy' to prevent assignment? Or return false? Needs definition. Let's say false.
-            // return false;
+            return true; // Treat non-existent manager as 'busy' to prevent assignment
        }
-       // TODO: Implement full cross-repository checks in a Service Layer:
-       // 1. Get all projects managed by managerNric (using ProjectsRepository.findByManager).
-       // 2. For each managed project, get its application start/end dates.
-       // 3. Check if any of those periods overlap with the given projectApplicationStartDate/EndDate.
-       // 4. Return true if overlap found, false otherwise.
-       return false; // Placeholder - Assume not busy until service layer implements checks
+       if (projectApplicationStartDate == null || projectApplicationEndDate == null) return false;
+       return Database.getProjectsRepository().getManagerSchedule().hasConflict(
+               managerNric,
+               IntervalIndex.epochDay(projectApplicationStartDate),
+               IntervalIndex.epochDay(projectApplicationEndDate),
+               excludedProjectName);
    }
 }
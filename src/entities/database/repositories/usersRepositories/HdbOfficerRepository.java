@@ -1,12 +1,17 @@
 package entities.database.repositories.usersRepositories;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.NavigableMap;
+import java.util.function.Predicate;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.ArrayList;
 import entities.user.*;
+import entities.database.Database;
 import entities.database.repositories.IRepository;
+import entities.database.repositories.Page;
 import utilities.*;
 
 /**
@@ -14,11 +19,18 @@ import utilities.*;
  */
 public class HdbOfficerRepository implements IRepository<HdbOfficer, String> {
 
-    private final Map<String, HdbOfficer> officerMap = new ConcurrentHashMap<>();
+    private final NavigableMap<String, HdbOfficer> officerMap = new ConcurrentSkipListMap<>(); // Key-ordered, for keyset pagination
+    private final UserDirectory directory; // Shared NRIC directory, kept in sync on save/delete
     private final String filename = "data/users/hdb_officers.csv"; // Define filename
 
     // Package-private constructor, managed by UsersRepository facade
-    public HdbOfficerRepository() {}
+    public HdbOfficerRepository() {
+        this(new UserDirectory());
+    }
+
+    public HdbOfficerRepository(UserDirectory directory) {
+        this.directory = directory;
+    }
 
     // --- Load and Save Methods ---
     public void loadFromFile() {
@@ -72,7 +84,8 @@ public class HdbOfficerRepository implements IRepository<HdbOfficer, String> {
         if (officer == null || officer.getNric() == null) {
             throw new IllegalArgumentException("Officer/NRIC cannot be null.");
         }
-        officerMap.put(officer.getNric().toUpperCase(), officer);
+        officerMap.put(UserDirectory.normalize(officer.getNric()), officer);
+        directory.register(Role.HDB_OFFICER, officer);
         // Note: saveToFile() is not called here for performance; called on shutdown/explicitly
         return officer;
     }
@@ -80,7 +93,7 @@ public class HdbOfficerRepository implements IRepository<HdbOfficer, String> {
     @Override
     public Optional<HdbOfficer> findById(String nric) {
         if (nric == null) return Optional.empty();
-        return Optional.ofNullable(officerMap.get(nric.toUpperCase()));
+        return Optional.ofNullable(officerMap.get(UserDirectory.normalize(nric)));
     }
 
     @Override
@@ -88,10 +101,16 @@ public class HdbOfficerRepository implements IRepository<HdbOfficer, String> {
         return new ArrayList<>(officerMap.values());
     }
 
+    @Override
+    public Collection<HdbOfficer> values() {
+        return Collections.unmodifiableCollection(officerMap.values());
+    }
+
     @Override
     public boolean deleteById(String nric) {
         if (nric == null) return false;
-        boolean removed = officerMap.remove(nric.toUpperCase()) != null;
+        boolean removed = officerMap.remove(UserDirectory.normalize(nric)) != null;
+        if (removed) directory.unregister(Role.HDB_OFFICER, nric);
          // Note: saveToFile() is not called here
          return removed;
     }
@@ -107,6 +126,11 @@ public class HdbOfficerRepository implements IRepository<HdbOfficer, String> {
         return officerMap.size();
     }
 
+    @Override
+    public Page<HdbOfficer, String> findPage(String afterNric, int limit, Predicate<? super HdbOfficer> criteria) {
+        return Page.after(officerMap, afterNric == null ? null : UserDirectory.normalize(afterNric), limit, criteria);
+    }
+
 
     // --- Requirement Specific Methods (Stubs - Require Service Layer) ---
 
@@ -135,20 +159,15 @@ public class HdbOfficerRepository implements IRepository<HdbOfficer, String> {
      }
 
      /**
-      * Finds officers assigned to a specific project.
-      * Requires Project data access or a direct link in HdbOfficer model. **Belongs in Service Layer or requires model change.**
+      * Finds officers assigned to a specific project, using the project repository's assignment index.
       * @param projectId The ID of the project.
       * @return List of officers handling the project.
       */
      public List<HdbOfficer> findByHandledProject(String projectId) {
-        System.out.println("HdbOfficerRepository: Finding officers for project " + projectId + " (Stub - Requires Service Layer or Officer<->Project Link)");
-        // This logic requires iterating through Project objects or having a direct link
-        // Example (if accessing Project repo here - not ideal):
-        // Optional<Project> projOpt = Database.getProjectsRepository().findById(projectId);
-        // if (projOpt.isPresent()) {
-        //     return projOpt.get().getAssignedOfficers();
-        // }
-        // return new ArrayList<>();
-        return new ArrayList<>(); // Placeholder - Implement in Service
+        List<HdbOfficer> officers = new ArrayList<>();
+        for (String nric : Database.getProjectsRepository().findOfficerNricsByProject(projectId)) {
+            findById(nric).ifPresent(officers::add);
+        }
+        return officers;
      }
 }
\ No newline at end of file
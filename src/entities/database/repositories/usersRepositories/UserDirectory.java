@@ -0,0 +1,109 @@
+package entities.database.repositories.usersRepositories;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import entities.database.indexes.LongObjectMap;
+import entities.user.*;
+import utilities.NricCodec;
+
+/**
+ * This entity class is a single NRIC directory shared by the applicant, officer and manager repositories.
+ * Every user resolution is one hash probe instead of one probe per role repository.
+ * Standard NRICs are keyed by their {@link NricCodec} encoding in a primitive open-addressing map,
+ * so no key string or map node is held per user; NRICs outside the standard format fall back to a small string map.
+ */
+public class UserDirectory {
+
+    /** A directory entry: the role the user is stored under and the user itself. */
+    public static final class Entry {
+        private final Role role;
+        private final User user;
+
+        Entry(Role role, User user) {
+            this.role = role;
+            this.user = user;
+        }
+
+        public Role getRole() { return role; }
+        public User getUser() { return user; }
+    }
+
+    private final LongObjectMap<Entry> entriesByKey = new LongObjectMap<>();
+    private final Map<String, Entry> irregularEntries = new HashMap<>(); // NRICs NricCodec cannot encode
+
+    /**
+     * Normalizes an NRIC to upper case, returning the input itself when it is already canonical
+     * (the common case for NRICs read back from CSV), so no new string is allocated.
+     * @param nric The NRIC to normalize, may be null.
+     * @return The upper-case NRIC, or null if nric is null.
+     */
+    public static String normalize(String nric) {
+        if (nric == null) return null;
+        for (int i = 0; i < nric.length(); i++) {
+            char c = nric.charAt(i);
+            if (c >= 'a' && c <= 'z' || (c > 127 && Character.isLowerCase(c))) {
+                return nric.toUpperCase();
+            }
+        }
+        return nric;
+    }
+
+    /**
+     * Registers (or replaces) the entry for a user.
+     * @param role The role repository the user is stored in.
+     * @param user The user.
+     */
+    synchronized void register(Role role, User user) {
+        Entry entry = new Entry(role, user);
+        long key = NricCodec.encode(user.getNric());
+        if (key != NricCodec.NONE) entriesByKey.put(key, entry);
+        else irregularEntries.put(normalize(user.getNric()), entry);
+    }
+
+    /**
+     * Removes the entry for an NRIC if it is still registered under the given role.
+     * @param role The role repository the user was removed from.
+     * @param nric The NRIC of the user.
+     */
+    synchronized void unregister(Role role, String nric) {
+        Entry entry = lookup(nric);
+        if (entry == null || entry.role != role) return;
+        long key = NricCodec.encode(nric);
+        if (key != NricCodec.NONE) entriesByKey.remove(key);
+        else irregularEntries.remove(normalize(nric));
+    }
+
+    /**
+     * Finds the directory entry for an NRIC.
+     * @param nric The NRIC (any case).
+     * @return The entry, or empty if no user has this NRIC.
+     */
+    public synchronized Optional<Entry> findEntry(String nric) {
+        return Optional.ofNullable(lookup(nric));
+    }
+
+    /**
+     * Finds the user with an NRIC, whatever their role.
+     * @param nric The NRIC (any case).
+     * @return The user, or empty if not found.
+     */
+    public synchronized Optional<User> findUser(String nric) {
+        Entry entry = lookup(nric);
+        return entry == null ? Optional.empty() : Optional.of(entry.user);
+    }
+
+    /**
+     * Counts the users in the directory.
+     * @return The number of users.
+     */
+    public synchronized int size() {
+        return entriesByKey.size() + irregularEntries.size();
+    }
+
+    private Entry lookup(String nric) {
+        if (nric == null) return null;
+        long key = NricCodec.encode(nric);
+        return key != NricCodec.NONE ? entriesByKey.get(key) : irregularEntries.get(normalize(nric));
+    }
+}
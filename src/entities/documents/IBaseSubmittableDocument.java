@@ -29,6 +29,18 @@ public interface IBaseSubmittableDocument {
      */
     DocumentStatus getStatus();
 
+    /**
+     * Gets the version of the document, advanced every time a change to it is written.
+     * Callers pass the version they read to the repositories' compare-and-set updates.
+     * @return The current version.
+     */
+    long getVersion();
+
+    /**
+     * Advances the version after a change has been written. Called by the repositories only.
+     */
+    void advanceVersion();
+
 
     /**
      * Allows editing the content of the document.
@@ -0,0 +1,38 @@
+package entities.documents.approvableDocuments;
+
+import java.time.LocalDateTime;
+
+import entities.documents.DocumentStatus;
+import entities.project.FlatType;
+import entities.user.User;
+
+/**
+ * This class is an immutable capture of the fields an approval workflow mutates on a document
+ * (status, last modification, rejection reason and, for applications, the booked, allocated and waitlisted flat types).
+ * Used to put a document back when a multi-step operation fails part-way.
+ */
+public final class DocumentState {
+    final DocumentStatus status;
+    final LocalDateTime lastModifiedDate;
+    final User lastModifiedBy;
+    final String lastModifiedByNric;
+    final String rejectionReason;
+    final FlatType bookedFlatType;
+    final FlatType allocatedFlatType;
+    final FlatType waitlistedFlatType;
+
+    DocumentState(DocumentStatus status, LocalDateTime lastModifiedDate, User lastModifiedBy,
+                  String lastModifiedByNric, String rejectionReason, FlatType bookedFlatType, FlatType allocatedFlatType,
+                  FlatType waitlistedFlatType) {
+        this.status = status;
+        this.lastModifiedDate = lastModifiedDate;
+        this.lastModifiedBy = lastModifiedBy;
+        this.lastModifiedByNric = lastModifiedByNric;
+        this.rejectionReason = rejectionReason;
+        this.bookedFlatType = bookedFlatType;
+        this.allocatedFlatType = allocatedFlatType;
+        this.waitlistedFlatType = waitlistedFlatType;
+    }
+
+    public DocumentStatus getStatus() { return status; }
+}
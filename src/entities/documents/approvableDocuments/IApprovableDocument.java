@@ -28,6 +28,18 @@ public interface IApprovableDocument extends IBaseSubmittableDocument {
      */
     boolean reject(User rejector, String reason);
 
+    /**
+     * Captures the state the approval workflow mutates, so a failed operation can restore it.
+     * @return The captured state.
+     */
+    DocumentState captureState();
+
+    /**
+     * Restores state previously returned by {@link #captureState()}.
+     * @param state The state to restore.
+     */
+    void restoreState(DocumentState state);
+
 }
 
 //---
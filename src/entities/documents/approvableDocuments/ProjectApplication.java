@@ -10,6 +10,7 @@ import entities.database.Database;
 import entities.documents.DocumentStatus;
 import entities.documents.DocumentType;
 import entities.project.*;
+import utilities.NricCodec;
 
 /**
  * This class represents a BTO project application document submmited by an applicant.
@@ -22,11 +23,16 @@ public class ProjectApplication implements IApprovableDocument {
     private LocalDateTime submissionDate;
     private LocalDateTime lastModifiedDate;
     private User lastModifiedBy; // Keep User reference for runtime logic
-    private String lastModifiedByNric; // ADDED: Store NRIC for persistence consistency
+    private long lastModifiedByKey = NricCodec.NONE; // NRIC of the last modifier, encoded by NricCodec
+    private String irregularLastModifiedByNric; // Only set for NRICs NricCodec cannot encode
     private String rejectionReason;
     private DocumentType documentType; // Should always be APPLICATION
     private String projectName; // Store project name
     private FlatType bookedFlatType; // <-- ADDED FIELD for booked flat
+    private volatile long version; // Advanced on every written change, for optimistic concurrency
+    private int ballotNumber; // Position drawn in the project's ballot (1 = first), 0 if not balloted yet
+    private FlatType allocatedFlatType; // Flat type the ballot approved the applicant for; null if approved without one
+    private FlatType waitlistedFlatType; // Sold-out flat type the applicant waits to be booked into; null if not waiting
     
     /**
      * Constructor suitable for loading data or full initialization.
@@ -58,13 +64,13 @@ public class ProjectApplication implements IApprovableDocument {
         this.submissionDate = submissionDate;
         this.lastModifiedDate = (lastModifiedDate == null && status == DocumentStatus.DRAFT) ? LocalDateTime.now() : lastModifiedDate; // Sensible default?
         this.lastModifiedBy = lastModifiedBy; // Can be null initially if loaded from NRIC
-        this.lastModifiedByNric = (lastModifiedBy != null) ? lastModifiedBy.getNric() : lastModifiedByNric; // Use NRIC from User if available
+        setModifierNric((lastModifiedBy != null) ? lastModifiedBy.getNric() : lastModifiedByNric); // Use NRIC from User if available
         this.rejectionReason = rejectionReason;
         this.bookedFlatType = bookedFlatType; // Set booked type
 
         // Ensure NRIC derived if user object passed
-        if (this.lastModifiedBy != null && this.lastModifiedByNric == null) {
-             this.lastModifiedByNric = this.lastModifiedBy.getNric();
+        if (this.lastModifiedBy != null && getLastModifiedByNric() == null) {
+             setModifierNric(this.lastModifiedBy.getNric());
         }
 
         // System.out.println("Loaded/Created Project Application: " + this.documentID); // Adjusted log
@@ -90,6 +96,8 @@ public class ProjectApplication implements IApprovableDocument {
     @Override public DocumentType getDocumentType() { return documentType; }
     @Override public User getSubmitter() { return applicant; } // Applicant is the submitter
     @Override public DocumentStatus getStatus() { return status; }
+    @Override public long getVersion() { return version; }
+    @Override public void advanceVersion() { version++; } // Only called under the repository's lock
     public LocalDateTime getSubmissionDate() { return submissionDate; }
     public LocalDateTime getLastModifiedDate() { return lastModifiedDate; }
     public User getLastModifiedBy() { // Maybe lookup user from NRIC if needed and lastModifiedBy is null?
@@ -99,11 +107,16 @@ public class ProjectApplication implements IApprovableDocument {
         // }
          return lastModifiedBy;
     }
-    public String getLastModifiedByNric() { return lastModifiedByNric; } // Getter for NRIC
+    public String getLastModifiedByNric() { // Getter for NRIC
+        return lastModifiedByKey != NricCodec.NONE ? NricCodec.decode(lastModifiedByKey) : irregularLastModifiedByNric;
+    }
     public String getRejectionReason() { return rejectionReason; }
     public String getProjectName() { return projectName; }
     public FlatType getBookedFlatType() { return bookedFlatType; } // <-- ADDED GETTER
     public User getApplicant() { return applicant; } // Alias
+    public int getBallotNumber() { return ballotNumber; }
+    public FlatType getAllocatedFlatType() { return allocatedFlatType; }
+    public FlatType getWaitlistedFlatType() { return waitlistedFlatType; }
 
     // --- Setters (for fields mutable after creation / during loading) ---
 
@@ -111,15 +124,33 @@ public class ProjectApplication implements IApprovableDocument {
     // public void setApplicant(User applicant) { this.applicant = applicant; }
 
     public void setStatus(DocumentStatus status) { this.status = status; }
+
+    /**
+     * Moves the application to a status on behalf of a user, stamping the modification. For repository
+     * compare-and-set transitions; workflows use the lifecycle methods (submit, approve, ...).
+     * @param status The new status.
+     * @param actor The user making the change.
+     */
+    public void changeStatus(DocumentStatus status, User actor) {
+        this.status = status;
+        this.lastModifiedDate = LocalDateTime.now();
+        setLastModifiedBy(actor);
+    }
+
     public void setSubmissionDate(LocalDateTime submissionDate) { this.submissionDate = submissionDate; }
     public void setLastModifiedDate(LocalDateTime lastModifiedDate) { this.lastModifiedDate = lastModifiedDate; }
     public void setLastModifiedBy(User lastModifiedBy) {
         this.lastModifiedBy = lastModifiedBy;
         // Update NRIC when User object is set
-        this.lastModifiedByNric = (lastModifiedBy != null) ? lastModifiedBy.getNric() : null;
+        setModifierNric((lastModifiedBy != null) ? lastModifiedBy.getNric() : null);
     }
      // Setter for NRIC, might be used during loading before User lookup
-     public void setLastModifiedByNric(String lastModifiedByNric) { this.lastModifiedByNric = lastModifiedByNric; }
+     public void setLastModifiedByNric(String lastModifiedByNric) { setModifierNric(lastModifiedByNric); }
+
+    private void setModifierNric(String nric) {
+        lastModifiedByKey = NricCodec.encode(nric);
+        irregularLastModifiedByNric = (lastModifiedByKey == NricCodec.NONE) ? nric : null;
+    }
 
     public void setRejectionReason(String rejectionReason) { this.rejectionReason = rejectionReason; }
     // ProjectName likely shouldn't change after creation?
@@ -127,6 +158,40 @@ public class ProjectApplication implements IApprovableDocument {
     // DocumentType shouldn't change
     // public void setDocumentType(DocumentType documentType) { this.documentType = documentType; }
     public void setBookedFlatType(FlatType bookedFlatType) { this.bookedFlatType = bookedFlatType; } // <-- ADDED SETTER
+    public void setBallotNumber(int ballotNumber) { this.ballotNumber = ballotNumber; }
+    public void setAllocatedFlatType(FlatType allocatedFlatType) { this.allocatedFlatType = allocatedFlatType; }
+    public void setWaitlistedFlatType(FlatType waitlistedFlatType) { this.waitlistedFlatType = waitlistedFlatType; }
+
+    /**
+     * Creates a detached copy of this application for snapshot reads; it is never stored or mutated.
+     * @return The copy, with the same ID and version.
+     */
+    public ProjectApplication snapshotCopy() {
+        ProjectApplication copy = new ProjectApplication(documentID, applicant, projectName, status, submissionDate,
+                lastModifiedDate, lastModifiedBy, getLastModifiedByNric(), rejectionReason, bookedFlatType);
+        copy.version = version;
+        copy.ballotNumber = ballotNumber;
+        copy.allocatedFlatType = allocatedFlatType;
+        copy.waitlistedFlatType = waitlistedFlatType;
+        return copy;
+    }
+
+    @Override
+    public DocumentState captureState() {
+        return new DocumentState(status, lastModifiedDate, lastModifiedBy, getLastModifiedByNric(), rejectionReason, bookedFlatType, allocatedFlatType, waitlistedFlatType);
+    }
+
+    @Override
+    public void restoreState(DocumentState state) {
+        this.status = state.status;
+        this.lastModifiedDate = state.lastModifiedDate;
+        this.lastModifiedBy = state.lastModifiedBy;
+        setModifierNric(state.lastModifiedByNric);
+        this.rejectionReason = state.rejectionReason;
+        this.bookedFlatType = state.bookedFlatType;
+        this.allocatedFlatType = state.allocatedFlatType;
+        this.waitlistedFlatType = state.waitlistedFlatType;
+    }
 
 
     // --- Interface Methods Implementation (Updating last modified fields) ---
@@ -139,7 +204,7 @@ public class ProjectApplication implements IApprovableDocument {
             this.submissionDate = now; // Set submission date
             this.lastModifiedDate = now;
             this.lastModifiedBy = submitter;
-            this.lastModifiedByNric = submitter.getNric(); // Set NRIC too
+            setModifierNric(submitter.getNric()); // Set NRIC too
             System.out.println("Application " + documentID + " submitted by " + submitter.getNric());
             return true;
         }
@@ -155,7 +220,7 @@ public class ProjectApplication implements IApprovableDocument {
              // Example: if (newContent instanceof Map) { updateFields((Map) newContent); }
              this.lastModifiedDate = LocalDateTime.now();
              this.lastModifiedBy = editor;
-             this.lastModifiedByNric = editor.getNric(); // Set NRIC
+             setModifierNric(editor.getNric()); // Set NRIC
              System.out.println("Application " + documentID + " edited by " + editor.getNric() + " (Logic Pending).");
              return true; // Return true if conceptually editable
          }
@@ -170,7 +235,7 @@ public class ProjectApplication implements IApprovableDocument {
             this.status = DocumentStatus.CLOSED; // Mark status as closed/deleted
             this.lastModifiedDate = LocalDateTime.now();
             this.lastModifiedBy = deleter;
-            this.lastModifiedByNric = deleter.getNric(); // Set NRIC
+            setModifierNric(deleter.getNric()); // Set NRIC
             System.out.println("Application " + documentID + " marked as deleted by " + deleter.getNric());
             return true; // Indicates status updated, repo handles removal
         }
@@ -185,7 +250,7 @@ public class ProjectApplication implements IApprovableDocument {
              this.status = DocumentStatus.APPROVED;
              this.lastModifiedDate = LocalDateTime.now();
              this.lastModifiedBy = approver;
-             this.lastModifiedByNric = approver.getNric(); // Set NRIC
+             setModifierNric(approver.getNric()); // Set NRIC
              this.rejectionReason = null;
              System.out.println("Application " + documentID + " approved by " + approver.getNric());
              return true;
@@ -201,7 +266,7 @@ public class ProjectApplication implements IApprovableDocument {
              this.status = DocumentStatus.REJECTED;
              this.lastModifiedDate = LocalDateTime.now();
              this.lastModifiedBy = rejector;
-             this.lastModifiedByNric = rejector.getNric(); // Set NRIC
+             setModifierNric(rejector.getNric()); // Set NRIC
              this.rejectionReason = reason;
              System.out.println("Application " + documentID + " rejected by " + rejector.getNric() + ". Reason: " + reason);
              return true;
@@ -21,6 +21,7 @@ public class ProjectRegistration implements IApprovableDocument {
     private String rejectionReason;
     private DocumentType documentType;
     private String projectName;
+    private volatile long version; // Advanced on every written change, for optimistic concurrency
 
     public ProjectRegistration(String documentID,
                                User officer,
@@ -65,6 +66,19 @@ public class ProjectRegistration implements IApprovableDocument {
     @Override
     public DocumentStatus getStatus() { return status; }
 
+    @Override
+    public long getVersion() { return version; }
+
+    @Override
+    public void advanceVersion() { version++; } // Only called under the repository's lock
+
+    /** Sets the status as changed by a user now; for {@code RegistrationRepository.transition} only. */
+    public void changeStatus(DocumentStatus status, User actor) {
+        this.status = status;
+        this.lastModifiedDate = LocalDateTime.now();
+        this.lastModifiedBy = actor;
+    }
+
     @Override
     public boolean submit(User submitter) {
          if (this.status == DocumentStatus.DRAFT && submitter.equals(this.officer)) {
@@ -155,6 +169,19 @@ public class ProjectRegistration implements IApprovableDocument {
         return rejectionReason;
     }
 
+    @Override
+    public DocumentState captureState() {
+        return new DocumentState(status, lastModifiedDate, lastModifiedBy, null, rejectionReason, null, null, null);
+    }
+
+    @Override
+    public void restoreState(DocumentState state) {
+        this.status = state.status;
+        this.lastModifiedDate = state.lastModifiedDate;
+        this.lastModifiedBy = state.lastModifiedBy;
+        this.rejectionReason = state.rejectionReason;
+    }
+
     public User getOfficer() {
         return officer;
     }
@@ -22,6 +22,7 @@ public class Withdrawal implements IApprovableDocument {
     private String rejectionReason; // Reason withdrawal rejected
     private DocumentType documentType;
     private String projectName;
+    private volatile long version; // Advanced on every written change, for optimistic concurrency
 
 
     public Withdrawal(String documentID,
@@ -70,6 +71,19 @@ public class Withdrawal implements IApprovableDocument {
     @Override
     public DocumentStatus getStatus() { return status; }
 
+    @Override
+    public long getVersion() { return version; }
+
+    @Override
+    public void advanceVersion() { version++; } // Only called under the repository's lock
+
+    /** Sets the status as changed by a user now; for {@code WithdrawalRepository.transition} only. */
+    public void changeStatus(DocumentStatus status, User actor) {
+        this.status = status;
+        this.lastModifiedDate = LocalDateTime.now();
+        this.lastModifiedBy = actor;
+    }
+
     @Override
     public boolean submit(User submitter) {
         // Check if the applicant owns the application and is submitting
@@ -160,6 +174,19 @@ public class Withdrawal implements IApprovableDocument {
     public String getRejectionReason() {
         return rejectionReason;
     }
+
+    @Override
+    public DocumentState captureState() {
+        return new DocumentState(status, lastModifiedDate, lastModifiedBy, null, rejectionReason, null, null, null);
+    }
+
+    @Override
+    public void restoreState(DocumentState state) {
+        this.status = state.status;
+        this.lastModifiedDate = state.lastModifiedDate;
+        this.lastModifiedBy = state.lastModifiedBy;
+        this.rejectionReason = state.rejectionReason;
+    }
 }
 
 
@@ -26,6 +26,7 @@ public class Enquiry implements IReplyableDocument {
     private LocalDateTime replyDate;
     private DocumentType documentType;
     private String projectName;
+    private volatile long version; // Advanced on every written change, for optimistic concurrency
 
 
     public Enquiry(String documentID,
@@ -88,6 +89,19 @@ public class Enquiry implements IReplyableDocument {
     @Override
     public DocumentStatus getStatus() { return status; }
 
+    @Override
+    public long getVersion() { return version; }
+
+    @Override
+    public void advanceVersion() { version++; } // Only called under the repository's lock
+
+    /** Sets the status as changed by a user now; for {@code EnquiryRepository.transition} only. */
+    public void changeStatus(DocumentStatus status, User actor) {
+        this.status = status;
+        this.lastModifiedDate = LocalDateTime.now();
+        this.lastModifiedBy = actor;
+    }
+
 
      @Override
     public boolean submit(User submitter) {
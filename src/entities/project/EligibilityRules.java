@@ -0,0 +1,220 @@
+package entities.project;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import entities.user.MaritalStatus;
+import entities.user.User;
+
+/**
+ * The flat-type eligibility rules, declared once as (marital status, age band, flat types) and compiled
+ * into a lookup table: one byte per (marital status, age) whose bits are the eligible {@link FlatType} ordinals.
+ * A single check is one array read; batch checks walk primitive status and age columns without branching
+ * on the rules, so mass checks (outreach, balloting, reports) cost one table read per applicant.
+ * <p>The standard rules [cite: 12]:
+ * singles aged 35 and above may apply for 2-Room only; married applicants aged 21 and above for any flat type.
+ */
+public final class EligibilityRules {
+
+    /** Ages above this are treated as this age. */
+    public static final int MAX_AGE = 150;
+    /** Column code for an unknown marital status (never eligible). */
+    public static final byte UNKNOWN_STATUS = -1;
+
+    private static final int AGES = MAX_AGE + 1;
+    private static final MaritalStatus[] STATUSES = MaritalStatus.values();
+    private static final FlatType[] TYPES = FlatType.values();
+
+    private static final EligibilityRules STANDARD = builder()
+            .allow(MaritalStatus.SINGLE, 35, MAX_AGE, FlatType.TWO_ROOM)
+            .allow(MaritalStatus.MARRIED, 21, MAX_AGE, FlatType.values())
+            .build();
+
+    // Row 0 is the unknown status (all zero); row s + 1 is MaritalStatus ordinal s. Column is the clamped age.
+    private final byte[] table;
+
+    private EligibilityRules(byte[] table) {
+        this.table = table;
+    }
+
+    /** @return The rules in force. */
+    public static EligibilityRules standard() {
+        return STANDARD;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Declares rules; each {@code allow} grants flat types to a marital status within an age band. */
+    public static final class Builder {
+        private final byte[] table = new byte[(STATUSES.length + 1) * AGES];
+
+        private Builder() {
+            if (TYPES.length > Byte.SIZE) throw new IllegalStateException("Too many flat types for a byte mask.");
+        }
+
+        /**
+         * Grants flat types to applicants of a marital status aged within a band.
+         * @param status The marital status.
+         * @param minAge The lowest age, inclusive.
+         * @param maxAge The highest age, inclusive (use {@link #MAX_AGE} for no upper bound).
+         * @param types The flat types granted.
+         * @return This builder.
+         */
+        public Builder allow(MaritalStatus status, int minAge, int maxAge, FlatType... types) {
+            if (minAge < 0 || maxAge > MAX_AGE || minAge > maxAge) throw new IllegalArgumentException("Invalid age band " + minAge + "-" + maxAge);
+            int bits = 0;
+            for (FlatType type : types) bits |= 1 << type.ordinal();
+            int row = (status.ordinal() + 1) * AGES;
+            for (int age = minAge; age <= maxAge; age++) table[row + age] |= (byte) bits;
+            return this;
+        }
+
+        public EligibilityRules build() {
+            return new EligibilityRules(table.clone());
+        }
+    }
+
+    // --- Single Checks ---
+
+    /**
+     * Gets the flat types an applicant profile may apply for.
+     * @param status The marital status, or null if unknown.
+     * @param age The age.
+     * @return Bit mask of eligible {@link FlatType} ordinals.
+     */
+    public int mask(MaritalStatus status, int age) {
+        return table[index(status == null ? UNKNOWN_STATUS : (byte) status.ordinal(), age)];
+    }
+
+    public int mask(User user) {
+        return user == null ? 0 : mask(user.getMaritalStatus(), user.getAge());
+    }
+
+    public boolean isEligible(User user, FlatType type) {
+        return (mask(user) & bit(type)) != 0;
+    }
+
+    public boolean isEligible(MaritalStatus status, int age, FlatType type) {
+        return (mask(status, age) & bit(type)) != 0;
+    }
+
+    /**
+     * Checks whether an applicant may apply for at least one flat type the project offers.
+     * @param user The applicant.
+     * @param project The project.
+     * @return true if eligible for an offered type.
+     */
+    public boolean isEligibleForAny(User user, Project project) {
+        return (mask(user) & offeredMask(project)) != 0;
+    }
+
+    /** @return Bit mask of the flat types a project offers. */
+    public static int offeredMask(Project project) {
+        int bits = 0;
+        for (FlatType type : TYPES) {
+            if (project.offersFlatType(type)) bits |= bit(type);
+        }
+        return bits;
+    }
+
+    public static int bit(FlatType type) {
+        return 1 << type.ordinal();
+    }
+
+    // --- Batch Checks over Columns ---
+
+    /** @return The column code for a marital status. */
+    public static byte statusCode(MaritalStatus status) {
+        return status == null ? UNKNOWN_STATUS : (byte) status.ordinal();
+    }
+
+    /**
+     * Computes the eligibility mask of every row of a status and age column.
+     * @param statuses Marital status codes (see {@link #statusCode}).
+     * @param ages Ages.
+     * @param count The number of rows.
+     * @param masks Receives the mask of each row.
+     */
+    public void masks(byte[] statuses, int[] ages, int count, byte[] masks) {
+        for (int i = 0; i < count; i++) masks[i] = table[index(statuses[i], ages[i])];
+    }
+
+    /**
+     * Finds the rows eligible for a flat type.
+     * @param statuses Marital status codes (see {@link #statusCode}).
+     * @param ages Ages.
+     * @param count The number of rows.
+     * @param type The flat type.
+     * @return The eligible row numbers.
+     */
+    public BitSet eligible(byte[] statuses, int[] ages, int count, FlatType type) {
+        long[] words = new long[(count + 63) >>> 6];
+        int shift = type.ordinal();
+        for (int i = 0; i < count; i++) {
+            long hit = (table[index(statuses[i], ages[i])] >>> shift) & 1;
+            words[i >>> 6] |= hit << i; // Shift distance is taken mod 64
+        }
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Counts the rows eligible for a flat type.
+     * @param statuses Marital status codes (see {@link #statusCode}).
+     * @param ages Ages.
+     * @param count The number of rows.
+     * @param type The flat type.
+     * @return The number of eligible rows.
+     */
+    public int countEligible(byte[] statuses, int[] ages, int count, FlatType type) {
+        int shift = type.ordinal();
+        int total = 0;
+        for (int i = 0; i < count; i++) total += (table[index(statuses[i], ages[i])] >>> shift) & 1;
+        return total;
+    }
+
+    // --- Rule Introspection ---
+
+    /**
+     * Gets the age bands of a marital status eligible for a flat type, e.g. for range reads on an age index.
+     * @param status The marital status.
+     * @param type The flat type.
+     * @return Inclusive {min, max} age pairs, in age order; the last max is {@link Integer#MAX_VALUE} if open-ended.
+     */
+    public List<int[]> ageBands(MaritalStatus status, FlatType type) {
+        List<int[]> bands = new ArrayList<>();
+        int row = (status.ordinal() + 1) * AGES;
+        int start = -1;
+        for (int age = 0; age <= MAX_AGE; age++) {
+            boolean hit = (table[row + age] & bit(type)) != 0;
+            if (hit && start < 0) start = age;
+            if (!hit && start >= 0) {
+                bands.add(new int[]{start, age - 1});
+                start = -1;
+            }
+        }
+        if (start >= 0) bands.add(new int[]{start, Integer.MAX_VALUE});
+        return bands;
+    }
+
+    /**
+     * Gets the youngest age at which a marital status is eligible for any flat type.
+     * @param status The marital status.
+     * @return The age, or -1 if never eligible.
+     */
+    public int minimumAge(MaritalStatus status) {
+        int row = (status.ordinal() + 1) * AGES;
+        for (int age = 0; age <= MAX_AGE; age++) {
+            if (table[row + age] != 0) return age;
+        }
+        return -1;
+    }
+
+    private static int index(byte status, int age) {
+        int row = (status >= 0 && status < STATUSES.length) ? status + 1 : 0;
+        int column = age < 0 ? 0 : Math.min(age, MAX_AGE);
+        return row * AGES + column;
+    }
+}
@@ -0,0 +1,118 @@
+package entities.project;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * This class holds the per-flat-type unit counters of a project, indexed by {@link FlatType#ordinal()}.
+ * Reserving and releasing units are lock-free compare-and-set loops, so concurrent bookings can never
+ * take the remaining count below zero or releases push it above the type's capacity.
+ * A capacity of -1 marks a flat type the project does not offer.
+ */
+public class FlatInventory {
+
+    private static final int NOT_OFFERED = -1;
+    private static final FlatType[] TYPES = FlatType.values();
+
+    private final AtomicIntegerArray capacity = new AtomicIntegerArray(TYPES.length);
+    private final AtomicIntegerArray remaining = new AtomicIntegerArray(TYPES.length);
+
+    /**
+     * Creates an inventory with every offered type fully available.
+     * @param initialCounts The number of units per offered flat type.
+     */
+    public FlatInventory(Map<FlatType, Integer> initialCounts) {
+        for (int i = 0; i < TYPES.length; i++) capacity.set(i, NOT_OFFERED);
+        initialCounts.forEach(this::reset);
+    }
+
+    private FlatInventory(FlatInventory source) {
+        for (int i = 0; i < TYPES.length; i++) {
+            capacity.set(i, source.capacity.get(i));
+            remaining.set(i, source.remaining.get(i));
+        }
+    }
+
+    /**
+     * Copies the counters; each type is read atomically, though not all types at one instant.
+     * @return A new inventory with the same capacities and remaining units.
+     */
+    public FlatInventory copy() {
+        return new FlatInventory(this);
+    }
+
+    /**
+     * Reserves one unit of a flat type.
+     * @param type The flat type.
+     * @return true if a unit was reserved, false if none remain or the type is not offered.
+     */
+    public boolean reserve(FlatType type) {
+        int i = type.ordinal();
+        while (true) {
+            int current = remaining.get(i);
+            if (current <= 0) return false;
+            if (remaining.compareAndSet(i, current, current - 1)) return true;
+        }
+    }
+
+    /**
+     * Releases one previously reserved unit of a flat type.
+     * @param type The flat type.
+     * @return true if a unit was released, false if the type is already fully available.
+     */
+    public boolean release(FlatType type) {
+        int i = type.ordinal();
+        while (true) {
+            int current = remaining.get(i);
+            if (current >= capacity.get(i)) return false;
+            if (remaining.compareAndSet(i, current, current + 1)) return true;
+        }
+    }
+
+    /**
+     * Sets the capacity of a flat type and makes every unit available again (used when editing a listing).
+     * @param type The flat type.
+     * @param count The new number of units, not negative.
+     */
+    public synchronized void reset(FlatType type, int count) {
+        if (count < 0) throw new IllegalArgumentException("Unit counts cannot be negative.");
+        int i = type.ordinal();
+        remaining.set(i, 0); // Never expose remaining above capacity while shrinking
+        capacity.set(i, count);
+        remaining.set(i, count);
+    }
+
+    /** @return true if the project offers the flat type. */
+    public boolean offers(FlatType type) {
+        return capacity.get(type.ordinal()) != NOT_OFFERED;
+    }
+
+    /** @return The number of units of a flat type, or 0 if it is not offered. */
+    public int getCapacity(FlatType type) {
+        return Math.max(capacity.get(type.ordinal()), 0);
+    }
+
+    /** @return The number of units of a flat type still available. */
+    public int getRemaining(FlatType type) {
+        return remaining.get(type.ordinal());
+    }
+
+    /** @return A snapshot of the capacity of every offered flat type. */
+    public Map<FlatType, Integer> capacitySnapshot() {
+        Map<FlatType, Integer> counts = new EnumMap<>(FlatType.class);
+        for (FlatType type : TYPES) {
+            if (offers(type)) counts.put(type, getCapacity(type));
+        }
+        return counts;
+    }
+
+    /** @return A snapshot of the remaining units of every offered flat type. */
+    public Map<FlatType, Integer> remainingSnapshot() {
+        Map<FlatType, Integer> counts = new EnumMap<>(FlatType.class);
+        for (FlatType type : TYPES) {
+            if (offers(type)) counts.put(type, getRemaining(type));
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,24 @@
+package entities.project;
+
+import entities.user.HdbOfficer;
+
+/**
+ * This interface is notified whenever officers are assigned to or removed from a project,
+ * so indexes over assignments can stay in step without rescanning projects.
+ */
+public interface IOfficerAssignmentListener {
+
+    /**
+     * Called after an officer is added to a project.
+     * @param project The project the officer was added to.
+     * @param officer The officer added.
+     */
+    void officerAssigned(Project project, HdbOfficer officer);
+
+    /**
+     * Called after an officer is removed from a project.
+     * @param project The project the officer was removed from.
+     * @param officer The officer removed.
+     */
+    void officerUnassigned(Project project, HdbOfficer officer);
+}
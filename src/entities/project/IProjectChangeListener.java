@@ -0,0 +1,14 @@
+package entities.project;
+
+/**
+ * This interface is notified whenever a project's visibility or unit counts change in place,
+ * so caches of project listings can be invalidated without the project being saved again.
+ */
+public interface IProjectChangeListener {
+
+    /**
+     * Called after the visibility or a unit count of a project changed.
+     * @param project The project that changed.
+     */
+    void projectChanged(Project project);
+}
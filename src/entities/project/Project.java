@@ -3,6 +3,8 @@ package entities.project;
 import java.util.Date; // Consider using java.time.LocalDate for better date handling
 import java.util.Map;
 import java.util.HashMap; // Or other Map implementation
+import java.util.HashSet;
+import java.util.Set;
 import java.util.List;
 import java.util.Objects;
 import java.util.Arrays;
@@ -15,14 +17,16 @@ import entities.user.*;
 public class Project {
     private String name;
     private String neighbourhood;
-    private Map<FlatType, Integer> flatUnitCounts;
-    private Map<FlatType, Integer> remainingFlatUnits;
+    private final FlatInventory inventory; // Lock-free initial and remaining unit counters per flat type
     private Map<FlatType, Double> flatUnitPrices;
     private Date applicationOpenDate;
     private Date applicationCloseDate;
     private HdbManager manager;
     private HdbOfficer[] officers;
     private int assignedOfficerCount;
+    private final Set<String> assignedOfficerNrics = new HashSet<>(); // Upper-case NRICs, for O(1) membership checks
+    private IOfficerAssignmentListener officerAssignmentListener;
+    private IProjectChangeListener changeListener;
     private final int MAX_OFFICER_SLOTS = 10;
     private boolean visibility;
 
@@ -52,8 +56,7 @@ public class Project {
 
         this.name = name;
         this.neighbourhood = neighbourhood;
-        this.flatUnitCounts = new HashMap<>(initialFlatUnitCounts);
-        this.remainingFlatUnits = new HashMap<>(initialFlatUnitCounts);
+        this.inventory = new FlatInventory(initialFlatUnitCounts);
         this.flatUnitPrices = new HashMap<>(flatUnitPrices);
         this.applicationOpenDate = applicationOpenDate;
         this.applicationCloseDate = applicationCloseDate;
@@ -65,12 +68,41 @@ public class Project {
         this.visibility = false;
     }
 
+    /**
+     * Copy constructor for {@link #snapshotCopy()}: own inventory and officer array, no listener.
+     */
+    private Project(Project source) {
+        this.name = source.name;
+        this.neighbourhood = source.neighbourhood;
+        this.inventory = source.inventory.copy();
+        this.flatUnitPrices = new HashMap<>(source.flatUnitPrices);
+        this.applicationOpenDate = source.applicationOpenDate != null ? (Date) source.applicationOpenDate.clone() : null;
+        this.applicationCloseDate = source.applicationCloseDate != null ? (Date) source.applicationCloseDate.clone() : null;
+        this.manager = source.manager;
+        this.officers = source.officers.clone();
+        this.assignedOfficerCount = source.assignedOfficerCount;
+        this.assignedOfficerNrics.addAll(source.assignedOfficerNrics);
+        this.visibility = source.visibility;
+    }
+
+    /**
+     * Creates a detached copy of this project, including its unit counts, for snapshot reads.
+     * The copy is never stored, indexed or mutated.
+     * @return The copy.
+     */
+    public Project snapshotCopy() {
+        return new Project(this);
+    }
+
     public void setName(String name) { this.name = name; }
     public void setNeighbourhood(String neighbourhood) { this.neighbourhood = neighbourhood; }
     public void setApplicationOpenDate(Date applicationOpenDate) { this.applicationOpenDate = applicationOpenDate; }
     public void setApplicationCloseDate(Date applicationCloseDate) { this.applicationCloseDate = applicationCloseDate; }
     public void setManager(HdbManager manager) { this.manager = manager; }
-    public void setVisibility(boolean visible) { this.visibility = visible; }
+    public void setVisibility(boolean visible) {
+        this.visibility = visible;
+        fireChanged();
+    }
 
      // --- Getters (include price) ---
     public String getName() { return name; }
@@ -80,10 +112,11 @@ public class Project {
     public HdbManager getManager() { return manager; }
     public boolean isVisible() { return visibility; } // Preferred boolean getter name
     // public boolean getVisibility() {return visibility; } // Redundant with isVisible()
-    public int getInitialUnitCount(FlatType type) { return flatUnitCounts.getOrDefault(type, 0); }
-    public Map<FlatType, Integer> getInitialFlatUnitCounts() { return new HashMap<>(flatUnitCounts); }
-    public int getRemainingUnitCount(FlatType type) { return remainingFlatUnits.getOrDefault(type, 0); }
-    public Map<FlatType, Integer> getRemainingFlatUnits() { return new HashMap<>(remainingFlatUnits); }
+    public boolean offersFlatType(FlatType type) { return inventory.offers(type); }
+    public int getInitialUnitCount(FlatType type) { return inventory.getCapacity(type); }
+    public Map<FlatType, Integer> getInitialFlatUnitCounts() { return inventory.capacitySnapshot(); }
+    public int getRemainingUnitCount(FlatType type) { return inventory.getRemaining(type); }
+    public Map<FlatType, Integer> getRemainingFlatUnits() { return inventory.remainingSnapshot(); }
     public int getAvailableOfficerSlots() { return MAX_OFFICER_SLOTS - assignedOfficerCount; }
     public double getUnitPrice(FlatType type) { return flatUnitPrices.getOrDefault(type, 0.0); }
     public Map<FlatType, Double> getFlatUnitPrices() { return new HashMap<>(flatUnitPrices); }
@@ -116,10 +149,10 @@ public class Project {
      */
     public boolean updateFlatUnitCount(FlatType type, int newCount) {
         if (newCount < 0) return false;
-        flatUnitCounts.put(type, newCount);
-        remainingFlatUnits.put(type, newCount);
+        inventory.reset(type, newCount);
         // Also ensure price exists, maybe set default if adding a type?
         flatUnitPrices.putIfAbsent(type, 0.0); // Add price entry if new type
+        fireChanged();
         return true;
     }
 
@@ -134,7 +167,7 @@ public class Project {
             return false;
         }
         // Only allow updating price if the flat type exists initially
-        if (flatUnitCounts.containsKey(type)) {
+        if (inventory.offers(type)) {
             flatUnitPrices.put(type, newPrice);
             return true;
         }
@@ -142,23 +175,27 @@ public class Project {
     }
 
 
-    public boolean decrementRemainingUnit(FlatType type) { /* unchanged */
-        int currentRemaining = getRemainingUnitCount(type);
-        if (currentRemaining > 0) {
-            remainingFlatUnits.put(type, currentRemaining - 1);
-            return true;
-        }
-        return false;
-    }
-    public boolean incrementRemainingUnit(FlatType type) { /* unchanged */
-         int currentRemaining = getRemainingUnitCount(type);
-         int initialCount = getInitialUnitCount(type);
-         if (currentRemaining < initialCount) {
-             remainingFlatUnits.put(type, currentRemaining + 1);
-             return true;
-         }
-         return false;
-     }
+    /**
+     * Atomically reserves one unit of a flat type; safe under concurrent bookings without locking.
+     * @param type The flat type.
+     * @return true if a unit was reserved, false if none remain.
+     */
+    public boolean decrementRemainingUnit(FlatType type) {
+        if (!inventory.reserve(type)) return false;
+        fireChanged();
+        return true;
+    }
+
+    /**
+     * Atomically releases one unit of a flat type (e.g. on withdrawal of a booking), never above the initial count.
+     * @param type The flat type.
+     * @return true if a unit was released, false if the type is already fully available.
+     */
+    public boolean incrementRemainingUnit(FlatType type) {
+        if (!inventory.release(type)) return false;
+        fireChanged();
+        return true;
+    }
     public boolean addOfficer(HdbOfficer officer) { /* unchanged */
         if (officer == null) return false;
         if (assignedOfficerCount >= MAX_OFFICER_SLOTS) return false;
@@ -167,6 +204,8 @@ public class Project {
         }
         officers[assignedOfficerCount] = officer;
         assignedOfficerCount++;
+        assignedOfficerNrics.add(officer.getNric().toUpperCase());
+        if (officerAssignmentListener != null) officerAssignmentListener.officerAssigned(this, officer);
         return true;
     }
     
@@ -179,10 +218,42 @@ public class Project {
             if (numMoved > 0) System.arraycopy(officers, foundIndex + 1, officers, foundIndex, numMoved);
             assignedOfficerCount--;
             officers[assignedOfficerCount] = null; // Clear the now unused slot
+            assignedOfficerNrics.remove(officer.getNric().toUpperCase());
+            if (officerAssignmentListener != null) officerAssignmentListener.officerUnassigned(this, officer);
             return true;
         } else { return false; } // Officer not found
     }
 
+    /**
+     * Checks whether an officer is assigned to this project without building the officer list.
+     * @param officerNric The NRIC of the officer.
+     * @return true if the officer is assigned.
+     */
+    public boolean isOfficerAssigned(String officerNric) {
+        return officerNric != null && assignedOfficerNrics.contains(officerNric.toUpperCase());
+    }
+
+    /**
+     * Sets the listener notified when officers are added or removed (e.g. the repository's assignment index).
+     * @param listener The listener, or null to detach.
+     */
+    public void setOfficerAssignmentListener(IOfficerAssignmentListener listener) {
+        this.officerAssignmentListener = listener;
+    }
+
+    /**
+     * Sets the listener notified when visibility or unit counts change in place (e.g. the repository's version counter).
+     * @param listener The listener, or null to detach.
+     */
+    public void setChangeListener(IProjectChangeListener listener) {
+        this.changeListener = listener;
+    }
+
+    private void fireChanged() {
+        IProjectChangeListener listener = changeListener;
+        if (listener != null) listener.projectChanged(this);
+    }
+
     // toString, equals, hashCode remain similar, maybe update toString for price
      @Override
     public String toString() {
@@ -196,7 +267,7 @@ public class Project {
             "  Manager: %s (%s)\n" +
             "  Assigned Officers: %d/%d\n" +
             "  Visibility: %s",
-            name, neighbourhood, flatUnitCounts, remainingFlatUnits, flatUnitPrices, // Added Prices
+            name, neighbourhood, inventory.capacitySnapshot(), inventory.remainingSnapshot(), flatUnitPrices, // Added Prices
             applicationOpenDate, applicationCloseDate,
             (manager != null ? manager.getName() : "N/A"),
             (manager != null ? manager.getNric() : "N/A"),
@@ -0,0 +1,78 @@
+package utilities;
+
+/**
+ * Encodes NRICs of the form {@code ^[ST]\d{7}[A-Z]$} as compact {@code long} keys.
+ * The key is {@code ((prefix * 10^7) + digits) * 26 + checkLetter}, so it fits in 29 bits,
+ * round-trips exactly and sorts in the same order as the upper-case NRIC strings.
+ * Encoding is case-insensitive; anything else encodes to {@link #NONE}.
+ */
+public final class NricCodec {
+
+    /** The key returned for NRICs that do not follow the standard format. */
+    public static final long NONE = -1L;
+
+    private static final String PREFIXES = "ST";
+    private static final int DIGITS = 7;
+    private static final long DIGIT_SPACE = 10_000_000L;
+    private static final int LETTERS = 26;
+
+    private NricCodec() {}
+
+    /**
+     * Encodes an NRIC.
+     * @param nric The NRIC (any case), may be null.
+     * @return The encoded key, or {@link #NONE} if the NRIC is null or not in the standard format.
+     */
+    public static long encode(String nric) {
+        if (nric == null || nric.length() != DIGITS + 2) return NONE;
+        int prefix = PREFIXES.indexOf(Character.toUpperCase(nric.charAt(0)));
+        if (prefix < 0) return NONE;
+        long digits = 0;
+        for (int i = 1; i <= DIGITS; i++) {
+            char c = nric.charAt(i);
+            if (c < '0' || c > '9') return NONE;
+            digits = digits * 10 + (c - '0');
+        }
+        char letter = Character.toUpperCase(nric.charAt(DIGITS + 1));
+        if (letter < 'A' || letter > 'Z') return NONE;
+        return (prefix * DIGIT_SPACE + digits) * LETTERS + (letter - 'A');
+    }
+
+    /**
+     * Decodes a key produced by {@link #encode}.
+     * @param key The encoded key.
+     * @return The upper-case NRIC.
+     * @throws IllegalArgumentException If the key is not a valid encoding.
+     */
+    public static String decode(long key) {
+        if (!isValidKey(key)) throw new IllegalArgumentException("Not an encoded NRIC: " + key);
+        char[] chars = new char[DIGITS + 2];
+        chars[DIGITS + 1] = (char) ('A' + key % LETTERS);
+        long rest = key / LETTERS;
+        long digits = rest % DIGIT_SPACE;
+        for (int i = DIGITS; i >= 1; i--) {
+            chars[i] = (char) ('0' + digits % 10);
+            digits /= 10;
+        }
+        chars[0] = PREFIXES.charAt((int) (rest / DIGIT_SPACE));
+        return new String(chars);
+    }
+
+    /**
+     * Checks whether an NRIC can be encoded.
+     * @param nric The NRIC (any case), may be null.
+     * @return true if {@link #encode} returns a key for it.
+     */
+    public static boolean isEncodable(String nric) {
+        return encode(nric) != NONE;
+    }
+
+    /**
+     * Checks whether a key lies in the range produced by {@link #encode}.
+     * @param key The key.
+     * @return true if the key decodes to an NRIC.
+     */
+    public static boolean isValidKey(long key) {
+        return key >= 0 && key < PREFIXES.length() * DIGIT_SPACE * LETTERS;
+    }
+}